@@ -0,0 +1,57 @@
+package com.interview.order.benchmark;
+
+import com.interview.order.security.JwtUtil;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue and the per-request verification paths of {@link JwtUtil}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    private static final String SECRET = "very-secret-key-that-is-long-enough-to-be-used";
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil(SECRET, 3_600_000, 10_000);
+        token = jwtUtil.generateToken("testuser");
+        jwtUtil.verify(token);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken("testuser");
+    }
+
+    // repeat bearer token: cache hit, no HMAC or JSON work
+    @Benchmark
+    public JwtUtil.VerifiedToken verifyCached() {
+        return jwtUtil.verify(token);
+    }
+
+    // first sight of a token: one signature check and one parse
+    @Benchmark
+    public Claims parseOnce() {
+        return jwtUtil.extractClaim(token, c -> c);
+    }
+
+    // what the filter did before verify(): extractUsername + validateToken(extractUsername, isTokenExpired)
+    @Benchmark
+    public void legacyThreeParses(Blackhole bh) {
+        bh.consume(jwtUtil.extractUsername(token));
+        bh.consume(jwtUtil.extractUsername(token));
+        bh.consume(jwtUtil.isTokenExpired(token));
+    }
+}
@@ -0,0 +1,46 @@
+package com.interview.order.benchmark;
+
+import com.interview.order.notification.NotificationProperties;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of reading the notification routing configuration, paid once per order event. The lists are parsed
+ * once when the properties are (re)loaded, so this is a field read.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NotificationPropertiesBenchmark {
+
+    private NotificationProperties props;
+
+    @Setup
+    public void setUp() {
+        props = new NotificationProperties(new MockEnvironment()
+                .withProperty("notification.types", "email, sms")
+                .withProperty("notification.emails", "ops@example.com, finance@example.com, audit@example.com")
+                .withProperty("notification.phones", "+0225785420, +0225785421"));
+    }
+
+    @Benchmark
+    public List<String> types() {
+        return props.getTypes();
+    }
+
+    @Benchmark
+    public List<String> emails() {
+        return props.getEmails();
+    }
+
+    @Benchmark
+    public List<String> phones() {
+        return props.getPhones();
+    }
+}
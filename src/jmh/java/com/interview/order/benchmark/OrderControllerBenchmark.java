@@ -0,0 +1,72 @@
+package com.interview.order.benchmark;
+
+import com.interview.order.controller.OrderController;
+import com.interview.order.entity.OrderStatus;
+import com.interview.order.repository.OrderRow;
+import com.interview.order.service.OrderService;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response building in {@link OrderController#searchOrders}: typed order views and date formatting,
+ * with the service replaced by a fixed page so only controller work is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderControllerBenchmark {
+
+    @Param({"10", "100"})
+    public int pageSize;
+
+    private OrderController controller;
+    private LocalDateTime time;
+    private final DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @Setup
+    public void setUp() {
+        // no Spring Boot logging setup here; keep the per-request INFO lines out of the measurement
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(ch.qos.logback.classic.Level.WARN);
+
+        List<OrderRow> orders = new ArrayList<>(pageSize);
+        time = LocalDateTime.of(2026, 1, 2, 10, 15, 30);
+        for (int i = 0; i < pageSize; i++) {
+            orders.add(new OrderRow((long) i + 1, "Product-" + i, "bench", new BigDecimal("99.99"), "RMB", OrderStatus.CREATED, time, time));
+        }
+        PageImpl<OrderRow> page = new PageImpl<>(orders, PageRequest.of(0, pageSize), 10_000);
+
+        // only search(...) with the offset signature is exercised
+        OrderService service = (OrderService) Proxy.newProxyInstance(OrderService.class.getClassLoader(),
+                new Class<?>[]{OrderService.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("search") && args.length == 7) return page;
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        // searchOrders never touches the idempotency path
+        controller = new OrderController(service, null);
+    }
+
+    @Benchmark
+    public Object searchOrders() {
+        return controller.searchOrders(null, "bench", null, null, null, 0, pageSize, null, null, null, null);
+    }
+
+    @Benchmark
+    public String formatDate() {
+        return time.format(dtf);
+    }
+}
@@ -0,0 +1,97 @@
+package com.interview.order.benchmark;
+
+import com.interview.order.OrderApplication;
+import com.interview.order.entity.Order;
+import com.interview.order.entity.OrderStatus;
+import com.interview.order.repository.OrderRow;
+import com.interview.order.repository.OrderSearchQueries;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call cost of planning a search query: a Criteria tree built and translated on every call, as the repository
+ * used to do, versus the per-bitmask JPQL from {@link OrderSearchQueries} that Hibernate translates once and serves
+ * from its query plan cache. Both bind the same customer, status and time range and run the query, since Hibernate
+ * only translates to SQL on execution; the H2 table is empty, so what is left is translation plus a trivial
+ * round trip. Run with {@code -prof gc} to see the allocation difference as well.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderQueryPlanBenchmark {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2026, 2, 1, 0, 0);
+    private static final int PAGE_SIZE = 20;
+
+    private ConfigurableApplicationContext context;
+    private EntityManager em;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = SpringApplication.run(OrderApplication.class,
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:orderplanbench;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.flyway.enabled=false",
+                "--spring.jpa.show-sql=false",
+                "--notification.outbox.relay.enabled=false",
+                "--order.search.product-index.backfill-on-startup=false",
+                "--logging.level.root=WARN");
+        em = context.getBean(EntityManagerFactory.class).createEntityManager();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        em.close();
+        context.close();
+    }
+
+    @Benchmark
+    public List<OrderRow> criteriaPerCall() {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<OrderRow> cq = cb.createQuery(OrderRow.class);
+        Root<Order> root = cq.from(Order.class);
+        cq.select(cb.construct(OrderRow.class,
+                root.get("id"), root.get("productName"), root.get("customer"), root.get("totalAmount"),
+                root.get("currency"), root.get("status"), root.get("createTime"), root.get("updateTime")));
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(root.get("customer"), cb.parameter(String.class, "customer")));
+        predicates.add(cb.equal(root.get("status"), cb.parameter(OrderStatus.class, "status")));
+        predicates.add(cb.greaterThanOrEqualTo(root.get("createTime"), cb.parameter(LocalDateTime.class, "startTime")));
+        predicates.add(cb.lessThanOrEqualTo(root.get("createTime"), cb.parameter(LocalDateTime.class, "endTime")));
+        cq.where(predicates.toArray(new Predicate[0]));
+
+        TypedQuery<OrderRow> query = em.createQuery(cq);
+        query.setParameter("customer", "bench");
+        query.setParameter("status", OrderStatus.CREATED);
+        query.setParameter("startTime", START);
+        query.setParameter("endTime", END);
+        return query.setMaxResults(PAGE_SIZE).getResultList();
+    }
+
+    @Benchmark
+    public List<OrderRow> cachedPlan() {
+        OrderSearchQueries.Filter filter = OrderSearchQueries.Filter.of(null, "bench", OrderStatus.CREATED, START, END);
+        return filter.bind(em.createQuery(OrderSearchQueries.page(filter), OrderRow.class)).setMaxResults(PAGE_SIZE).getResultList();
+    }
+}
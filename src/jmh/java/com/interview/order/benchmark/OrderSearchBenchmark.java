@@ -0,0 +1,112 @@
+package com.interview.order.benchmark;
+
+import com.interview.order.OrderApplication;
+import com.interview.order.entity.OrderStatus;
+import com.interview.order.repository.OrderCursor;
+import com.interview.order.repository.OrderRepository;
+import com.interview.order.repository.OrderRow;
+import com.interview.order.repository.OrderSearchPage;
+import com.interview.order.repository.TotalMode;
+import com.interview.order.service.OrderService;
+import com.interview.order.web.CreateOrderRequest;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end {@code OrderRepositoryImpl} search against an embedded H2 database (MySQL mode)
+ * seeded with one large customer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderSearchBenchmark {
+
+    private static final int ORDERS = 20_000;
+    private static final int PAGE_SIZE = 20;
+
+    private ConfigurableApplicationContext context;
+    private OrderRepository orderRepository;
+    private OrderCursor deepCursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // command line arguments outrank application.properties, which points at MySQL
+        context = SpringApplication.run(OrderApplication.class,
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:orderbench;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.flyway.enabled=false",
+                "--spring.jpa.show-sql=false",
+                "--spring.sql.init.mode=never",
+                "--notification.outbox.relay.enabled=false",
+                "--logging.level.root=WARN");
+        orderRepository = context.getBean(OrderRepository.class);
+        OrderService orderService = context.getBean(OrderService.class);
+
+        List<CreateOrderRequest> batch = new ArrayList<>(1000);
+        for (int i = 0; i < ORDERS; i++) {
+            CreateOrderRequest req = new CreateOrderRequest();
+            req.setProductName((i % 7 == 0 ? "Laptop " : "Mouse ") + i);
+            req.setCustomer("bench");
+            req.setTotalAmount(new BigDecimal("10.00"));
+            batch.add(req);
+            if (batch.size() == 1000) {
+                orderService.createOrders(batch);
+                batch = new ArrayList<>(1000);
+            }
+        }
+
+        Slice<OrderRow> deep = orderRepository.searchAfter(null, "bench", null, null, null, null, ORDERS / 2);
+        deepCursor = OrderCursor.of(deep.getContent().get(deep.getContent().size() - 1));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<OrderRow> offsetFirstPage() {
+        return orderRepository.search(null, "bench", null, null, null, PageRequest.of(0, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Page<OrderRow> offsetDeepPage() {
+        return orderRepository.search(null, "bench", null, null, null, PageRequest.of(ORDERS / 2 / PAGE_SIZE, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Slice<OrderRow> cursorDeepPage() {
+        return orderRepository.searchAfter(null, "bench", null, null, null, deepCursor, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public OrderSearchPage noTotalFirstPage() {
+        return orderRepository.search(null, "bench", null, null, null, PageRequest.of(0, PAGE_SIZE), TotalMode.NONE, 1000);
+    }
+
+    @Benchmark
+    public OrderSearchPage windowTotalFirstPage() {
+        return orderRepository.search(null, "bench", null, null, null, PageRequest.of(0, PAGE_SIZE), TotalMode.EXACT_WINDOW, 1000);
+    }
+
+    @Benchmark
+    public Page<OrderRow> productNameAndStatus() {
+        return orderRepository.search("laptop", "bench", OrderStatus.CREATED, null, null, PageRequest.of(0, PAGE_SIZE));
+    }
+}
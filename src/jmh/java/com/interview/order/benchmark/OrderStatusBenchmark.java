@@ -0,0 +1,23 @@
+package com.interview.order.benchmark;
+
+import com.interview.order.entity.OrderStatus;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderStatusBenchmark {
+
+    @Param({"1", "3"})
+    public int code;
+
+    @Benchmark
+    public OrderStatus fromCode() {
+        return OrderStatus.fromCode(code);
+    }
+}
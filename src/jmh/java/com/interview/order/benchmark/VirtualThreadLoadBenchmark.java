@@ -0,0 +1,113 @@
+package com.interview.order.benchmark;
+
+import com.interview.order.OrderApplication;
+import com.interview.order.security.JwtUtil;
+import jdk.jfr.consumer.RecordingStream;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput and tail latency (the SampleTime percentiles) of one endpoint served by platform request threads versus
+ * virtual threads, with {@link Threads} concurrent clients. Each {@code virtual} value runs in its own fork and
+ * application context against the configured database, so it needs MySQL and is best selected on its own:
+ * {@code mvn -Pbenchmark verify -Djmh.args="VirtualThreadLoad -t 1000"}.
+ * Non-200 responses and carrier-pinning events (JFR jdk.VirtualThreadPinned) are reported as secondary results.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(200)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VirtualThreadLoadBenchmark {
+
+    @Param({"false", "true"})
+    public boolean virtual;
+
+    @Param({"50"})
+    public int poolSize;
+
+    @Param({"/orders?customer=Ying&size=20"})
+    public String path;
+
+    private ConfigurableApplicationContext context;
+    private RecordingStream pinning;
+    private ExecutorService clients;
+    private HttpClient http;
+    private HttpRequest request;
+
+    // pinning events arrive on the JFR stream thread; whichever client runs next moves them into its counters
+    private final AtomicLong pinnedEvents = new AtomicLong();
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Outcomes {
+        public long errors;
+        public long pinned;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            errors = 0;
+            pinned = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = SpringApplication.run(OrderApplication.class,
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + virtual,
+                "--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                "--spring.jpa.show-sql=false",
+                "--notification.outbox.relay.enabled=false",
+                "--order.search.product-index.backfill-on-startup=false",
+                "--logging.level.root=WARN");
+
+        pinning = new RecordingStream();
+        pinning.enable("jdk.VirtualThreadPinned");
+        pinning.onEvent("jdk.VirtualThreadPinned", e -> pinnedEvents.incrementAndGet());
+        pinning.startAsync();
+
+        clients = Executors.newVirtualThreadPerTaskExecutor();
+        http = HttpClient.newBuilder().executor(clients).connectTimeout(Duration.ofSeconds(10)).build();
+        String port = context.getEnvironment().getProperty("local.server.port");
+        String token = context.getBean(JwtUtil.class).generateToken("testuser");
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(60))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        http.close();
+        clients.close();
+        pinning.close();
+        context.close();
+    }
+
+    @Benchmark
+    public int request(Outcomes outcomes) {
+        int status;
+        try {
+            status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (Exception ex) {
+            status = -1;
+        }
+        if (status != 200) outcomes.errors++;
+        outcomes.pinned += pinnedEvents.getAndSet(0);
+        return status;
+    }
+}
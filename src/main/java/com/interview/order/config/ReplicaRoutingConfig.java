@@ -0,0 +1,90 @@
+package com.interview.order.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sends read-only transactions to read replicas when {@code order.datasource.replica.urls} is set; without
+ * it the single auto-configured datasource is used as before.
+ * <p>
+ * The application datasource is a {@link LazyConnectionDataSourceProxy}: it only fetches a physical
+ * connection at the first statement, when the transaction's read-only flag is known, and takes read-only
+ * connections from {@link ReplicaRoutingDataSource} and all others from the primary pool (spring.datasource.*).
+ */
+@Configuration
+@ConditionalOnProperty(name = "order.datasource.replica.urls")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaDataSource(HikariDataSource primaryDataSource,
+                                                     ReplicaPools replicaPools,
+                                                     @Value("${order.datasource.replica.max-lag-seconds:0}") int maxLagSeconds,
+                                                     @Value("${order.datasource.replica.read-your-writes-ms:2000}") long readYourWritesMs,
+                                                     MeterRegistry meterRegistry) {
+        return new ReplicaRoutingDataSource(primaryDataSource, List.copyOf(replicaPools.pools()), maxLagSeconds, readYourWritesMs, meterRegistry);
+    }
+
+    @Bean
+    public ReplicaPools replicaPools(DataSourceProperties properties,
+                                     @Value("${order.datasource.replica.urls}") String urls,
+                                     @Value("${order.datasource.replica.username:}") String username,
+                                     @Value("${order.datasource.replica.password:}") String password,
+                                     @Value("${order.datasource.replica.maximum-pool-size:10}") int maximumPoolSize) {
+        List<HikariDataSource> pools = new ArrayList<>();
+        List<String> jdbcUrls = Arrays.stream(urls.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+        for (int i = 0; i < jdbcUrls.size(); i++) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("replica-" + i);
+            pool.setJdbcUrl(jdbcUrls.get(i));
+            // same account as the primary unless the replicas have their own
+            pool.setUsername(username.isEmpty() ? properties.determineUsername() : username);
+            pool.setPassword(username.isEmpty() ? properties.determinePassword() : password);
+            if (properties.getDriverClassName() != null) pool.setDriverClassName(properties.getDriverClassName());
+            pool.setMaximumPoolSize(maximumPoolSize);
+            pool.setReadOnly(true);
+            // the health check decides when a replica is usable; do not fail startup on an unreachable one
+            pool.setInitializationFailTimeout(-1);
+            pools.add(pool);
+        }
+        return new ReplicaPools(pools);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(replicaDataSource.writeDataSource());
+        proxy.setReadOnlyDataSource(replicaDataSource);
+        return proxy;
+    }
+
+    /**
+     * Replica connection pools, closed with the context.
+     */
+    public record ReplicaPools(List<HikariDataSource> pools) implements AutoCloseable {
+        @Override
+        public void close() {
+            for (HikariDataSource pool : pools) {
+                pool.close();
+            }
+        }
+    }
+}
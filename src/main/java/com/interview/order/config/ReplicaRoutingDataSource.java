@@ -0,0 +1,214 @@
+package com.interview.order.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Connections for read-only transactions (see {@link ReplicaRoutingConfig}): round-robin over the replicas
+ * that passed the last health check, falling back to the primary when none is usable.
+ * <p>
+ * A user whose write transaction committed within {@code order.datasource.replica.read-your-writes-ms}
+ * reads from the primary, so a client never misses its own change because of replication lag. The window
+ * is tracked per instance; a read landing on another instance may still see the replica's state.
+ * <p>
+ * Reads whose result is shared with other users beyond the request (cache loads) run inside
+ * {@link #readFromPrimary}: a lagging replica would otherwise hand out, and the cache keep, a row that was
+ * already updated on the primary.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final int maxLagSeconds;
+    private final Cache<String, Boolean> recentWriters;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final Counter replicaReads;
+    private final Counter primaryFallbacks;
+    private final Counter readYourWrites;
+    private final Counter pinnedReads;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, int maxLagSeconds, long readYourWritesMs, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        List<Replica> list = new ArrayList<>(replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            list.add(new Replica(i, replicas.get(i)));
+        }
+        this.replicas = List.copyOf(list);
+        this.maxLagSeconds = maxLagSeconds;
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(Math.max(1, readYourWritesMs)))
+                .build();
+        this.replicaReads = routeCounter(meterRegistry, "replica");
+        this.primaryFallbacks = routeCounter(meterRegistry, "primary-fallback");
+        this.readYourWrites = routeCounter(meterRegistry, "primary-read-your-writes");
+        this.pinnedReads = routeCounter(meterRegistry, "primary-pinned");
+    }
+
+    /**
+     * Runs {@code work} with every read-only connection it opens taken from the primary. Does not open a
+     * read-your-writes window, the caller only reads. Without replica routing configured this has no effect.
+     */
+    public static <T> T readFromPrimary(Supplier<T> work) {
+        Boolean previous = PRIMARY_ONLY.get();
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) PRIMARY_ONLY.remove();
+        }
+    }
+
+    public static boolean isReadingFromPrimary() {
+        return PRIMARY_ONLY.get() != null;
+    }
+
+    private static Counter routeCounter(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("order.datasource.read.route").tag("target", target).register(meterRegistry);
+    }
+
+    /**
+     * The primary as seen by read-write transactions: acquiring a connection opens the caller's
+     * read-your-writes window once the transaction commits.
+     */
+    public DataSource writeDataSource() {
+        return new DelegatingDataSource(primary) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                markWriter();
+                return super.getConnection();
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                markWriter();
+                return super.getConnection(username, password);
+            }
+        };
+    }
+
+    private void markWriter() {
+        String user = currentUser();
+        if (user == null) return;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) recentWriters.put(user, Boolean.TRUE);
+                }
+            });
+        } else {
+            recentWriters.put(user, Boolean.TRUE);
+        }
+    }
+
+    private static String currentUser() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth == null ? null : auth.getName();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (isReadingFromPrimary()) {
+            pinnedReads.increment();
+            return primary.getConnection();
+        }
+        String user = currentUser();
+        if (user != null && recentWriters.getIfPresent(user) != null) {
+            readYourWrites.increment();
+            return primary.getConnection();
+        }
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (!replica.healthy) continue;
+            try {
+                Connection connection = replica.dataSource.getConnection();
+                replicaReads.increment();
+                return connection;
+            } catch (SQLException ex) {
+                // taken out until the next health check succeeds
+                replica.healthy = false;
+                logger.warn("ReplicaRoutingDataSource: replica {} unavailable, marked unhealthy: {}", replica.index, ex.getMessage());
+            }
+        }
+        primaryFallbacks.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        // explicit credentials are only used for administration, keep them on the primary
+        return primary.getConnection(username, password);
+    }
+
+    @Scheduled(fixedDelayString = "${order.datasource.replica.health-check-interval-ms:5000}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean healthy = probe(replica);
+            if (healthy != replica.healthy) {
+                logger.info("ReplicaRoutingDataSource: replica {} is now {}", replica.index, healthy ? "healthy" : "unhealthy");
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+    // reachable, and (when max-lag-seconds > 0) replicating with at most that much lag
+    private boolean probe(Replica replica) {
+        try (Connection connection = replica.dataSource.getConnection()) {
+            if (!connection.isValid(2)) return false;
+            if (maxLagSeconds <= 0) return true;
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("SHOW REPLICA STATUS")) {
+                if (!rs.next()) return false;
+                long lag = rs.getLong("Seconds_Behind_Source");
+                return !rs.wasNull() && lag <= maxLagSeconds;
+            }
+        } catch (SQLException ex) {
+            logger.debug("ReplicaRoutingDataSource: health check of replica {} failed: {}", replica.index, ex.getMessage());
+            return false;
+        }
+    }
+
+    boolean isHealthy(int index) {
+        return replicas.get(index).healthy;
+    }
+
+    private static final class Replica {
+        private final int index;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        private Replica(int index, DataSource dataSource) {
+            this.index = index;
+            this.dataSource = dataSource;
+        }
+    }
+}
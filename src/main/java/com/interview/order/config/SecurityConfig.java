@@ -33,8 +33,12 @@ public class SecurityConfig {
                         .requestMatchers("/v3/api-docs/**").permitAll()
                         .requestMatchers("/swagger-ui/**").permitAll()
                         .requestMatchers("/swagger-ui.html").permitAll()
+                        // metrics scrape and health probes
+                        .requestMatchers("/actuator/health/**", "/actuator/prometheus").permitAll()
                         // secure the orders endpoints (controller uses /orders)
                         .requestMatchers("/orders/**").authenticated()
+                        // dead-letter replay
+                        .requestMatchers("/notifications/**").authenticated()
                         .anyRequest().permitAll()
                 )
                 // when authentication is required but missing/invalid, return a clean JSON 401
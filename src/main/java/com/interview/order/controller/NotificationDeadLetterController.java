@@ -0,0 +1,52 @@
+package com.interview.order.controller;
+
+import com.interview.order.notification.NotificationDelivery;
+import com.interview.order.web.ApiRestResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+
+/**
+ * Replays notifications that ended in notification_dead_letter, e.g. after a gateway outage was fixed: they go
+ * back to notification_pending with fresh attempts and are sent like new events.
+ */
+@RestController
+@RequestMapping("/notifications/dead-letters")
+public class NotificationDeadLetterController {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDeadLetterController.class);
+
+    // dead letters moved per request
+    private static final int MAX_REPLAY = 1000;
+
+    private final NotificationDelivery delivery;
+
+    public NotificationDeadLetterController(NotificationDelivery delivery) {
+        this.delivery = delivery;
+    }
+
+    @PostMapping("/replay")
+    public ResponseEntity<ApiRestResponse<Map<String, Integer>>> replay(@RequestParam(value = "channel", required = false) String channel,
+                                                                       @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        if (limit < 1 || limit > MAX_REPLAY || (channel != null && channel.isBlank())) {
+            logger.warn("replay: rejected channel={} limit={} (max {})", channel, limit, MAX_REPLAY);
+            return ResponseEntity.badRequest().body(ApiRestResponse.error(ApiRestResponse.NOT_ALLOWED_CODE, ApiRestResponse.NOT_ALLOWED_MSG));
+        }
+        try {
+            int replayed = delivery.replayDeadLetters(channel, limit);
+            logger.info("replay: requeued {} dead letters of channel={}", replayed, channel);
+            return ResponseEntity.ok(ApiRestResponse.success(Map.of("replayed", replayed)));
+        } catch (Exception e) {
+            logger.error("replay: failed to replay dead letters of channel={}.", channel, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ApiRestResponse.error());
+        }
+    }
+}
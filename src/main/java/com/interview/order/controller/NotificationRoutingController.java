@@ -0,0 +1,49 @@
+package com.interview.order.controller;
+
+import com.interview.order.notification.NotificationDelivery;
+import com.interview.order.notification.NotificationRouting;
+import com.interview.order.web.ApiRestResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies changed notification.types / emails / phones without a restart: rebuilds the routing table and starts
+ * the delivery workers of channels that were added.
+ */
+@RestController
+@RequestMapping("/notifications/routing")
+public class NotificationRoutingController {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationRoutingController.class);
+
+    private final NotificationRouting routing;
+    private final NotificationDelivery delivery;
+
+    public NotificationRoutingController(NotificationRouting routing, NotificationDelivery delivery) {
+        this.routing = routing;
+        this.delivery = delivery;
+    }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<ApiRestResponse<Map<String, List<String>>>> refresh() {
+        try {
+            routing.rebuild();
+            delivery.start();
+            List<String> routes = routing.routes().stream().map(NotificationRouting.Route::name).toList();
+            logger.info("refresh: notification routes are now {}", routes);
+            return ResponseEntity.ok(ApiRestResponse.success(Map.of("routes", routes)));
+        } catch (Exception e) {
+            logger.error("refresh: failed to rebuild notification routing.", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ApiRestResponse.error());
+        }
+    }
+}
@@ -1,26 +1,45 @@
 package com.interview.order.controller;
 
 import com.interview.order.entity.Order;
+import com.interview.order.repository.OrderCursor;
+import com.interview.order.repository.OrderRow;
+import com.interview.order.repository.OrderSearchPage;
+import com.interview.order.repository.TotalMode;
+import com.interview.order.service.IdempotencyService;
 import com.interview.order.service.OrderService;
 import com.interview.order.web.ApiRestResponse;
+import com.interview.order.web.BulkStatusResult;
+import com.interview.order.web.BulkStatusView;
+import com.interview.order.web.BulkUpdateStatusRequest;
 import com.interview.order.web.CreateOrderRequest;
+import com.interview.order.web.OrderCursorPageView;
+import com.interview.order.web.OrderExportWriter;
+import com.interview.order.web.OrderPageView;
+import com.interview.order.web.OrderView;
 import com.interview.order.web.UpdateStatusRequest;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.ConstraintViolationException;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,15 +52,28 @@ public class OrderController {
     private static final Logger logger = LoggerFactory.getLogger(OrderController.class);
 
     private final OrderService orderService;
+    private final IdempotencyService idempotencyService;
+
+    // matches idempotency_key.idem_key
+    static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
+    // upper bound for POST /orders/batch (one transaction) and PATCH /orders/batch/status (one transaction per chunk)
+    static final int MAX_BATCH_SIZE = 1000;
 
     private final DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, IdempotencyService idempotencyService) {
         this.orderService = orderService;
+        this.idempotencyService = idempotencyService;
     }
 
     @PostMapping
-    public ResponseEntity<ApiRestResponse<Map<String, Long>>> createOrder(@Valid @RequestBody CreateOrderRequest req) {
+    public ResponseEntity<ApiRestResponse<Map<String, Long>>> createOrder(@Valid @RequestBody CreateOrderRequest req,
+                                                                          @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                                                          Principal principal) {
+        if (idempotencyKey != null) {
+            return createOrderIdempotent(req, idempotencyKey, principal == null ? "" : principal.getName());
+        }
         try {
             Order saved = orderService.createOrder(req);
             Map<String, Long> data = Map.of("id", saved.getId());
@@ -53,27 +85,66 @@ public class OrderController {
         }
     }
 
+    // retries with the same Idempotency-Key get the original order id instead of a duplicate order
+    private ResponseEntity<ApiRestResponse<Map<String, Long>>> createOrderIdempotent(CreateOrderRequest req, String key, String owner) {
+        if (key.isBlank() || key.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            logger.warn("createOrder: rejected Idempotency-Key of length={} for owner={}", key.length(), owner);
+            return ResponseEntity.badRequest().body(ApiRestResponse.error(ApiRestResponse.NOT_ALLOWED_CODE, ApiRestResponse.NOT_ALLOWED_MSG));
+        }
+        try {
+            IdempotencyService.Outcome outcome = idempotencyService.createOrder(owner, key, req);
+            switch (outcome.status()) {
+                case CREATED:
+                    logger.info("createOrder: created order id={} product={} customer={} key={}", outcome.orderId(), req.getProductName(), req.getCustomer(), key);
+                    return ResponseEntity.status(HttpStatus.CREATED).body(ApiRestResponse.success(Map.of("id", outcome.orderId())));
+                case REPLAYED:
+                    logger.info("createOrder: replayed order id={} for key={} owner={}", outcome.orderId(), key, owner);
+                    return ResponseEntity.status(HttpStatus.CREATED)
+                            .header("Idempotent-Replayed", "true")
+                            .body(ApiRestResponse.success(Map.of("id", outcome.orderId())));
+                default:
+                    logger.warn("createOrder: Idempotency-Key {} reused with a different request by owner={}", key, owner);
+                    return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(ApiRestResponse.error(ApiRestResponse.NOT_ALLOWED_CODE, ApiRestResponse.NOT_ALLOWED_MSG));
+            }
+        } catch (Exception e) {
+            logger.error("createOrder: failed to create order for product={} customer={} key={}.", req.getProductName(), req.getCustomer(), key, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ApiRestResponse.error());
+        }
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<ApiRestResponse<Map<String, List<Long>>>> createOrders(@RequestBody List<@Valid CreateOrderRequest> reqs) {
+        if (reqs == null || reqs.isEmpty() || reqs.size() > MAX_BATCH_SIZE) {
+            logger.warn("createOrders: rejected batch of size={} (max {})", reqs == null ? 0 : reqs.size(), MAX_BATCH_SIZE);
+            return ResponseEntity.badRequest().body(ApiRestResponse.error(ApiRestResponse.NOT_ALLOWED_CODE, ApiRestResponse.NOT_ALLOWED_MSG));
+        }
+        try {
+            List<Order> saved = orderService.createOrders(reqs);
+            List<Long> ids = new ArrayList<>(saved.size());
+            for (Order order : saved) {
+                ids.add(order.getId());
+            }
+            logger.info("createOrders: created {} orders", ids.size());
+            return ResponseEntity.status(HttpStatus.CREATED).body(ApiRestResponse.success(Map.of("ids", ids)));
+        } catch (Exception e) {
+            logger.error("createOrders: failed to create batch of {} orders.", reqs.size(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ApiRestResponse.error());
+        }
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<ApiRestResponse<Map<String, Object>>> retrieveOrder(@PathVariable("id") Long id) {
+    public ResponseEntity<ApiRestResponse<OrderView>> retrieveOrder(@PathVariable("id") Long id) {
         try {
-            Optional<Order> o = orderService.getOrder(id);
+            Optional<OrderRow> o = orderService.getOrder(id);
             if (o.isEmpty()) {
                 logger.warn("retrieveOrder: order not found id={}", id);
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiRestResponse.error(ApiRestResponse.NOT_FOUND_CODE, ApiRestResponse.NOT_FOUND_MSG));
             }
 
-            Order order = o.get();
-            Map<String, Object> data = Map.of(
-                    "productName", order.getProductName(),
-                    "totalAmount", order.getTotalAmount(),
-                    "status", order.getStatus() == null ? null : order.getStatus().getCode(),
-                    "customer", order.getCustomer(),
-                    "currency", order.getCurrency(),
-                    "createtime", order.getCreateTime() == null ? null : order.getCreateTime().format(dtf),
-                    "updatetime", order.getUpdateTime() == null ? null : order.getUpdateTime().format(dtf)
-            );
-
-            logger.info("retrieveOrder: returned order id={} product={} customer={}", id, order.getProductName(), order.getCustomer());
+            OrderRow order = o.get();
+            OrderView data = OrderView.of(order);
+
+            logger.info("retrieveOrder: returned order id={} product={} customer={}", id, order.productName(), order.customer());
             return ResponseEntity.ok(ApiRestResponse.success(data));
         } catch (Exception e) {
             logger.error("retrieveOrder: unexpected error when retrieving order id={}.", id, e);
@@ -98,6 +169,30 @@ public class OrderController {
         return updateOrderStatusInternal(id, statusCode);
     }
 
+    // bulk transition: one result per distinct id (SUCCESS / NOT_FOUND / NOT_ALLOWED, FAILED for ids left unchanged
+    // by a chunk that failed to commit), always 200 when processed
+    @PatchMapping(path = "/batch/status")
+    public ResponseEntity<ApiRestResponse<BulkStatusView>> updateOrderStatuses(@Valid @RequestBody BulkUpdateStatusRequest req) {
+        if (req.getIds().size() > MAX_BATCH_SIZE) {
+            logger.warn("updateOrderStatuses: rejected batch of size={} (max {})", req.getIds().size(), MAX_BATCH_SIZE);
+            return ResponseEntity.badRequest().body(ApiRestResponse.error(ApiRestResponse.NOT_ALLOWED_CODE, ApiRestResponse.NOT_ALLOWED_MSG));
+        }
+        try {
+            Map<Long, OrderService.UpdateResult> res = orderService.updateOrderStatuses(req.getIds(), req.getStatus());
+            List<BulkStatusResult> results = new ArrayList<>(res.size());
+            int succeeded = 0;
+            for (Map.Entry<Long, OrderService.UpdateResult> e : res.entrySet()) {
+                results.add(new BulkStatusResult(e.getKey(), e.getValue().name()));
+                if (e.getValue() == OrderService.UpdateResult.SUCCESS) succeeded++;
+            }
+            logger.info("updateOrderStatuses: updated {} of {} orders to status={}", succeeded, res.size(), req.getStatus());
+            return ResponseEntity.ok(ApiRestResponse.success(new BulkStatusView(results)));
+        } catch (Exception e) {
+            logger.error("updateOrderStatuses: unexpected error updating {} orders to status={}.", req.getIds().size(), req.getStatus(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ApiRestResponse.error());
+        }
+    }
+
     private ResponseEntity<ApiRestResponse<Object>> updateOrderStatusInternal(Long id, Integer statusCode) {
         try {
             OrderService.UpdateResult res = orderService.updateOrderStatus(id, statusCode);
@@ -122,7 +217,7 @@ public class OrderController {
     }
 
     @GetMapping
-    public ResponseEntity<ApiRestResponse<Map<String, Object>>> searchOrders(
+    public ResponseEntity<ApiRestResponse<Object>> searchOrders(
             @RequestParam(value = "productName", required = false) String productName,
             // prefer 'customer' to be required by business, keep as required here
             @RequestParam(value = "customer", required = true) String customer,
@@ -133,7 +228,11 @@ public class OrderController {
             @RequestParam(value = "page", required = false) Integer page,
             @RequestParam(value = "size", required = false) Integer size,
             @RequestParam(value = "start", required = false) Integer start,
-            @RequestParam(value = "count", required = false) Integer count
+            @RequestParam(value = "count", required = false) Integer count,
+            // keyset paging: when present (empty = first page) page/start are ignored and nextCursor is returned
+            @RequestParam(value = "cursor", required = false) String cursor,
+            // total computation: exact (default) | window | approximate | capped | none
+            @RequestParam(value = "total", required = false) String totalModeStr
     ) {
         try {
             int resolvedPage = 0;
@@ -158,26 +257,45 @@ public class OrderController {
             if (startTimeStr != null && !startTimeStr.isBlank()) startTime = LocalDateTime.parse(startTimeStr, dtf);
             if (endTimeStr != null && !endTimeStr.isBlank()) endTime = LocalDateTime.parse(endTimeStr, dtf);
 
+            if (cursor != null) {
+                OrderCursor after;
+                try {
+                    after = cursor.isBlank() ? null : OrderCursor.decode(cursor);
+                } catch (IllegalArgumentException ex) {
+                    logger.warn("searchOrders: invalid cursor={} for customer={}", cursor, customer);
+                    return ResponseEntity.badRequest().body(ApiRestResponse.error());
+                }
+                Slice<OrderRow> slice = orderService.searchAfter(productName, customer, statusCode, startTime, endTime, after, resolvedSize);
+                List<OrderRow> rows = slice.getContent();
+                List<OrderView> orders = OrderView.of(rows);
+                String nextCursor = slice.hasNext() ? OrderCursor.of(rows.get(rows.size() - 1)).encode() : null;
+                OrderCursorPageView data = new OrderCursorPageView(orders, resolvedSize, nextCursor);
+
+                logger.info("searchOrders: returned {} orders (cursor mode) for productName={} customer={} status={}", orders.size(), productName, customer, statusCode);
+                return ResponseEntity.ok(ApiRestResponse.success(data));
+            }
+
             int offset = resolvedPage * resolvedSize;
-            Page<Order> pageResult = orderService.search(productName, customer, statusCode, startTime, endTime, offset, resolvedSize);
-
-            List<Map<String, Object>> orders = pageResult.getContent().stream().map(order -> {
-                Map<String, Object> m = new LinkedHashMap<>();
-                m.put("productName", order.getProductName());
-                m.put("totalAmount", order.getTotalAmount());
-                m.put("customer", order.getCustomer());
-                m.put("currency", order.getCurrency());
-                m.put("status", order.getStatus() == null ? null : order.getStatus().getCode());
-                m.put("createtime", order.getCreateTime() == null ? null : order.getCreateTime().format(dtf));
-                m.put("updatetime", order.getUpdateTime() == null ? null : order.getUpdateTime().format(dtf));
-                return m;
-            }).collect(Collectors.toList());
-
-            Map<String, Object> data = new LinkedHashMap<>();
-            data.put("orders", orders);
-            data.put("total", pageResult.getTotalElements());
-            data.put("page", resolvedPage);
-            data.put("size", resolvedSize);
+            if (totalModeStr != null && !totalModeStr.isBlank()) {
+                TotalMode totalMode;
+                try {
+                    totalMode = TotalMode.parse(totalModeStr);
+                } catch (IllegalArgumentException ex) {
+                    logger.warn("searchOrders: invalid total mode={} for customer={}", totalModeStr, customer);
+                    return ResponseEntity.badRequest().body(ApiRestResponse.error());
+                }
+                OrderSearchPage result = orderService.search(productName, customer, statusCode, startTime, endTime, offset, resolvedSize, totalMode);
+                List<OrderView> orders = OrderView.of(result.content());
+                OrderPageView data = new OrderPageView(orders, result.total(), result.totalKind().name(), result.hasNext(), resolvedPage, resolvedSize);
+
+                logger.info("searchOrders: returned {} orders (total={} {}) for productName={} customer={} status={}", orders.size(), result.total(), result.totalKind(), productName, customer, statusCode);
+                return ResponseEntity.ok(ApiRestResponse.success(data));
+            }
+
+            Page<OrderRow> pageResult = orderService.search(productName, customer, statusCode, startTime, endTime, offset, resolvedSize);
+
+            List<OrderView> orders = OrderView.of(pageResult.getContent());
+            OrderPageView data = new OrderPageView(orders, pageResult.getTotalElements(), OrderSearchPage.TotalKind.EXACT.name(), null, resolvedPage, resolvedSize);
 
             logger.info("searchOrders: returned {} orders for productName={} customer={} status={}", orders.size(), productName, customer, statusCode);
             return ResponseEntity.ok(ApiRestResponse.success(data));
@@ -187,6 +305,56 @@ public class OrderController {
         }
     }
 
+    // Streams every matching order (same filters as GET /orders) as NDJSON or CSV from a forward-only cursor.
+    // The response is 200 once streaming starts; a failure after that ends the body with an error line
+    // (see OrderExportWriter) instead of silently truncating it.
+    @GetMapping("/export")
+    public void exportOrders(
+            @RequestParam(value = "productName", required = false) String productName,
+            @RequestParam(value = "customer", required = true) String customer,
+            @RequestParam(value = "status", required = false) Integer statusCode,
+            @RequestParam(value = "starttime", required = false) String startTimeStr,
+            @RequestParam(value = "endtime", required = false) String endTimeStr,
+            @RequestParam(value = "format", defaultValue = "ndjson") String formatStr,
+            HttpServletResponse response
+    ) throws IOException {
+        OrderExportWriter.Format format;
+        LocalDateTime startTime = null;
+        LocalDateTime endTime = null;
+        try {
+            format = OrderExportWriter.Format.parse(formatStr);
+            if (startTimeStr != null && !startTimeStr.isBlank()) startTime = LocalDateTime.parse(startTimeStr, dtf);
+            if (endTimeStr != null && !endTimeStr.isBlank()) endTime = LocalDateTime.parse(endTimeStr, dtf);
+        } catch (RuntimeException ex) {
+            logger.warn("exportOrders: invalid parameters format={} starttime={} endtime={}: {}", formatStr, startTimeStr, endTimeStr, ex.getMessage());
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.setContentType("application/json;charset=UTF-8");
+            response.getWriter().write("{\"code\":" + ApiRestResponse.ERROR_CODE + ",\"msg\":\"" + ApiRestResponse.ERROR_MSG + "\"}");
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(format.getContentType() + ";charset=UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=\"orders-" + customer.replaceAll("[^A-Za-z0-9_-]", "_") + "." + format.getExtension() + "\"");
+
+        Writer out = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8), 16 * 1024);
+        OrderExportWriter writer = new OrderExportWriter(out, format);
+        try {
+            writer.writeHeader();
+            long rows = orderService.exportOrders(productName, customer, statusCode, startTime, endTime, writer::write);
+            out.flush();
+            logger.info("exportOrders: exported {} orders as {} for productName={} customer={} status={}", rows, format, productName, customer, statusCode);
+        } catch (Exception e) {
+            // headers are already committed: the error line at the end of the body tells the client the export is incomplete
+            logger.error("exportOrders: export aborted for productName={} customer={} status={}.", productName, customer, statusCode, e);
+            try {
+                writer.writeError(ApiRestResponse.ERROR_CODE, ApiRestResponse.ERROR_MSG);
+            } catch (IOException ex) {
+                logger.warn("exportOrders: could not write the error line, client is gone: {}", ex.getMessage());
+            }
+        }
+    }
+
     @ExceptionHandler(ConstraintViolationException.class)
     public ResponseEntity<ApiRestResponse<Object>> handleValidationException(ConstraintViolationException ex) {
         logger.warn("handleValidationException: validation failure - {}", ex.getMessage());
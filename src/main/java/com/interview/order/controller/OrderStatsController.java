@@ -0,0 +1,46 @@
+package com.interview.order.controller;
+
+import com.interview.order.service.CustomerOrderStatsService;
+import com.interview.order.web.ApiRestResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Order summaries from the incrementally maintained per-customer aggregates; unlike the total of
+ * GET /orders this never counts order rows.
+ */
+@RestController
+@RequestMapping("/orders")
+public class OrderStatsController {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderStatsController.class);
+
+    private final CustomerOrderStatsService statsService;
+
+    public OrderStatsController(CustomerOrderStatsService statsService) {
+        this.statsService = statsService;
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<ApiRestResponse<CustomerOrderStatsService.Summary>> customerStats(@RequestParam(value = "customer", required = true) String customer) {
+        if (customer.isBlank()) {
+            logger.warn("customerStats: blank customer");
+            return ResponseEntity.badRequest().body(ApiRestResponse.error(ApiRestResponse.NOT_ALLOWED_CODE, ApiRestResponse.NOT_ALLOWED_MSG));
+        }
+        try {
+            CustomerOrderStatsService.Summary summary = statsService.summary(customer);
+            logger.info("customerStats: customer={} total={}", customer, summary.total());
+            return ResponseEntity.ok(ApiRestResponse.success(summary));
+        } catch (Exception e) {
+            logger.error("customerStats: unexpected error for customer={}.", customer, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ApiRestResponse.error());
+        }
+    }
+}
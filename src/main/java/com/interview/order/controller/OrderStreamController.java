@@ -0,0 +1,101 @@
+package com.interview.order.controller;
+
+import com.interview.order.service.OrderChangeStream;
+import com.interview.order.web.ApiRestResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Server-sent events of committed order changes: event name is the change type, event id its sequence
+ * number. A reconnecting client sends Last-Event-ID (or ?since=) and receives the changes it missed, or a
+ * "reset" event when they are no longer retained or the id was issued before a restart or by another instance.
+ */
+@RestController
+@RequestMapping("/orders")
+@ConditionalOnProperty(name = "order.stream.enabled", havingValue = "true", matchIfMissing = true)
+public class OrderStreamController {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderStreamController.class);
+
+    private final OrderChangeStream changeStream;
+    private final long timeoutMs;
+
+    public OrderStreamController(OrderChangeStream changeStream,
+                                 @Value("${order.stream.timeout-ms:1800000}") long timeoutMs) {
+        this.changeStream = changeStream;
+        this.timeoutMs = timeoutMs;
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> stream(@RequestParam(value = "customer", required = false) String customer,
+                                    @RequestParam(value = "since", required = false) Long since,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        Long after = since;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            try {
+                after = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                logger.warn("stream: invalid Last-Event-ID={}", lastEventId);
+                return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+                        .body(ApiRestResponse.error(ApiRestResponse.NOT_ALLOWED_CODE, ApiRestResponse.NOT_ALLOWED_MSG));
+            }
+        }
+        String filter = customer == null || customer.isBlank() ? null : customer;
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        OrderChangeStream.Subscription subscription = changeStream.subscribe(filter, after, new EmitterSink(emitter));
+        if (subscription == null) {
+            logger.warn("stream: subscriber limit reached, rejecting customer={}", filter);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).contentType(MediaType.APPLICATION_JSON).body(ApiRestResponse.error());
+        }
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(e -> subscription.cancel());
+        logger.info("stream: subscribed customer={} after={}", filter, after);
+        return ResponseEntity.ok(emitter);
+    }
+
+    private record EmitterSink(SseEmitter emitter) implements OrderChangeStream.Sink {
+
+        @Override
+        public void send(OrderChangeStream.OrderChange change) throws IOException {
+            emitter.send(SseEmitter.event().id(Long.toString(change.seq())).name(change.type()).data(change, MediaType.APPLICATION_JSON));
+        }
+
+        @Override
+        public void gap(long missed) throws IOException {
+            emitter.send(SseEmitter.event().name("gap").data(Map.of("missed", missed), MediaType.APPLICATION_JSON));
+        }
+
+        @Override
+        public void reset(long oldestSeq) throws IOException {
+            emitter.send(SseEmitter.event().name("reset").data(Map.of("oldestSeq", oldestSeq), MediaType.APPLICATION_JSON));
+        }
+
+        @Override
+        public void heartbeat() throws IOException {
+            // comment line: keeps proxies from closing an idle connection, ignored by EventSource
+            emitter.send(SseEmitter.event().comment("heartbeat"));
+        }
+
+        @Override
+        public void close() {
+            emitter.complete();
+        }
+    }
+}
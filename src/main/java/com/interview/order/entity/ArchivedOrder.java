@@ -0,0 +1,88 @@
+package com.interview.order.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A terminal order moved out of the hot orders table by the archiver. Mapped with the same attribute names
+ * as {@link Order} so the search JPQL runs unchanged against either entity. Rows are only written by the
+ * archiver's INSERT ... SELECT and never change afterwards.
+ */
+@Entity
+@Immutable
+@Table(name = "orders_archive", indexes = {
+        @Index(name = "idx_customer_create_time_id", columnList = "customer, create_time, id"),
+        @Index(name = "idx_customer_status_create_time", columnList = "customer, status, create_time, id"),
+        @Index(name = "idx_create_time", columnList = "create_time")
+})
+public class ArchivedOrder {
+
+    @Id
+    private Long id;
+
+    @Column(name = "product_name")
+    private String productName;
+
+    @Column(name = "customer")
+    private String customer;
+
+    @Column(name = "total_amount")
+    private BigDecimal totalAmount;
+
+    @Column(name = "currency")
+    private String currency;
+
+    @Column(name = "status")
+    private OrderStatus status;
+
+    @Column(name = "create_time", nullable = false)
+    private LocalDateTime createTime;
+
+    @Column(name = "update_time")
+    private LocalDateTime updateTime;
+
+    @Column(name = "archive_time", nullable = false)
+    private LocalDateTime archiveTime;
+
+    public ArchivedOrder() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public String getCustomer() {
+        return customer;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getCreateTime() {
+        return createTime;
+    }
+
+    public LocalDateTime getUpdateTime() {
+        return updateTime;
+    }
+
+    public LocalDateTime getArchiveTime() {
+        return archiveTime;
+    }
+}
@@ -0,0 +1,85 @@
+package com.interview.order.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Count and amount of one customer's orders in one status and currency. Written only through the set-based
+ * statements in {@link com.interview.order.repository.CustomerOrderStatRepository}.
+ */
+@Entity
+@Table(name = "customer_order_stats")
+@IdClass(CustomerOrderStat.Key.class)
+public class CustomerOrderStat {
+
+    @Id
+    @Column(name = "customer", nullable = false)
+    private String customer;
+
+    @Id
+    @Column(name = "status", nullable = false)
+    private OrderStatus status;
+
+    @Id
+    @Column(name = "currency", nullable = false, length = 10)
+    private String currency;
+
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    @Column(name = "total_amount", nullable = false, precision = 20, scale = 2)
+    private BigDecimal totalAmount;
+
+    public CustomerOrderStat() {
+    }
+
+    public String getCustomer() {
+        return customer;
+    }
+
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public static class Key implements Serializable {
+        private String customer;
+        private OrderStatus status;
+        private String currency;
+
+        public Key() {
+        }
+
+        public Key(String customer, OrderStatus status, String currency) {
+            this.customer = customer;
+            this.status = status;
+            this.currency = currency;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key k)) return false;
+            return Objects.equals(customer, k.customer) && status == k.status && Objects.equals(currency, k.currency);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(customer, status, currency);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.interview.order.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Order created for an (owner, Idempotency-Key) pair. Rows are inserted in the same transaction as the
+ * order, so a key is never stored without its order and vice versa.
+ */
+@Entity
+@Table(name = "idempotency_key", indexes = @Index(name = "idx_expire_time", columnList = "expire_time"))
+@IdClass(IdempotencyKey.Key.class)
+public class IdempotencyKey {
+
+    @Id
+    @Column(name = "owner", nullable = false, length = 64)
+    private String owner;
+
+    @Id
+    @Column(name = "idem_key", nullable = false)
+    private String key;
+
+    @Column(name = "request_hash", nullable = false, length = 44)
+    private String requestHash;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "create_time", nullable = false)
+    private LocalDateTime createTime;
+
+    @Column(name = "expire_time", nullable = false)
+    private LocalDateTime expireTime;
+
+    public IdempotencyKey() {
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getRequestHash() {
+        return requestHash;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public LocalDateTime getCreateTime() {
+        return createTime;
+    }
+
+    public LocalDateTime getExpireTime() {
+        return expireTime;
+    }
+
+    public static class Key implements Serializable {
+        private String owner;
+        private String key;
+
+        public Key() {
+        }
+
+        public Key(String owner, String key) {
+            this.owner = owner;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key k)) return false;
+            return Objects.equals(owner, k.owner) && Objects.equals(key, k.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(owner, key);
+        }
+    }
+}
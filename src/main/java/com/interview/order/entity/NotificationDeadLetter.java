@@ -0,0 +1,92 @@
+package com.interview.order.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Notification event a channel could not deliver to one recipient, see ChannelDelivery. Replaying it moves it
+ * back to notification_pending.
+ */
+@Entity
+@Table(name = "notification_dead_letter", indexes = @Index(name = "idx_create_time", columnList = "create_time"))
+public class NotificationDeadLetter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "channel", nullable = false, length = 16)
+    private String channel;
+
+    @Column(name = "recipient", nullable = false)
+    private String recipient;
+
+    @Column(name = "event_type", nullable = false, length = 32)
+    private String eventType;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "product_name")
+    private String productName;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", length = 512)
+    private String lastError;
+
+    @Column(name = "create_time", nullable = false)
+    private LocalDateTime createTime;
+
+    public NotificationDeadLetter() {
+    }
+
+    public NotificationDeadLetter(String channel, String recipient, String eventType, Long orderId, String productName,
+                                  int attempts, String lastError, LocalDateTime createTime) {
+        this.channel = channel;
+        this.recipient = recipient;
+        this.eventType = eventType;
+        this.orderId = orderId;
+        this.productName = productName;
+        this.attempts = attempts;
+        this.lastError = lastError;
+        this.createTime = createTime;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public LocalDateTime getCreateTime() {
+        return createTime;
+    }
+}
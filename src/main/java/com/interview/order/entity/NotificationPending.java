@@ -0,0 +1,107 @@
+package com.interview.order.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Order event waiting to be sent to one recipient of one channel, see NotificationBatcher and ChannelDelivery.
+ * Deleted once the message covering it was sent, pushed back after a failed attempt.
+ */
+@Entity
+@Table(name = "notification_pending", indexes = {
+        @Index(name = "idx_next_attempt_time", columnList = "next_attempt_time"),
+        @Index(name = "idx_channel_recipient", columnList = "channel, recipient, next_attempt_time, id"),
+        @Index(name = "idx_channel_next_attempt_time", columnList = "channel, next_attempt_time, id")
+})
+public class NotificationPending {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "channel", nullable = false, length = 16)
+    private String channel;
+
+    @Column(name = "recipient", nullable = false)
+    private String recipient;
+
+    @Column(name = "event_type", nullable = false, length = 32)
+    private String eventType;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    // snapshot, so sending never has to load the order again
+    @Column(name = "product_name")
+    private String productName;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "create_time", nullable = false)
+    private LocalDateTime createTime;
+
+    @Column(name = "next_attempt_time", nullable = false)
+    private LocalDateTime nextAttemptTime;
+
+    public NotificationPending() {
+    }
+
+    public NotificationPending(String channel, String recipient, String eventType, Long orderId, String productName, LocalDateTime createTime) {
+        this.channel = channel;
+        this.recipient = recipient;
+        this.eventType = eventType;
+        this.orderId = orderId;
+        this.productName = productName;
+        this.createTime = createTime;
+        this.nextAttemptTime = createTime;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getCreateTime() {
+        return createTime;
+    }
+
+    public LocalDateTime getNextAttemptTime() {
+        return nextAttemptTime;
+    }
+
+    public void setNextAttemptTime(LocalDateTime nextAttemptTime) {
+        this.nextAttemptTime = nextAttemptTime;
+    }
+}
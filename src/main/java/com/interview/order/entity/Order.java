@@ -5,14 +5,21 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "orders") // map to the existing orders table in data.sql
+// orders table from db/migration; the search indexes are listed so generated schemas (benchmarks) match
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_customer_create_time_id", columnList = "customer, create_time, id"),
+        @Index(name = "idx_customer_status_create_time", columnList = "customer, status, create_time, id")
+})
 public class Order {
 
+    // pooled sequence (a table on MySQL) instead of IDENTITY: ids are known before flush, so Hibernate can batch inserts
+    // the pooled optimizer hands out next_val - 49 .. next_val, so orders_seq.next_val must be >= MAX(id) + 50 (see V3__orders_seq.sql)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
-    // product_name column in data.sql
+    // product_name column in the orders table
     @Column(name = "product_name", nullable = false)
     private String productName;
 
@@ -20,7 +27,7 @@ public class Order {
     @Column(name = "customer", nullable = false)
     private String customer;
 
-    // total_amount column in data.sql
+    // total_amount column in the orders table
     @Column(name = "total_amount", nullable = false)
     private BigDecimal totalAmount;
 
@@ -31,7 +38,8 @@ public class Order {
     @Column(name = "status")
     private OrderStatus status;
 
-    @Column(name = "create_time")
+    // NOT NULL since V13: cursor paging needs a create_time on every row
+    @Column(name = "create_time", nullable = false)
     private LocalDateTime createTime;
 
     @Column(name = "update_time")
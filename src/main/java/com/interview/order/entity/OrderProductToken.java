@@ -0,0 +1,76 @@
+package com.interview.order.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * One lowercase, accent-folded trigram of an order's product name. Rows are keyed (customer, token, order_id) so a
+ * product search for one customer is an index range scan instead of a LIKE '%...%' over all their orders.
+ */
+@Entity
+@Table(name = "order_product_token", indexes = @Index(name = "idx_token_order_id", columnList = "order_id"))
+@IdClass(OrderProductToken.Key.class)
+public class OrderProductToken {
+
+    @Id
+    @Column(name = "customer", nullable = false)
+    private String customer;
+
+    @Id
+    @Column(name = "token", nullable = false, length = 8)
+    private String token;
+
+    @Id
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    public OrderProductToken() {
+    }
+
+    public OrderProductToken(String customer, String token, Long orderId) {
+        this.customer = customer;
+        this.token = token;
+        this.orderId = orderId;
+    }
+
+    public String getCustomer() {
+        return customer;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public static class Key implements Serializable {
+        private String customer;
+        private String token;
+        private Long orderId;
+
+        public Key() {
+        }
+
+        public Key(String customer, String token, Long orderId) {
+            this.customer = customer;
+            this.token = token;
+            this.orderId = orderId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key k)) return false;
+            return Objects.equals(customer, k.customer) && Objects.equals(token, k.token) && Objects.equals(orderId, k.orderId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(customer, token, orderId);
+        }
+    }
+}
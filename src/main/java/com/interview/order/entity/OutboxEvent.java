@@ -0,0 +1,119 @@
+package com.interview.order.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Pending notification for an order event, written in the same transaction as the order change
+ * and deleted by the relay once every channel accepted it.
+ */
+@Entity
+@Table(name = "notification_outbox", indexes = @Index(name = "idx_next_attempt_time", columnList = "next_attempt_time, id"))
+public class OutboxEvent {
+
+    // pooled sequence so outbox rows of a batch create are inserted in one JDBC batch as well
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_outbox_seq")
+    @SequenceGenerator(name = "notification_outbox_seq", sequenceName = "notification_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    // ORDER_CREATED / ORDER_STATUS_CHANGED
+    @Column(name = "event_type", nullable = false, length = 32)
+    private String eventType;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    // status codes, only set for status changes
+    @Column(name = "old_status")
+    private Integer oldStatus;
+
+    @Column(name = "new_status")
+    private Integer newStatus;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "create_time", nullable = false)
+    private LocalDateTime createTime;
+
+    // relay picks rows whose next_attempt_time has passed; pushed back after each failure
+    @Column(name = "next_attempt_time", nullable = false)
+    private LocalDateTime nextAttemptTime;
+
+    public OutboxEvent() {
+    }
+
+    public OutboxEvent(String eventType, Long orderId, Integer oldStatus, Integer newStatus, LocalDateTime createTime) {
+        this.eventType = eventType;
+        this.orderId = orderId;
+        this.oldStatus = oldStatus;
+        this.newStatus = newStatus;
+        this.createTime = createTime;
+        this.nextAttemptTime = createTime;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public Integer getOldStatus() {
+        return oldStatus;
+    }
+
+    public void setOldStatus(Integer oldStatus) {
+        this.oldStatus = oldStatus;
+    }
+
+    public Integer getNewStatus() {
+        return newStatus;
+    }
+
+    public void setNewStatus(Integer newStatus) {
+        this.newStatus = newStatus;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getCreateTime() {
+        return createTime;
+    }
+
+    public void setCreateTime(LocalDateTime createTime) {
+        this.createTime = createTime;
+    }
+
+    public LocalDateTime getNextAttemptTime() {
+        return nextAttemptTime;
+    }
+
+    public void setNextAttemptTime(LocalDateTime nextAttemptTime) {
+        this.nextAttemptTime = nextAttemptTime;
+    }
+}
@@ -0,0 +1,275 @@
+package com.interview.order.notification;
+
+import com.interview.order.entity.NotificationDeadLetter;
+import com.interview.order.entity.NotificationPending;
+import com.interview.order.repository.NotificationDeadLetterRepository;
+import com.interview.order.repository.NotificationPendingRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends of one channel. Every gateway call passes the channel's circuit breaker and token bucket
+ * (rate-per-second matching the gateway quota), whether it comes from the workers or from
+ * {@link NotificationBatcher}.
+ * <p>
+ * Nothing is queued in memory: the outbox relay only inserts notification_pending rows, and the workers started
+ * by {@link #start()} claim the channel's due rows with FOR UPDATE SKIP LOCKED and send them one by one, so a
+ * slow gateway never holds the relay. A sent row is deleted; a failed one is retried after an exponential backoff
+ * with jitter and moved to notification_dead_letter once it ran out of attempts. While the breaker is open rows are
+ * left exactly as they are (no attempt is counted, nothing is dead-lettered) and go out once the channel recovers.
+ * Rows only change in the worker's transaction, so a crash or shutdown loses nothing.
+ */
+public class ChannelDelivery implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChannelDelivery.class);
+
+    public record Settings(int workers, int batchSize, long pollIntervalMs, int maxAttempts, long backoffMs, long maxBackoffMs,
+                           double ratePerSecond, int burst, int failureThreshold, long openMs, long drainTimeoutMs) {
+    }
+
+    /**
+     * Thrown instead of calling the gateway while the breaker is open; the caller keeps its events as they are.
+     */
+    public static class CircuitOpenException extends RuntimeException {
+        CircuitOpenException(String channel) {
+            super(channel + " circuit is open");
+        }
+    }
+
+    private final String name;
+    private final Notification channel;
+    private final Settings settings;
+    private final NotificationPendingRepository pendingRepository;
+    private final NotificationDeadLetterRepository deadLetterRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final CircuitBreaker breaker;
+    private final TokenBucket rateLimit;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean closed;
+
+    private final Timer sendTimer;
+    private final Counter failures;
+    private final Counter retries;
+    private final Counter shed;
+    private final Counter deadLetters;
+    private final Timer throttled;
+
+    public ChannelDelivery(String name, Notification channel, Settings settings,
+                           NotificationPendingRepository pendingRepository,
+                           NotificationDeadLetterRepository deadLetterRepository,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry) {
+        this.name = name;
+        this.channel = channel;
+        this.settings = settings;
+        this.pendingRepository = pendingRepository;
+        this.deadLetterRepository = deadLetterRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.breaker = new CircuitBreaker(settings.failureThreshold(), settings.openMs(), System::nanoTime);
+        this.rateLimit = settings.ratePerSecond() > 0 ? new TokenBucket(settings.ratePerSecond(), settings.burst(), System::nanoTime) : null;
+
+        // same meters as the direct path in NotificationDispatcher
+        this.sendTimer = Timer.builder("notification.send").tag("channel", name).publishPercentileHistogram().register(meterRegistry);
+        this.failures = Counter.builder("notification.send.failures").tag("channel", name).register(meterRegistry);
+        this.retries = Counter.builder("notification.delivery.retries").tag("channel", name).register(meterRegistry);
+        this.shed = Counter.builder("notification.delivery.shed")
+                .description("Sends not attempted because the circuit breaker was open; their events stay pending")
+                .tag("channel", name)
+                .register(meterRegistry);
+        this.deadLetters = Counter.builder("notification.delivery.dead_letters").tag("channel", name).register(meterRegistry);
+        this.throttled = Timer.builder("notification.delivery.throttled")
+                .description("Time a send waited for the channel's rate limit")
+                .tag("channel", name)
+                .register(meterRegistry);
+        Gauge.builder("notification.delivery.circuit.open", breaker, b -> b.state() == CircuitBreaker.State.CLOSED ? 0 : 1)
+                .tag("channel", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts the workers that send the channel's pending rows one by one; only used while digests are disabled,
+     * otherwise {@link NotificationBatcher} owns notification_pending.
+     */
+    public synchronized void start() {
+        if (closed || !workers.isEmpty()) return;
+        for (int i = 0; i < Math.max(1, settings.workers()); i++) {
+            workers.add(Thread.ofVirtual().name("notify-" + name + "-" + i).start(this::work));
+        }
+    }
+
+    private void work() {
+        while (!closed) {
+            int handled;
+            try {
+                Integer n = transactionTemplate.execute(status -> drainBatch());
+                handled = n == null ? 0 : n;
+            } catch (RuntimeException ex) {
+                if (closed) return;
+                logger.error("ChannelDelivery: {} batch failed: {}", name, ex.getMessage(), ex);
+                handled = 0;
+            }
+            // a full batch means more may be due; anything else (idle, open breaker, error) waits for the next poll
+            if (handled < settings.batchSize()) {
+                try {
+                    Thread.sleep(settings.pollIntervalMs());
+                } catch (InterruptedException ex) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // one transaction per batch; claimed rows stay locked (SKIP LOCKED for the other workers) until deleted or rescheduled
+    int drainBatch() {
+        List<NotificationPending> due = pendingRepository.lockDueForChannel(name, LocalDateTime.now(), PageRequest.of(0, Math.max(1, settings.batchSize())));
+        List<NotificationPending> sent = new ArrayList<>(due.size());
+        int handled = 0;
+        for (NotificationPending row : due) {
+            try {
+                send(row.getRecipient(), List.of(new NotificationItem(row.getOrderId(), row.getProductName(), row.getEventType())));
+                sent.add(row);
+            } catch (CircuitOpenException ex) {
+                break; // the rest of the batch stays untouched
+            } catch (RuntimeException ex) {
+                if (Thread.currentThread().isInterrupted()) break; // shutting down, not the gateway's fault
+                settle(List.of(row), ex.getMessage());
+            }
+            handled++;
+        }
+        pendingRepository.deleteAllInBatch(sent);
+        return handled;
+    }
+
+    /**
+     * Sends one message (a single event or a digest) on the calling thread, through the rate limit and the
+     * breaker. Throws {@link CircuitOpenException} without calling the gateway while the breaker is open, or
+     * the gateway's own failure.
+     */
+    public void send(String recipient, List<NotificationItem> items) {
+        // before the breaker, so an interrupted wait never leaves a half-open trial taken
+        if (rateLimit != null) {
+            long waitNanos = rateLimit.reserve();
+            if (waitNanos > 0) {
+                throttled.record(waitNanos, TimeUnit.NANOSECONDS);
+                try {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("interrupted while waiting for the " + name + " rate limit", ex);
+                }
+            }
+        }
+        if (!breaker.tryAcquire()) {
+            shed.increment();
+            throw new CircuitOpenException(name);
+        }
+        long start = System.nanoTime();
+        try {
+            if (items.size() == 1) {
+                channel.send(recipient, items.get(0));
+            } else {
+                channel.sendDigest(recipient, items);
+            }
+            breaker.onSuccess();
+        } catch (RuntimeException ex) {
+            breaker.onFailure();
+            failures.increment();
+            throw ex;
+        } finally {
+            sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Books one failed attempt on rows claimed in the caller's transaction: they are retried together after a
+     * jittered backoff, or moved to notification_dead_letter once they ran out of attempts.
+     */
+    public void settle(List<NotificationPending> rows, String error) {
+        LocalDateTime now = LocalDateTime.now();
+        int attempts = 0;
+        for (NotificationPending row : rows) {
+            attempts = Math.max(attempts, row.getAttempts() + 1);
+        }
+        LocalDateTime next = now.plus(Duration.ofMillis(backoffMillis(attempts)));
+        List<NotificationPending> dead = new ArrayList<>();
+        for (NotificationPending row : rows) {
+            row.setAttempts(row.getAttempts() + 1);
+            if (row.getAttempts() >= settings.maxAttempts()) {
+                dead.add(row);
+            } else {
+                row.setNextAttemptTime(next);
+            }
+        }
+        if (dead.size() < rows.size()) {
+            retries.increment(rows.size() - dead.size());
+            logger.debug("ChannelDelivery: {} send to {} failed (attempt {}), retrying at {}: {}", name, rows.get(0).getRecipient(), attempts, next, error);
+        }
+        if (!dead.isEmpty()) {
+            deadLetter(dead, error, now);
+        }
+    }
+
+    // exponential backoff, half of it randomized so retries of a failing burst do not arrive together
+    long backoffMillis(int attempts) {
+        long ceiling = Math.min(settings.maxBackoffMs(), settings.backoffMs() << Math.min(Math.max(attempts, 1) - 1, 20));
+        long half = Math.max(1, ceiling / 2);
+        return half + ThreadLocalRandom.current().nextLong(half + 1);
+    }
+
+    // moved in the caller's transaction: a row is either still pending or dead-lettered, never lost
+    private void deadLetter(List<NotificationPending> rows, String error, LocalDateTime now) {
+        String lastError = error == null ? null : error.length() > 512 ? error.substring(0, 512) : error;
+        List<NotificationDeadLetter> letters = new ArrayList<>(rows.size());
+        for (NotificationPending row : rows) {
+            letters.add(new NotificationDeadLetter(name, row.getRecipient(), row.getEventType(), row.getOrderId(), row.getProductName(),
+                    row.getAttempts(), lastError, now));
+        }
+        deadLetterRepository.saveAll(letters);
+        pendingRepository.deleteAllInBatch(rows);
+        deadLetters.increment(rows.size());
+        logger.warn("ChannelDelivery: giving up on {} {} events to {} after {} attempts: {}",
+                rows.size(), name, rows.get(0).getRecipient(), rows.get(0).getAttempts(), error);
+    }
+
+    CircuitBreaker.State circuitState() {
+        return breaker.state();
+    }
+
+    /**
+     * Stops the workers, letting a batch in flight finish for up to drain-timeout-ms; rows not settled by then
+     * are rolled back and stay pending.
+     */
+    @Override
+    public void close() {
+        List<Thread> running;
+        synchronized (this) {
+            closed = true;
+            running = List.copyOf(workers);
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(settings.drainTimeoutMs());
+        try {
+            for (Thread worker : running) {
+                long leftMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (leftMillis > 0) worker.join(leftMillis);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        running.forEach(Thread::interrupt);
+    }
+}
@@ -1,6 +1,5 @@
 package com.interview.order.notification;
 
-import com.interview.order.entity.Order;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -17,16 +16,23 @@ public class EmailNotification extends Notification {
     }
 
     @Override
-    public void send(Order order, String eventType) {
-        List<String> emails = props.getEmails();
-        if (emails.isEmpty()) {
-            logger.info("EmailNotification: no recipient configured, skipping");
-            return;
-        }
+    public String name() {
+        return "email";
+    }
+
+    @Override
+    public List<String> recipients() {
+        return props.getEmails();
+    }
+
+    @Override
+    public void send(String to, NotificationItem item) {
         // Simulate sending via logs; replace with real mail sender if needed
-        for (String to : emails) {
-            logger.info("Sending EMAIL to {} about event {} for order id={} product={}", to, eventType, order.getId(), order.getProductName());
-        }
+        logger.info("Sending EMAIL to {} about event {} for order id={} product={}", to, item.eventType(), item.orderId(), item.productName());
     }
-}
 
+    @Override
+    public void sendDigest(String to, List<NotificationItem> items) {
+        logger.info("Sending EMAIL digest to {} with {} events: {}", to, items.size(), items);
+    }
+}
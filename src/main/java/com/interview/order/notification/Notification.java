@@ -1,7 +1,11 @@
 package com.interview.order.notification;
 
-import com.interview.order.entity.Order;
+import java.util.List;
 
+/**
+ * Notification channel SPI: every Spring bean extending this class is a channel, picked up by
+ * {@link NotificationRouting} when its {@link #name()} is listed in notification.types.
+ */
 public abstract class Notification {
 
     protected final NotificationProperties props;
@@ -10,6 +14,15 @@ public abstract class Notification {
         this.props = props;
     }
 
-    public abstract void send(Order order, String eventType);
-}
+    // value used in notification.types and as the channel tag of the notification meters
+    public abstract String name();
+
+    // configured recipients of this channel; read when the routing table is built
+    public abstract List<String> recipients();
 
+    // one event to one recipient
+    public abstract void send(String recipient, NotificationItem item);
+
+    // one message to one recipient covering several events, see NotificationBatcher
+    public abstract void sendDigest(String recipient, List<NotificationItem> items);
+}
@@ -0,0 +1,207 @@
+package com.interview.order.notification;
+
+import com.interview.order.entity.NotificationPending;
+import com.interview.order.entity.Order;
+import com.interview.order.repository.NotificationPendingRepository;
+import com.interview.order.repository.PendingRecipient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces notifications per (channel, recipient): events are stored in notification_pending and sent as one
+ * digest once the oldest has waited {@code notification.digest.window-ms}, or as soon as a recipient has
+ * {@code notification.digest.max-size} events.
+ * <p>
+ * {@link #add} runs inside the outbox relay's transaction, so an event leaves the outbox only together with its
+ * pending rows. A digest claims its rows with FOR UPDATE SKIP LOCKED and deletes them only after it was sent;
+ * a failed digest keeps them and is retried with exponential backoff. Nothing is held only in memory, so a crash
+ * loses no events. With {@link NotificationDelivery} enabled digests go through the channel's breaker and rate
+ * limit and follow its retry and dead-letter settings; while the breaker is open the rows are left untouched.
+ */
+@Component
+public class NotificationBatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationBatcher.class);
+
+    // recipients looked at per poll; the rest are picked up by the next one
+    private static final int MAX_RECIPIENTS_PER_POLL = 500;
+
+    private final boolean enabled;
+    private final long windowMs;
+    private final int maxSize;
+    private final long maxBackoffMs;
+    private final NotificationPendingRepository pendingRepository;
+    private final NotificationRouting routing;
+    private final NotificationDelivery delivery;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, ChannelMeters> meters = new ConcurrentHashMap<>();
+
+    private record ChannelMeters(Timer sendTimer, Counter failures, DistributionSummary batchSize, Timer batchDelay) {
+    }
+
+    public NotificationBatcher(@Value("${notification.digest.enabled:true}") boolean enabled,
+                               @Value("${notification.digest.window-ms:5000}") long windowMs,
+                               @Value("${notification.digest.max-size:50}") int maxSize,
+                               @Value("${notification.digest.max-backoff-ms:300000}") long maxBackoffMs,
+                               NotificationPendingRepository pendingRepository,
+                               NotificationRouting routing,
+                               NotificationDelivery delivery,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.windowMs = Math.max(0, windowMs);
+        this.maxSize = Math.max(1, maxSize);
+        this.maxBackoffMs = Math.max(1000, maxBackoffMs);
+        this.pendingRepository = pendingRepository;
+        this.routing = routing;
+        this.delivery = delivery;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Stores the event for every recipient of the route, in the caller's (outbox relay) transaction.
+     */
+    public void add(NotificationRouting.Route route, Order order, String eventType) {
+        LocalDateTime now = LocalDateTime.now();
+        List<NotificationPending> rows = new ArrayList<>(route.recipients().size());
+        for (String recipient : route.recipients()) {
+            rows.add(new NotificationPending(route.name(), recipient, eventType, order.getId(), order.getProductName(), now));
+        }
+        pendingRepository.saveAll(rows);
+    }
+
+    /**
+     * Sends a digest to every recipient that is due; a recipient with more than max-size events gets several.
+     */
+    @Scheduled(fixedDelayString = "${notification.digest.poll-interval-ms:1000}")
+    public void flushAll() {
+        if (!enabled) return;
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            List<PendingRecipient> due = pendingRepository.findDueRecipients(now, now.minus(Duration.ofMillis(windowMs)), maxSize,
+                    PageRequest.of(0, MAX_RECIPIENTS_PER_POLL));
+            Set<String> openChannels = new HashSet<>();
+            for (PendingRecipient recipient : due) {
+                if (openChannels.contains(recipient.channel())) continue;
+                Notification channel = routing.channel(recipient.channel());
+                if (channel == null) {
+                    logger.warn("NotificationBatcher: no channel named {}, keeping its pending events", recipient.channel());
+                    continue;
+                }
+                try {
+                    int claimed;
+                    do {
+                        Integer n = transactionTemplate.execute(status -> flush(recipient, channel));
+                        claimed = n == null ? 0 : n;
+                    } while (claimed == maxSize);
+                } catch (ChannelDelivery.CircuitOpenException ex) {
+                    // nothing was attempted and the claim rolled back; the channel's other recipients wait as well
+                    openChannels.add(recipient.channel());
+                    logger.debug("NotificationBatcher: {}, keeping its digests pending", ex.getMessage());
+                }
+            }
+        } catch (Exception ex) {
+            logger.error("NotificationBatcher: flush failed: {}", ex.getMessage(), ex);
+        }
+    }
+
+    // one digest per transaction; its rows stay locked until they are deleted or rescheduled
+    int flush(PendingRecipient key, Notification channel) {
+        LocalDateTime now = LocalDateTime.now();
+        List<NotificationPending> rows = pendingRepository.lockDue(key.channel(), key.recipient(), now, PageRequest.of(0, maxSize));
+        if (rows.isEmpty()) return 0;
+
+        List<NotificationItem> items = new ArrayList<>(rows.size());
+        LocalDateTime oldest = now;
+        for (NotificationPending row : rows) {
+            items.add(new NotificationItem(row.getOrderId(), row.getProductName(), row.getEventType()));
+            if (row.getCreateTime().isBefore(oldest)) oldest = row.getCreateTime();
+        }
+        ChannelMeters channelMeters = meters(key.channel());
+        boolean guarded = delivery != null && delivery.isEnabled();
+        try {
+            if (guarded) {
+                // breaker, rate limit and send meters are ChannelDelivery's
+                delivery.send(key.channel(), channel, key.recipient(), items);
+            } else {
+                sendDirect(channel, key.recipient(), items, channelMeters);
+            }
+        } catch (ChannelDelivery.CircuitOpenException ex) {
+            throw ex;
+        } catch (RuntimeException ex) {
+            if (guarded) {
+                // retried with the channel's jittered backoff, dead-lettered after its max-attempts
+                delivery.settle(key.channel(), channel, rows, ex.getMessage());
+            } else {
+                int attempts = rows.get(0).getAttempts() + 1;
+                LocalDateTime next = now.plus(Duration.ofMillis(backoffMillis(attempts)));
+                for (NotificationPending row : rows) {
+                    row.setAttempts(row.getAttempts() + 1);
+                    row.setNextAttemptTime(next);
+                }
+            }
+            logger.warn("NotificationBatcher: {} digest of {} events to {} failed: {}", key.channel(), items.size(), key.recipient(), ex.getMessage());
+            return rows.size();
+        }
+        channelMeters.batchSize().record(items.size());
+        channelMeters.batchDelay().record(Duration.between(oldest, now));
+        pendingRepository.deleteAllInBatch(rows);
+        return rows.size();
+    }
+
+    private static void sendDirect(Notification channel, String recipient, List<NotificationItem> items, ChannelMeters channelMeters) {
+        long start = System.nanoTime();
+        try {
+            channel.sendDigest(recipient, items);
+        } catch (RuntimeException ex) {
+            channelMeters.failures().increment();
+            throw ex;
+        } finally {
+            channelMeters.sendTimer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    long backoffMillis(int attempts) {
+        long backoff = 1000L << Math.min(attempts - 1, 20);
+        return Math.min(backoff, maxBackoffMs);
+    }
+
+    private ChannelMeters meters(String channel) {
+        // same send meters as the direct path in NotificationDispatcher
+        return meters.computeIfAbsent(channel, name -> new ChannelMeters(
+                Timer.builder("notification.send").tag("channel", name).publishPercentileHistogram().register(meterRegistry),
+                Counter.builder("notification.send.failures").tag("channel", name).register(meterRegistry),
+                DistributionSummary.builder("notification.digest.size").tag("channel", name).register(meterRegistry),
+                Timer.builder("notification.digest.delay")
+                        .description("Time the oldest event of a digest waited before it was sent")
+                        .tag("channel", name)
+                        .register(meterRegistry)));
+    }
+}
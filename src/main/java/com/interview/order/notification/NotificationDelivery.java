@@ -0,0 +1,171 @@
+package com.interview.order.notification;
+
+import com.interview.order.entity.NotificationDeadLetter;
+import com.interview.order.entity.NotificationPending;
+import com.interview.order.entity.Order;
+import com.interview.order.repository.NotificationDeadLetterRepository;
+import com.interview.order.repository.NotificationPendingRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One {@link ChannelDelivery} per channel, created on first use. Settings are read from
+ * {@code notification.delivery.<channel>.<key>} and default to {@code notification.delivery.<key>}, so the
+ * rate limit and pool size can follow each gateway's quota.
+ * <p>
+ * Events are never queued in memory: {@link #add} stores them in notification_pending in the outbox relay's
+ * transaction and the channel workers send them from there. With digests enabled the workers are not started;
+ * {@link NotificationBatcher} owns notification_pending and sends its digests through {@link #send}.
+ * <p>
+ * Workers start at application start for the routed channels, and for a channel that {@link NotificationRouting#rebuild}
+ * added later with its first stored event. A channel dropped from the routing keeps its workers, so rows stored
+ * before the change are still delivered.
+ */
+@Component
+public class NotificationDelivery {
+
+    private static final String PREFIX = "notification.delivery.";
+
+    private final boolean enabled;
+    private final boolean digestsEnabled;
+    private final Environment environment;
+    private final NotificationRouting routing;
+    private final NotificationPendingRepository pendingRepository;
+    private final NotificationDeadLetterRepository deadLetterRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, ChannelDelivery> channels = new ConcurrentHashMap<>();
+    // set once the application is ready and this instance runs the channel workers
+    private volatile boolean workersStarted;
+
+    public NotificationDelivery(@Value("${notification.delivery.enabled:true}") boolean enabled,
+                                @Value("${notification.digest.enabled:true}") boolean digestsEnabled,
+                                Environment environment,
+                                NotificationRouting routing,
+                                NotificationPendingRepository pendingRepository,
+                                NotificationDeadLetterRepository deadLetterRepository,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.digestsEnabled = digestsEnabled;
+        this.environment = environment;
+        this.routing = routing;
+        this.pendingRepository = pendingRepository;
+        this.deadLetterRepository = deadLetterRepository;
+        this.transactionManager = transactionManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Stores one send per recipient of the route, in the caller's (outbox relay) transaction.
+     */
+    public void add(NotificationRouting.Route route, Order order, String eventType) {
+        LocalDateTime now = LocalDateTime.now();
+        List<NotificationPending> rows = new ArrayList<>(route.recipients().size());
+        for (String recipient : route.recipients()) {
+            rows.add(new NotificationPending(route.name(), recipient, eventType, order.getId(), order.getProductName(), now));
+        }
+        pendingRepository.saveAll(rows);
+        // a no-op for channels that already run; starts the ones a routing rebuild added
+        if (workersStarted) channel(route.name(), route.channel()).start();
+    }
+
+    /**
+     * Sends one message on the calling thread through the channel's breaker and rate limit, see
+     * {@link ChannelDelivery#send}.
+     */
+    public void send(String channelName, Notification channel, String recipient, List<NotificationItem> items) {
+        channel(channelName, channel).send(recipient, items);
+    }
+
+    /**
+     * Books a failed send of rows claimed in the caller's transaction, see {@link ChannelDelivery#settle}.
+     */
+    public void settle(String channelName, Notification channel, List<NotificationPending> rows, String error) {
+        channel(channelName, channel).settle(rows, error);
+    }
+
+    /**
+     * Starts the workers of every routed channel that has none yet; called again after a routing rebuild.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || digestsEnabled) return;
+        workersStarted = true;
+        for (NotificationRouting.Route route : routing.routes()) {
+            channel(route.name(), route.channel()).start();
+        }
+    }
+
+    /**
+     * Moves up to {@code limit} dead letters, oldest first and optionally of one channel, back to
+     * notification_pending with their attempts reset; returns how many were moved.
+     */
+    public int replayDeadLetters(String channel, int limit) {
+        Integer replayed = transactionTemplate.execute(status -> {
+            List<NotificationDeadLetter> letters = deadLetterRepository.lockOldest(channel, PageRequest.of(0, Math.max(1, limit)));
+            LocalDateTime now = LocalDateTime.now();
+            List<NotificationPending> rows = new ArrayList<>(letters.size());
+            for (NotificationDeadLetter letter : letters) {
+                rows.add(new NotificationPending(letter.getChannel(), letter.getRecipient(), letter.getEventType(), letter.getOrderId(),
+                        letter.getProductName(), now));
+            }
+            pendingRepository.saveAll(rows);
+            deadLetterRepository.deleteAllInBatch(letters);
+            return rows.size();
+        });
+        return replayed == null ? 0 : replayed;
+    }
+
+    private ChannelDelivery channel(String channelName, Notification channel) {
+        return channels.computeIfAbsent(channelName, n -> new ChannelDelivery(n, channel, settings(n), pendingRepository,
+                deadLetterRepository, transactionManager, meterRegistry));
+    }
+
+    ChannelDelivery.Settings settings(String channel) {
+        return new ChannelDelivery.Settings(
+                property(channel, "workers", Integer.class, 4),
+                property(channel, "batch-size", Integer.class, 20),
+                property(channel, "poll-interval-ms", Long.class, 500L),
+                property(channel, "max-attempts", Integer.class, 5),
+                property(channel, "backoff-ms", Long.class, 500L),
+                property(channel, "max-backoff-ms", Long.class, 30000L),
+                property(channel, "rate-per-second", Double.class, 0d),
+                property(channel, "burst", Integer.class, 10),
+                property(channel, "failure-threshold", Integer.class, 5),
+                property(channel, "open-ms", Long.class, 30000L),
+                property(channel, "drain-timeout-ms", Long.class, 10000L));
+    }
+
+    private <T> T property(String channel, String key, Class<T> type, T defaultValue) {
+        T value = environment.getProperty(PREFIX + channel + "." + key, type);
+        return value != null ? value : environment.getProperty(PREFIX + key, type, defaultValue);
+    }
+
+    // unsent rows stay in notification_pending for the next start
+    @PreDestroy
+    public void close() {
+        channels.values().forEach(ChannelDelivery::close);
+    }
+}
@@ -1,45 +1,116 @@
 package com.interview.order.notification;
 
 import com.interview.order.entity.Order;
-import org.springframework.context.event.EventListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Fans an order event out to the channels of the {@link NotificationRouting} table. Invoked by
+ * {@link OutboxRelay} after the order transaction committed, never on the request thread. With digests
+ * enabled the event is stored per recipient by {@link NotificationBatcher}, in the relay's transaction, instead
+ * of being sent right away; otherwise, with {@link NotificationDelivery} enabled, one send per recipient is stored
+ * the same way for the channel's workers. Only when both are disabled the channels are called directly, each on its
+ * own virtual thread, so an event takes as long as its slowest channel.
+ */
 @Component
 public class NotificationDispatcher {
 
-    private final NotificationProperties props;
-    private final EmailNotification emailNotification;
-    private final SmsNotification smsNotification;
+    public static final String ORDER_CREATED = "ORDER_CREATED";
+    public static final String ORDER_STATUS_CHANGED = "ORDER_STATUS_CHANGED";
 
-    public NotificationDispatcher(NotificationProperties props, EmailNotification emailNotification, SmsNotification smsNotification) {
-        this.props = props;
-        this.emailNotification = emailNotification;
-        this.smsNotification = smsNotification;
+    private final NotificationRouting routing;
+    private final NotificationBatcher batcher;
+    private final NotificationDelivery delivery;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService fanOut = Executors.newVirtualThreadPerTaskExecutor();
+
+    // per-channel send latency and failures of the direct path
+    private final Map<String, ChannelMeters> meters = new ConcurrentHashMap<>();
+
+    private record ChannelMeters(Timer timer, Counter failures) {
     }
 
-    @EventListener
-    public void onOrderCreated(OrderCreatedEvent event) {
-        dispatch(event.getOrder(), "ORDER_CREATED");
+    public NotificationDispatcher(NotificationRouting routing, NotificationBatcher batcher, NotificationDelivery delivery, MeterRegistry meterRegistry) {
+        this.routing = routing;
+        this.batcher = batcher;
+        this.delivery = delivery;
+        this.meterRegistry = meterRegistry;
     }
 
-    @EventListener
-    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
-        dispatch(event.getOrder(), "ORDER_STATUS_CHANGED");
+    public void dispatch(Order order, String eventType) {
+        List<NotificationRouting.Route> routes = routing.routes();
+        if (routes.isEmpty()) return; // nothing to do
+
+        if (batcher != null && batcher.isEnabled()) {
+            for (NotificationRouting.Route route : routes) {
+                batcher.add(route, order, eventType);
+            }
+        } else if (delivery != null && delivery.isEnabled()) {
+            for (NotificationRouting.Route route : routes) {
+                delivery.add(route, order, eventType);
+            }
+        } else if (routes.size() == 1) {
+            send(routes.get(0), NotificationItem.of(order, eventType));
+        } else {
+            sendConcurrently(routes, NotificationItem.of(order, eventType));
+        }
     }
 
-    private void dispatch(Order order, String eventType) {
-        List<String> types = props.getTypes();
-        if (types.isEmpty()) return; // nothing to do
+    // waits for every channel; the first failure is rethrown with the others suppressed, so the outbox retries the event
+    private void sendConcurrently(List<NotificationRouting.Route> routes, NotificationItem item) {
+        List<Future<?>> futures = new ArrayList<>(routes.size());
+        for (NotificationRouting.Route route : routes) {
+            futures.add(fanOut.submit(() -> send(route, item)));
+        }
+        RuntimeException failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException ex) {
+                RuntimeException cause = ex.getCause() instanceof RuntimeException re ? re : new IllegalStateException(ex.getCause());
+                if (failure == null) failure = cause;
+                else failure.addSuppressed(cause);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                throw new IllegalStateException("interrupted while sending notifications", ex);
+            }
+        }
+        if (failure != null) throw failure;
+    }
 
-        for (String t : types) {
-            if ("email".equalsIgnoreCase(t)) {
-                emailNotification.send(order, eventType);
-            } else if ("sms".equalsIgnoreCase(t)) {
-                smsNotification.send(order, eventType);
+    private void send(NotificationRouting.Route route, NotificationItem item) {
+        ChannelMeters channelMeters = meters.computeIfAbsent(route.name(), name -> new ChannelMeters(
+                Timer.builder("notification.send").tag("channel", name).publishPercentileHistogram().register(meterRegistry),
+                Counter.builder("notification.send.failures").tag("channel", name).register(meterRegistry)));
+        long start = System.nanoTime();
+        try {
+            for (String recipient : route.recipients()) {
+                route.channel().send(recipient, item);
             }
+        } catch (RuntimeException ex) {
+            channelMeters.failures().increment();
+            throw ex;
+        } finally {
+            channelMeters.timer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
     }
-}
 
+    @PreDestroy
+    public void close() {
+        fanOut.shutdown();
+    }
+}
@@ -0,0 +1,13 @@
+package com.interview.order.notification;
+
+import com.interview.order.entity.Order;
+
+/**
+ * One order event inside a digest; a snapshot so buffered events do not hold on to entities.
+ */
+public record NotificationItem(Long orderId, String productName, String eventType) {
+
+    public static NotificationItem of(Order order, String eventType) {
+        return new NotificationItem(order.getId(), order.getProductName(), eventType);
+    }
+}
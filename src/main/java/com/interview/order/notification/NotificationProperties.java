@@ -1,47 +1,52 @@
 package com.interview.order.notification;
 
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
+/**
+ * notification.types / emails / phones, parsed once into immutable lists; {@link #reload()} re-reads them
+ * (see {@link NotificationRouting#rebuild()}).
+ */
 @Component
 public class NotificationProperties {
 
-    @Value("${notification.types:}")
-    private String typesRaw;
+    private final Environment environment;
 
-    @Value("${notification.emails:}")
-    private String emailsRaw;
+    private volatile List<String> types = List.of();
+    private volatile List<String> emails = List.of();
+    private volatile List<String> phones = List.of();
 
-    @Value("${notification.phones:}")
-    private String phonesRaw;
+    public NotificationProperties(Environment environment) {
+        this.environment = environment;
+        reload();
+    }
+
+    public void reload() {
+        types = split(environment.getProperty("notification.types", ""));
+        emails = split(environment.getProperty("notification.emails", ""));
+        phones = split(environment.getProperty("notification.phones", ""));
+    }
 
     public List<String> getTypes() {
-        if (typesRaw == null || typesRaw.isBlank()) return Collections.emptyList();
-        return Arrays.stream(typesRaw.split(","))
-                .map(String::trim)
-                .filter(s -> !s.isEmpty())
-                .collect(Collectors.toList());
+        return types;
     }
 
     public List<String> getEmails() {
-        if (emailsRaw == null || emailsRaw.isBlank()) return Collections.emptyList();
-        return Arrays.stream(emailsRaw.split(","))
-                .map(String::trim)
-                .filter(s -> !s.isEmpty())
-                .collect(Collectors.toList());
+        return emails;
     }
 
     public List<String> getPhones() {
-        if (phonesRaw == null || phonesRaw.isBlank()) return Collections.emptyList();
-        return Arrays.stream(phonesRaw.split(","))
+        return phones;
+    }
+
+    private static List<String> split(String raw) {
+        if (raw == null || raw.isBlank()) return List.of();
+        return Arrays.stream(raw.split(","))
                 .map(String::trim)
                 .filter(s -> !s.isEmpty())
-                .collect(Collectors.toList());
+                .toList();
     }
 }
-
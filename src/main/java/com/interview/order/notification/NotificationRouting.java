@@ -0,0 +1,90 @@
+package com.interview.order.notification;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable table of the channels an order event goes to, with their recipients, built from notification.types
+ * and the {@link Notification} beans when the bean is created. Dispatching reads one volatile field; the table
+ * only changes when {@link #rebuild()} is called (POST /notifications/routing/refresh) after the notification.*
+ * properties of the Environment changed.
+ */
+@Component
+public class NotificationRouting {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationRouting.class);
+
+    public record Route(String name, Notification channel, List<String> recipients) {
+    }
+
+    private final NotificationProperties props;
+    private final Map<String, Notification> channelsByName;
+
+    private volatile List<Route> routes = List.of();
+
+    public NotificationRouting(NotificationProperties props, List<Notification> channels) {
+        this.props = props;
+        Map<String, Notification> byName = new HashMap<>();
+        for (Notification channel : channels) {
+            Notification previous = byName.putIfAbsent(channel.name().toLowerCase(Locale.ROOT), channel);
+            if (previous != null) {
+                throw new IllegalStateException("Two notification channels named " + channel.name() + ": "
+                        + previous.getClass().getName() + " and " + channel.getClass().getName());
+            }
+        }
+        this.channelsByName = Map.copyOf(byName);
+        this.routes = build();
+    }
+
+    public List<Route> routes() {
+        return routes;
+    }
+
+    /**
+     * Channel bean by name, routed or not, for events that were stored before the table changed; null if unknown.
+     */
+    public Notification channel(String name) {
+        return channelsByName.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Re-reads notification.* and swaps the table; channels added here get their delivery workers from
+     * {@link NotificationDelivery}.
+     */
+    public synchronized void rebuild() {
+        props.reload();
+        routes = build();
+    }
+
+    private List<Route> build() {
+        Set<String> types = new LinkedHashSet<>();
+        for (String type : props.getTypes()) {
+            types.add(type.toLowerCase(Locale.ROOT));
+        }
+        List<Route> built = new ArrayList<>(types.size());
+        for (String type : types) {
+            Notification channel = channelsByName.get(type);
+            if (channel == null) {
+                logger.warn("NotificationRouting: no channel named {} (known: {}), ignoring", type, channelsByName.keySet());
+                continue;
+            }
+            List<String> recipients = List.copyOf(channel.recipients());
+            if (recipients.isEmpty()) {
+                logger.info("NotificationRouting: {} has no recipient configured, skipping", type);
+                continue;
+            }
+            built.add(new Route(channel.name(), channel, recipients));
+        }
+        logger.info("NotificationRouting: routing order events to {}", built.stream().map(Route::name).toList());
+        return List.copyOf(built);
+    }
+}
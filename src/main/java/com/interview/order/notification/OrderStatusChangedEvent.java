@@ -3,6 +3,10 @@ package com.interview.order.notification;
 import com.interview.order.entity.Order;
 import org.springframework.context.ApplicationEvent;
 
+/**
+ * Published after a successful status transition. The transition is a conditional UPDATE, so
+ * {@link #getOrder()} only carries id, status and updateTime; listeners needing other columns load the order.
+ */
 public class OrderStatusChangedEvent extends ApplicationEvent {
     private final Order order;
     private final int oldStatus;
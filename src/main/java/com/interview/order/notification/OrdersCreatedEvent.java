@@ -0,0 +1,22 @@
+package com.interview.order.notification;
+
+import com.interview.order.entity.Order;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.List;
+
+/**
+ * Published once per batch create instead of one {@link OrderCreatedEvent} per order.
+ */
+public class OrdersCreatedEvent extends ApplicationEvent {
+    private final List<Order> orders;
+
+    public OrdersCreatedEvent(Object source, List<Order> orders) {
+        super(source);
+        this.orders = orders;
+    }
+
+    public List<Order> getOrders() {
+        return orders;
+    }
+}
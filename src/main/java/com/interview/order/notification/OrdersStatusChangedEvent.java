@@ -0,0 +1,36 @@
+package com.interview.order.notification;
+
+import com.interview.order.entity.Order;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.List;
+
+/**
+ * Published once per chunk of a bulk status update instead of one {@link OrderStatusChangedEvent} per order.
+ * All orders moved from {@link #getOldStatus()} to {@link #getNewStatus()}; like the single event, each
+ * {@link Order} only carries id, status and updateTime.
+ */
+public class OrdersStatusChangedEvent extends ApplicationEvent {
+    private final List<Order> orders;
+    private final int oldStatus;
+    private final int newStatus;
+
+    public OrdersStatusChangedEvent(Object source, List<Order> orders, int oldStatus, int newStatus) {
+        super(source);
+        this.orders = orders;
+        this.oldStatus = oldStatus;
+        this.newStatus = newStatus;
+    }
+
+    public List<Order> getOrders() {
+        return orders;
+    }
+
+    public int getOldStatus() {
+        return oldStatus;
+    }
+
+    public int getNewStatus() {
+        return newStatus;
+    }
+}
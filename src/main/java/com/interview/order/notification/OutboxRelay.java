@@ -0,0 +1,135 @@
+package com.interview.order.notification;
+
+import com.interview.order.entity.Order;
+import com.interview.order.entity.OutboxEvent;
+import com.interview.order.repository.OrderRepository;
+import com.interview.order.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the notification outbox in batches and hands each event to {@link NotificationDispatcher}.
+ * Delivery is at-least-once: a row is only deleted after every channel accepted it (or, with digests,
+ * after its per-recipient rows were stored in the same transaction), and a failed row is retried with
+ * exponential backoff.
+ */
+@Component
+@ConditionalOnProperty(name = "notification.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OrderRepository orderRepository;
+    private final NotificationDispatcher dispatcher;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long maxBackoffMillis;
+
+    private final Timer deliveryLag;
+    private final Counter dispatched;
+    private final Counter failed;
+    // age of the oldest undelivered event as of the last poll
+    private final AtomicLong oldestPendingMillis = new AtomicLong();
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       OrderRepository orderRepository,
+                       NotificationDispatcher dispatcher,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry,
+                       @Value("${notification.outbox.batch-size:100}") int batchSize,
+                       @Value("${notification.outbox.max-backoff-ms:300000}") long maxBackoffMillis) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.orderRepository = orderRepository;
+        this.dispatcher = dispatcher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBackoffMillis = maxBackoffMillis;
+
+        this.deliveryLag = Timer.builder("notification.outbox.delivery.lag")
+                .description("Time from order commit to notification delivery")
+                .register(meterRegistry);
+        this.dispatched = Counter.builder("notification.outbox.dispatched").register(meterRegistry);
+        this.failed = Counter.builder("notification.outbox.failed").register(meterRegistry);
+        Gauge.builder("notification.outbox.oldest.pending.seconds", oldestPendingMillis, v -> v.get() / 1000.0)
+                .description("Age of the oldest undelivered outbox event")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${notification.outbox.poll-interval-ms:500}")
+    public void poll() {
+        try {
+            int drained;
+            do {
+                Integer n = transactionTemplate.execute(status -> drainBatch());
+                drained = n == null ? 0 : n;
+            } while (drained == batchSize);
+
+            LocalDateTime oldest = outboxEventRepository.findOldestCreateTime();
+            oldestPendingMillis.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest, LocalDateTime.now()).toMillis()));
+        } catch (Exception ex) {
+            logger.error("OutboxRelay: poll failed: {}", ex.getMessage(), ex);
+        }
+    }
+
+    // one transaction per batch; rows stay locked (SKIP LOCKED for other relays) until delivered or rescheduled
+    int drainBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> due = outboxEventRepository.lockDue(now, PageRequest.of(0, batchSize));
+        if (due.isEmpty()) return 0;
+
+        List<Long> orderIds = due.stream().map(OutboxEvent::getOrderId).distinct().collect(Collectors.toList());
+        Map<Long, Order> orders = orderRepository.findAllById(orderIds).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+
+        List<OutboxEvent> done = new ArrayList<>(due.size());
+        for (OutboxEvent event : due) {
+            Order order = orders.get(event.getOrderId());
+            if (order == null) {
+                logger.warn("OutboxRelay: order id={} for outbox event id={} no longer exists, dropping", event.getOrderId(), event.getId());
+                done.add(event);
+                continue;
+            }
+            try {
+                dispatcher.dispatch(order, event.getEventType());
+                done.add(event);
+                dispatched.increment();
+                deliveryLag.record(Duration.between(event.getCreateTime(), LocalDateTime.now()));
+            } catch (Exception ex) {
+                int attempts = event.getAttempts() + 1;
+                event.setAttempts(attempts);
+                event.setNextAttemptTime(now.plus(Duration.ofMillis(backoffMillis(attempts))));
+                failed.increment();
+                logger.warn("OutboxRelay: delivery of outbox event id={} type={} order id={} failed (attempt {}): {}",
+                        event.getId(), event.getEventType(), event.getOrderId(), attempts, ex.getMessage());
+            }
+        }
+        outboxEventRepository.deleteAllInBatch(done);
+        return due.size();
+    }
+
+    long backoffMillis(int attempts) {
+        long backoff = 1000L << Math.min(attempts - 1, 20);
+        return Math.min(backoff, maxBackoffMillis);
+    }
+}
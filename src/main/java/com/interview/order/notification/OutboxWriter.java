@@ -0,0 +1,56 @@
+package com.interview.order.notification;
+
+import com.interview.order.entity.Order;
+import com.interview.order.entity.OutboxEvent;
+import com.interview.order.repository.OutboxEventRepository;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records order events in the outbox. Runs synchronously inside the publishing transaction, so the
+ * outbox row commits (or rolls back) together with the order change.
+ */
+@Component
+public class OutboxWriter {
+
+    private final OutboxEventRepository outboxEventRepository;
+
+    public OutboxWriter(OutboxEventRepository outboxEventRepository) {
+        this.outboxEventRepository = outboxEventRepository;
+    }
+
+    @EventListener
+    public void onOrderCreated(OrderCreatedEvent event) {
+        outboxEventRepository.save(new OutboxEvent(NotificationDispatcher.ORDER_CREATED, event.getOrder().getId(), null, null, LocalDateTime.now()));
+    }
+
+    @EventListener
+    public void onOrdersCreated(OrdersCreatedEvent event) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> rows = new ArrayList<>(event.getOrders().size());
+        for (Order order : event.getOrders()) {
+            rows.add(new OutboxEvent(NotificationDispatcher.ORDER_CREATED, order.getId(), null, null, now));
+        }
+        outboxEventRepository.saveAll(rows);
+    }
+
+    @EventListener
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        outboxEventRepository.save(new OutboxEvent(NotificationDispatcher.ORDER_STATUS_CHANGED, event.getOrder().getId(),
+                event.getOldStatus(), event.getNewStatus(), LocalDateTime.now()));
+    }
+
+    @EventListener
+    public void onOrdersStatusChanged(OrdersStatusChangedEvent event) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> rows = new ArrayList<>(event.getOrders().size());
+        for (Order order : event.getOrders()) {
+            rows.add(new OutboxEvent(NotificationDispatcher.ORDER_STATUS_CHANGED, order.getId(), event.getOldStatus(), event.getNewStatus(), now));
+        }
+        outboxEventRepository.saveAll(rows);
+    }
+}
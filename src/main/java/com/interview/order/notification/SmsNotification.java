@@ -1,6 +1,5 @@
 package com.interview.order.notification;
 
-import com.interview.order.entity.Order;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -17,16 +16,23 @@ public class SmsNotification extends Notification {
     }
 
     @Override
-    public void send(Order order, String eventType) {
-        List<String> phones = props.getPhones();
-        if (phones.isEmpty()) {
-            logger.info("SmsNotification: no phone configured, skipping");
-            return;
-        }
+    public String name() {
+        return "sms";
+    }
+
+    @Override
+    public List<String> recipients() {
+        return props.getPhones();
+    }
+
+    @Override
+    public void send(String phone, NotificationItem item) {
         // Simulate SMS send via logging. Integrate with SMS provider in real app.
-        for (String phone : phones) {
-            logger.info("Sending SMS to {} about event {} for order id={} product={}", phone, eventType, order.getId(), order.getProductName());
-        }
+        logger.info("Sending SMS to {} about event {} for order id={} product={}", phone, item.eventType(), item.orderId(), item.productName());
     }
-}
 
+    @Override
+    public void sendDigest(String phone, List<NotificationItem> items) {
+        logger.info("Sending SMS digest to {} with {} events: {}", phone, items.size(), items);
+    }
+}
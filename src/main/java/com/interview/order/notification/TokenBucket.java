@@ -0,0 +1,36 @@
+package com.interview.order.notification;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket refilled at {@code ratePerSecond} holding at most {@code burst} tokens. {@link #reserve()} takes a
+ * token even when none is left and returns how long the caller has to wait for it, so waiting callers are
+ * served in order without polling.
+ */
+final class TokenBucket {
+
+    private final double nanosPerToken;
+    private final double capacity;
+    private final LongSupplier nanoClock;
+
+    // guarded by this; negative while tokens are reserved ahead of the refill
+    private double tokens;
+    private long lastRefill;
+
+    TokenBucket(double ratePerSecond, int burst, LongSupplier nanoClock) {
+        this.nanosPerToken = 1_000_000_000d / ratePerSecond;
+        this.capacity = Math.max(1, burst);
+        this.nanoClock = nanoClock;
+        this.tokens = capacity;
+        this.lastRefill = nanoClock.getAsLong();
+    }
+
+    // nanoseconds until the reserved token is available, 0 when it can be used right away
+    synchronized long reserve() {
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) / nanosPerToken);
+        lastRefill = now;
+        tokens -= 1;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens * nanosPerToken);
+    }
+}
@@ -0,0 +1,77 @@
+package com.interview.order.repository;
+
+import com.interview.order.entity.CustomerOrderStat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CustomerOrderStatRepository extends JpaRepository<CustomerOrderStat, CustomerOrderStat.Key> {
+
+    // at most (statuses x currencies) rows, read by primary key prefix
+    List<CustomerOrderStat> findByCustomer(String customer);
+
+    // new orders: add to the (customer, status, currency) row, creating it on first use
+    @Modifying
+    @Query(value = "INSERT INTO customer_order_stats (customer, status, currency, order_count, total_amount) "
+            + "VALUES (:customer, :status, :currency, :count, :amount) "
+            + "ON DUPLICATE KEY UPDATE order_count = order_count + VALUES(order_count), total_amount = total_amount + VALUES(total_amount)",
+            nativeQuery = true)
+    int add(@Param("customer") String customer,
+            @Param("status") int statusCode,
+            @Param("currency") String currency,
+            @Param("count") long count,
+            @Param("amount") BigDecimal amount);
+
+    // status change, step 1: add the given orders (grouped by customer and currency) to the new status
+    @Modifying
+    @Query(value = "INSERT INTO customer_order_stats (customer, status, currency, order_count, total_amount) "
+            + "SELECT o.customer, :status, COALESCE(o.currency, 'RMB'), COUNT(*), COALESCE(SUM(CAST(o.total_amount AS DECIMAL(20, 2))), 0) "
+            + "FROM orders o WHERE o.id IN (:ids) AND o.customer IS NOT NULL GROUP BY o.customer, COALESCE(o.currency, 'RMB') "
+            + "ON DUPLICATE KEY UPDATE order_count = order_count + VALUES(order_count), total_amount = total_amount + VALUES(total_amount)",
+            nativeQuery = true)
+    int addOrders(@Param("ids") Collection<Long> ids, @Param("status") int statusCode);
+
+    // status change, step 2: take the same orders out of the old status
+    @Modifying
+    @Query(value = "UPDATE customer_order_stats s JOIN ("
+            + "SELECT o.customer, COALESCE(o.currency, 'RMB') AS currency, COUNT(*) AS order_count, "
+            + "COALESCE(SUM(CAST(o.total_amount AS DECIMAL(20, 2))), 0) AS total_amount "
+            + "FROM orders o WHERE o.id IN (:ids) AND o.customer IS NOT NULL GROUP BY o.customer, COALESCE(o.currency, 'RMB')) d "
+            + "ON s.customer = d.customer AND s.currency = d.currency AND s.status = :status "
+            + "SET s.order_count = s.order_count - d.order_count, s.total_amount = s.total_amount - d.total_amount",
+            nativeQuery = true)
+    int subtractOrders(@Param("ids") Collection<Long> ids, @Param("status") int statusCode);
+
+    // rebuild: customers of orders and orders_archive in order, one chunk at a time; each side stops after
+    // :limit customers, so the merged chunk never needs more than that from either table
+    @Query(value = "SELECT customer FROM ("
+            + "(SELECT DISTINCT customer FROM orders WHERE customer > :after ORDER BY customer LIMIT :limit) "
+            + "UNION ALL "
+            + "(SELECT DISTINCT customer FROM orders_archive WHERE customer > :after ORDER BY customer LIMIT :limit)) c "
+            + "GROUP BY customer ORDER BY customer LIMIT :limit",
+            nativeQuery = true)
+    List<String> findCustomersAfter(@Param("after") String after, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "DELETE FROM customer_order_stats WHERE customer IN (:customers)", nativeQuery = true)
+    int deleteByCustomers(@Param("customers") Collection<String> customers);
+
+    // archived orders are terminal but still the customer's orders, so they stay in the aggregates
+    @Modifying
+    @Query(value = "INSERT INTO customer_order_stats (customer, status, currency, order_count, total_amount) "
+            + "SELECT customer, status, COALESCE(currency, 'RMB'), COUNT(*), COALESCE(SUM(CAST(total_amount AS DECIMAL(20, 2))), 0) "
+            + "FROM (SELECT customer, status, currency, total_amount FROM orders WHERE customer IN (:customers) "
+            + "UNION ALL "
+            + "SELECT customer, status, currency, total_amount FROM orders_archive WHERE customer IN (:customers)) o "
+            + "WHERE status IS NOT NULL "
+            + "GROUP BY customer, status, COALESCE(currency, 'RMB')",
+            nativeQuery = true)
+    int insertFromOrders(@Param("customers") Collection<String> customers);
+}
@@ -0,0 +1,34 @@
+package com.interview.order.repository;
+
+import com.interview.order.entity.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, IdempotencyKey.Key> {
+
+    // plain INSERT (save() would merge into an existing row): a concurrent insert of the same key from another
+    // instance fails on the primary key, which rolls back the duplicate order created in the same transaction
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_key (owner, idem_key, request_hash, order_id, create_time, expire_time) "
+            + "VALUES (:owner, :key, :requestHash, :orderId, :now, :expireTime)", nativeQuery = true)
+    int insert(@Param("owner") String owner,
+               @Param("key") String key,
+               @Param("requestHash") String requestHash,
+               @Param("orderId") Long orderId,
+               @Param("now") LocalDateTime now,
+               @Param("expireTime") LocalDateTime expireTime);
+
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.owner = :owner and k.key = :key and k.expireTime <= :now")
+    int deleteIfExpired(@Param("owner") String owner, @Param("key") String key, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.expireTime <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
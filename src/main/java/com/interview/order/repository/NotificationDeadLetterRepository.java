@@ -0,0 +1,24 @@
+package com.interview.order.repository;
+
+import com.interview.order.entity.NotificationDeadLetter;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface NotificationDeadLetterRepository extends JpaRepository<NotificationDeadLetter, Long> {
+
+    // oldest first, optionally of one channel; SKIP LOCKED (-2) so two replays never requeue the same row
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select d from NotificationDeadLetter d where :channel is null or d.channel = :channel order by d.id")
+    List<NotificationDeadLetter> lockOldest(@Param("channel") String channel, Pageable pageable);
+}
@@ -0,0 +1,47 @@
+package com.interview.order.repository;
+
+import com.interview.order.entity.NotificationPending;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface NotificationPendingRepository extends JpaRepository<NotificationPending, Long> {
+
+    // recipients whose oldest due event waited a whole window, or who already have a full digest
+    @Query("select new com.interview.order.repository.PendingRecipient(p.channel, p.recipient) from NotificationPending p"
+            + " where p.nextAttemptTime <= :now group by p.channel, p.recipient"
+            + " having min(p.createTime) <= :windowStart or count(p) >= :maxSize")
+    List<PendingRecipient> findDueRecipients(@Param("now") LocalDateTime now,
+                                             @Param("windowStart") LocalDateTime windowStart,
+                                             @Param("maxSize") long maxSize,
+                                             Pageable pageable);
+
+    // FOR UPDATE SKIP LOCKED (-2), as for the outbox: two instances never send the same events
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select p from NotificationPending p where p.channel = :channel and p.recipient = :recipient"
+            + " and p.nextAttemptTime <= :now order by p.id")
+    List<NotificationPending> lockDue(@Param("channel") String channel,
+                                      @Param("recipient") String recipient,
+                                      @Param("now") LocalDateTime now,
+                                      Pageable pageable);
+
+    // single sends when digests are off: any due event of the channel, oldest first
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select p from NotificationPending p where p.channel = :channel and p.nextAttemptTime <= :now"
+            + " order by p.nextAttemptTime, p.id")
+    List<NotificationPending> lockDueForChannel(@Param("channel") String channel,
+                                                @Param("now") LocalDateTime now,
+                                                Pageable pageable);
+}
@@ -0,0 +1,45 @@
+package com.interview.order.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Keyset position in the (create_time DESC, id DESC) ordering used by cursor paging.
+ * The wire form is an opaque url-safe token so clients never depend on its layout.
+ */
+public record OrderCursor(LocalDateTime createTime, long id) {
+
+    private static final char SEPARATOR = '|';
+
+    public OrderCursor {
+        // orders.create_time is NOT NULL (V13); a null here would encode a token decode rejects
+        Objects.requireNonNull(createTime, "createTime");
+    }
+
+    public static OrderCursor of(OrderRow row) {
+        return new OrderCursor(row.createTime(), row.id());
+    }
+
+    public String encode() {
+        String raw = createTime + String.valueOf(SEPARATOR) + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException when the token was not produced by {@link #encode()}
+     */
+    public static OrderCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf(SEPARATOR);
+            if (sep <= 0) throw new IllegalArgumentException("Malformed cursor");
+            return new OrderCursor(LocalDateTime.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+        } catch (IllegalArgumentException ex) {
+            throw ex;
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Malformed cursor", ex);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.interview.order.repository;
+
+/**
+ * Id and customer of an order, for consumers that only need to know whose order changed.
+ */
+public record OrderCustomer(Long id, String customer) {
+}
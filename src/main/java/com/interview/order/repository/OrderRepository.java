@@ -1,13 +1,82 @@
 package com.interview.order.repository;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import com.interview.order.entity.Order;
 import com.interview.order.entity.OrderStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long>, OrderRepositoryCustom {
     // 使用 OrderRepositoryCustom 提供的 search(...) 实现（避免字符串拼接的 JPQL）
+
+    // 条件更新：单条 UPDATE ... WHERE id = ? AND status = ?，返回受影响行数（0 表示不存在或状态不符）
+    @Modifying(flushAutomatically = true)
+    @Query("update Order o set o.status = :target, o.updateTime = :now where o.id = :id and o.status = :expected")
+    int transitionStatus(@Param("id") Long id,
+                         @Param("expected") OrderStatus expected,
+                         @Param("target") OrderStatus target,
+                         @Param("now") LocalDateTime now);
+
+    // 批量状态变更：锁住仍处于 expected 状态的行并返回其 id，之后的 transitionStatuses 只会命中这些行
+    // (orders.id 是 INT 列，原生查询按驱动类型返回，调用方转成 long)
+    @Query(value = "SELECT id FROM orders WHERE id IN (:ids) AND status = :expected FOR UPDATE", nativeQuery = true)
+    List<Number> lockIdsInStatus(@Param("ids") Collection<Long> ids, @Param("expected") int expectedCode);
+
+    // 批量条件更新：一条 UPDATE ... WHERE id IN (...) AND status = ?
+    @Modifying(flushAutomatically = true)
+    @Query("update Order o set o.status = :target, o.updateTime = :now where o.id in :ids and o.status = :expected")
+    int transitionStatuses(@Param("ids") Collection<Long> ids,
+                           @Param("expected") OrderStatus expected,
+                           @Param("target") OrderStatus target,
+                           @Param("now") LocalDateTime now);
+
+    // 区分 NOT_FOUND / NOT_ALLOWED
+    @Query("select o.id from Order o where o.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // 归档：按 id 顺序锁定一批可归档的终态订单（调用方使用 READ COMMITTED，不匹配的行不保留锁）
+    @Query(value = "SELECT id FROM orders WHERE id > :after AND create_time < :cutoff AND status IN (:statuses) ORDER BY id LIMIT :limit FOR UPDATE",
+            nativeQuery = true)
+    List<Number> lockArchivable(@Param("after") long after,
+                                @Param("cutoff") LocalDateTime cutoff,
+                                @Param("statuses") Collection<Integer> statusCodes,
+                                @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "INSERT INTO orders_archive (id, product_name, customer, total_amount, currency, status, create_time, update_time, archive_time) "
+            + "SELECT id, product_name, customer, total_amount, currency, status, create_time, update_time, :now FROM orders WHERE id IN (:ids)",
+            nativeQuery = true)
+    int copyToArchive(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = "DELETE FROM orders WHERE id IN (:ids)", nativeQuery = true)
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    // 已归档订单：GET /orders/{id} 与状态变更的存在性判断在热表未命中时再查归档表
+    @Query("select new com.interview.order.repository.OrderRow(o.id, o.productName, o.customer, o.totalAmount, o.currency, o.status, o.createTime, o.updateTime) from ArchivedOrder o where o.id = :id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    Optional<OrderRow> findArchivedRowById(@Param("id") Long id);
+
+    @Query("select o.id from ArchivedOrder o where o.id in :ids")
+    List<Long> findArchivedIds(@Param("ids") Collection<Long> ids);
+
+    // 订单所属客户：状态变更事件不携带 customer，推送流按客户过滤时批量补齐
+    @Query("select new com.interview.order.repository.OrderCustomer(o.id, o.customer) from Order o where o.id in :ids")
+    List<OrderCustomer> findCustomers(@Param("ids") Collection<Long> ids);
+
+    // 只读投影：GET /orders/{id} 只需要响应列，不加载托管实体
+    @Query("select new com.interview.order.repository.OrderRow(o.id, o.productName, o.customer, o.totalAmount, o.currency, o.status, o.createTime, o.updateTime) from Order o where o.id = :id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    Optional<OrderRow> findRowById(@Param("id") Long id);
 }
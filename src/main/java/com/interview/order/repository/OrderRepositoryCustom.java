@@ -2,16 +2,49 @@ package com.interview.order.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import com.interview.order.entity.Order;
+import org.springframework.data.domain.Slice;
 import com.interview.order.entity.OrderStatus;
 import java.time.LocalDateTime;
+import java.util.stream.Stream;
 
 public interface OrderRepositoryCustom {
     // 动态查询接口，使用 Criteria API 实现以避免字符串拼接 SQL/JPQL
-    Page<Order> search(String productName,
-                       String customer,
-                       OrderStatus status,
-                       LocalDateTime startTime,
-                       LocalDateTime endTime,
-                       Pageable pageable);
+    // 只读投影：结果为 OrderRow，不加载托管实体
+    // 时间范围可能覆盖已归档订单时（status 不是 CREATED 且 startTime 早于归档边界），同时查询 orders_archive
+    Page<OrderRow> search(String productName,
+                          String customer,
+                          OrderStatus status,
+                          LocalDateTime startTime,
+                          LocalDateTime endTime,
+                          Pageable pageable);
+
+    // Same filters, but the caller chooses how (and whether) the total is computed.
+    // totalCap only applies to TotalMode.CAPPED.
+    OrderSearchPage search(String productName,
+                           String customer,
+                           OrderStatus status,
+                           LocalDateTime startTime,
+                           LocalDateTime endTime,
+                           Pageable pageable,
+                           TotalMode totalMode,
+                           int totalCap);
+
+    // Forward-only stream of projection rows ordered by id, fetched fetchSize rows at a time; when the search
+    // reaches the archive, archived rows (also by id) follow the hot ones. Must be consumed and closed inside a transaction.
+    Stream<OrderRow> streamRows(String productName,
+                                String customer,
+                                OrderStatus status,
+                                LocalDateTime startTime,
+                                LocalDateTime endTime,
+                                int fetchSize);
+
+    // Keyset paging ordered by (createTime DESC, id DESC); a null cursor starts from the newest order.
+    // Cost is independent of how deep the client has paged, and no count query is issued.
+    Slice<OrderRow> searchAfter(String productName,
+                                String customer,
+                                OrderStatus status,
+                                LocalDateTime startTime,
+                                LocalDateTime endTime,
+                                OrderCursor cursor,
+                                int limit);
 }
@@ -1,118 +1,416 @@
 package com.interview.order.repository;
 
-import com.interview.order.entity.Order;
 import com.interview.order.entity.OrderStatus;
+import com.interview.order.repository.OrderSearchQueries.Table;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.Tuple;
 import jakarta.persistence.TypedQuery;
-import jakarta.persistence.criteria.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Repository
 @Transactional(readOnly = true)
 public class OrderRepositoryImpl implements OrderRepositoryCustom {
 
+    private static final Logger logger = LoggerFactory.getLogger(OrderRepositoryImpl.class);
+
+    // order of keyset pages and of the ranking's tie-break: createTime DESC, id DESC (MySQL sorts NULL last in DESC)
+    private static final Comparator<OrderRow> NEWEST_FIRST = Comparator
+            .comparing(OrderRow::createTime, Comparator.nullsLast(Comparator.<LocalDateTime>reverseOrder()))
+            .thenComparing(OrderRow::id, Comparator.reverseOrder());
+
+    // native counterpart of the OrderRow constructor expression, read back by toRow()
+    private static final String ROW_COLUMNS = "o.id, o.product_name, o.customer, o.total_amount, o.currency, o.status, o.create_time, o.update_time";
+
     @PersistenceContext
     private EntityManager em;
 
+    // EXPLAIN row estimates are only read on MySQL; resolved lazily from the connection metadata
+    private volatile Boolean mysql;
+
+    // order.search.query{query=...}: content (row fetch) and count statements timed separately
+    private final Timer contentTimer;
+    private final Timer countTimer;
+    private final Timer windowTimer;
+    private final Timer cappedCountTimer;
+    private final Timer estimateTimer;
+    private final Timer cursorTimer;
+
+    // orders_archive only holds terminal orders created more than this many days ago (see OrderArchiver)
+    private final long archiveMinAgeDays;
+
+    public OrderRepositoryImpl(MeterRegistry meterRegistry, @Value("${order.archive.min-age-days:180}") long archiveMinAgeDays) {
+        this.archiveMinAgeDays = archiveMinAgeDays;
+        this.contentTimer = queryTimer(meterRegistry, "content");
+        this.countTimer = queryTimer(meterRegistry, "count");
+        this.windowTimer = queryTimer(meterRegistry, "window");
+        this.cappedCountTimer = queryTimer(meterRegistry, "capped_count");
+        this.estimateTimer = queryTimer(meterRegistry, "estimate");
+        this.cursorTimer = queryTimer(meterRegistry, "cursor");
+    }
+
+    private static Timer queryTimer(MeterRegistry meterRegistry, String query) {
+        return Timer.builder("order.search.query").tag("query", query).publishPercentileHistogram().register(meterRegistry);
+    }
+
     @Override
-    public Page<Order> search(String productName, String customer, OrderStatus status, LocalDateTime startTime, LocalDateTime endTime, Pageable pageable) {
-        CriteriaBuilder cb = em.getCriteriaBuilder();
+    public Page<OrderRow> search(String productName, String customer, OrderStatus status, LocalDateTime startTime, LocalDateTime endTime, Pageable pageable) {
+        OrderSearchQueries.Filter filter = OrderSearchQueries.Filter.of(productName, customer, status, startTime, endTime);
+        boolean archive = reachesArchive(status, startTime);
 
-        // 主查询
-        CriteriaQuery<Order> cq = cb.createQuery(Order.class);
-        Root<Order> root = cq.from(Order.class);
-        List<Predicate> predicates = new ArrayList<>();
+        // 主查询：只选响应需要的列（可根据 pageable 的 Sort 添加 order by，此处简化为不处理 Sort）
+        List<OrderRow> content = pageRows(filter, pageable.getOffset(), pageable.getPageSize(), archive);
 
-        // 参数表达式（命名参数）
-        ParameterExpression<String> pProduct = cb.parameter(String.class, "productName");
-        ParameterExpression<String> pCustomer = cb.parameter(String.class, "customer");
-        ParameterExpression<OrderStatus> pStatus = cb.parameter(OrderStatus.class, "status");
-        ParameterExpression<LocalDateTime> pStart = cb.parameter(LocalDateTime.class, "startTime");
-        ParameterExpression<LocalDateTime> pEnd = cb.parameter(LocalDateTime.class, "endTime");
+        // 计数查询：当前页已能确定总数时（首页未满或最后一页）不再执行 COUNT
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(filter, archive));
+    }
 
-        if (productName != null) {
-            // 使用参数绑定构造 LIKE，避免字符串直接拼接到 JPQL/SQL
-            Expression<String> lowered = cb.lower(root.get("productName"));
-            // pattern: '%' || lower(:productName) || '%'
-            Expression<String> pattern = cb.concat(cb.concat(cb.literal("%"), cb.lower(pProduct)), cb.literal("%"));
-            predicates.add(cb.like(lowered, pattern));
+    @Override
+    public OrderSearchPage search(String productName, String customer, OrderStatus status, LocalDateTime startTime, LocalDateTime endTime, Pageable pageable, TotalMode totalMode, int totalCap) {
+        long offset = pageable.getOffset();
+        int size = pageable.getPageSize();
+        OrderSearchQueries.Filter filter = OrderSearchQueries.Filter.of(productName, customer, status, startTime, endTime);
+        boolean archive = reachesArchive(status, startTime);
+
+        List<OrderRow> rows;
+        Long windowTotal = null;
+        // the window total covers one table only; with the archive involved EXACT_WINDOW falls back to a count
+        if (totalMode == TotalMode.EXACT_WINDOW && !archive) {
+            NativeFilter windowFilter = nativeFilter(productName, customer, status, startTime, endTime);
+            String orderBy = "";
+            if (productName != null) {
+                orderBy = " ORDER BY CASE WHEN LOWER(o.product_name) = LOWER(?) THEN 0 WHEN LOWER(o.product_name) LIKE CONCAT(LOWER(?), '%') THEN 1 ELSE 2 END, o.create_time DESC, o.id DESC";
+                windowFilter = windowFilter.with(productName, productName);
+            }
+            Query query = em.createNativeQuery("SELECT " + ROW_COLUMNS + ", COUNT(*) OVER() AS total_count FROM " + tableName(Table.HOT) + " o" + windowFilter.where() + orderBy, Tuple.class);
+            windowFilter.bind(query);
+            query.setFirstResult((int) offset);
+            query.setMaxResults(size + 1);
+            @SuppressWarnings("unchecked")
+            List<Tuple> result = windowTimer.record(() -> query.getResultList());
+            rows = new ArrayList<>(result.size());
+            for (Tuple row : result) {
+                rows.add(toRow(row));
+                windowTotal = ((Number) row.get("total_count")).longValue();
+            }
+        } else {
+            // one extra row tells us whether a next page exists
+            rows = pageRows(filter, offset, size + 1, archive);
         }
-        if (customer != null) {
-            predicates.add(cb.equal(root.get("customer"), pCustomer));
+
+        boolean hasNext = rows.size() > size;
+        List<OrderRow> content = hasNext ? rows.subList(0, size) : rows;
+
+        if (totalMode == TotalMode.NONE) {
+            return new OrderSearchPage(content, null, OrderSearchPage.TotalKind.NONE, hasNext);
         }
-        if (status != null) {
-            predicates.add(cb.equal(root.get("status"), pStatus));
+        // the page reached the end of the result: total is known without asking the database
+        if (!hasNext && (!content.isEmpty() || offset == 0)) {
+            return new OrderSearchPage(content, offset + content.size(), OrderSearchPage.TotalKind.EXACT, false);
         }
-        if (startTime != null) {
-            predicates.add(cb.greaterThanOrEqualTo(root.get("createTime"), pStart));
+
+        switch (totalMode) {
+            case EXACT_WINDOW:
+                if (windowTotal != null) {
+                    return new OrderSearchPage(content, windowTotal, OrderSearchPage.TotalKind.EXACT, hasNext);
+                }
+                // page past the end carries no window value; fall through to a plain count
+            case EXACT:
+                return new OrderSearchPage(content, count(filter, archive), OrderSearchPage.TotalKind.EXACT, hasNext);
+            case CAPPED: {
+                long capped = cappedCount(productName, customer, status, startTime, endTime, totalCap, Table.HOT);
+                if (archive && capped <= totalCap) {
+                    capped += cappedCount(productName, customer, status, startTime, endTime, totalCap - (int) capped, Table.ARCHIVE);
+                }
+                return capped > totalCap
+                        ? new OrderSearchPage(content, (long) totalCap, OrderSearchPage.TotalKind.AT_LEAST, hasNext)
+                        : new OrderSearchPage(content, capped, OrderSearchPage.TotalKind.EXACT, hasNext);
+            }
+            case APPROXIMATE: {
+                Long estimate = estimateCount(productName, customer, status, startTime, endTime, Table.HOT);
+                if (estimate != null && archive) {
+                    Long archived = estimateCount(productName, customer, status, startTime, endTime, Table.ARCHIVE);
+                    estimate = archived == null ? null : estimate + archived;
+                }
+                if (estimate == null) {
+                    return new OrderSearchPage(content, count(filter, archive), OrderSearchPage.TotalKind.EXACT, hasNext);
+                }
+                // never report fewer rows than the client can already see
+                long seen = offset + content.size() + (hasNext ? 1 : 0);
+                return new OrderSearchPage(content, Math.max(estimate, seen), OrderSearchPage.TotalKind.APPROXIMATE, hasNext);
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported total mode: " + totalMode);
         }
-        if (endTime != null) {
-            predicates.add(cb.lessThanOrEqualTo(root.get("createTime"), pEnd));
+    }
+
+    @Override
+    public Stream<OrderRow> streamRows(String productName, String customer, OrderStatus status, LocalDateTime startTime, LocalDateTime endTime, int fetchSize) {
+        OrderSearchQueries.Filter filter = OrderSearchQueries.Filter.of(productName, customer, status, startTime, endTime);
+        if (!reachesArchive(status, startTime)) return streamRows(filter, Table.HOT, fetchSize);
+        // archived rows follow the hot ones; the archive query only starts once the hot stream is drained,
+        // so at most one cursor is open at a time
+        return Stream.<Supplier<Stream<OrderRow>>>of(() -> streamRows(filter, Table.HOT, fetchSize), () -> streamRows(filter, Table.ARCHIVE, fetchSize))
+                .flatMap(Supplier::get);
+    }
+
+    private Stream<OrderRow> streamRows(OrderSearchQueries.Filter filter, Table table, int fetchSize) {
+        TypedQuery<OrderRow> query = readOnly(filter.bind(em.createQuery(OrderSearchQueries.stream(filter, table), OrderRow.class)));
+        // fetch size bounds what the driver buffers (MySQL: useCursorFetch=true)
+        query.setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize);
+        return query.getResultStream();
+    }
+
+    @Override
+    public Slice<OrderRow> searchAfter(String productName, String customer, OrderStatus status, LocalDateTime startTime, LocalDateTime endTime, OrderCursor cursor, int limit) {
+        OrderSearchQueries.Filter filter = OrderSearchQueries.Filter.of(productName, customer, status, startTime, endTime);
+
+        // fetch one extra row to learn whether a next page exists without counting
+        List<OrderRow> rows = keysetRows(filter, cursor, limit + 1, Table.HOT);
+        if (reachesArchive(status, startTime)) {
+            // archived rows are all older than the boundary: a full hot page ending at or after it is final
+            OrderRow last = rows.isEmpty() ? null : rows.get(rows.size() - 1);
+            boolean hotPageFinal = rows.size() > limit && last.createTime() != null && !last.createTime().isBefore(archiveBoundary());
+            if (!hotPageFinal) rows = merge(rows, keysetRows(filter, cursor, limit + 1, Table.ARCHIVE), NEWEST_FIRST, 0, limit + 1);
+        }
+        boolean hasNext = rows.size() > limit;
+        List<OrderRow> content = hasNext ? rows.subList(0, limit) : rows;
+
+        return new SliceImpl<>(content, PageRequest.of(0, limit), hasNext);
+    }
+
+    private List<OrderRow> keysetRows(OrderSearchQueries.Filter filter, OrderCursor cursor, int limit, Table table) {
+        TypedQuery<OrderRow> query = readOnly(filter.bind(em.createQuery(OrderSearchQueries.keyset(filter, cursor != null, table), OrderRow.class)));
+        if (cursor != null) {
+            query.setParameter("cursorTime", cursor.createTime());
+            query.setParameter("cursorId", cursor.id());
         }
+        query.setMaxResults(limit);
+        return cursorTimer.record(() -> query.getResultList());
+    }
 
-        cq.where(predicates.toArray(new Predicate[0]));
+    /**
+     * Up to {@code limit} rows of the offset page across the hot table and, when the search reaches it, the archive.
+     * Unranked searches have no defined order and list hot rows before archived ones; ranked (product name)
+     * searches merge the top {@code offset + limit} rows of both tables so the ranking holds across them.
+     */
+    private List<OrderRow> pageRows(OrderSearchQueries.Filter filter, long offset, int limit, boolean archive) {
+        if (!archive) return pageQuery(filter, Table.HOT, offset, limit);
+        if (filter.productName() != null) {
+            int top = (int) Math.min(Integer.MAX_VALUE, offset + limit);
+            return merge(pageQuery(filter, Table.HOT, 0, top), pageQuery(filter, Table.ARCHIVE, 0, top),
+                    ranking(filter.productName()), (int) offset, limit);
+        }
+        List<OrderRow> hot = pageQuery(filter, Table.HOT, offset, limit);
+        if (hot.size() == limit) return hot;
+        // the hot rows ran out on this page: archived rows continue from where they ended
+        long archiveOffset = hot.isEmpty() && offset > 0 ? Math.max(0, offset - count(filter, Table.HOT)) : 0;
+        List<OrderRow> rows = new ArrayList<>(limit);
+        rows.addAll(hot);
+        rows.addAll(pageQuery(filter, Table.ARCHIVE, archiveOffset, limit - hot.size()));
+        return rows;
+    }
 
-        // 可根据 pageable 的 Sort 添加 order by（此处简化为不处理 Sort）
-        TypedQuery<Order> query = em.createQuery(cq);
+    private List<OrderRow> pageQuery(OrderSearchQueries.Filter filter, Table table, long offset, int limit) {
+        TypedQuery<OrderRow> query = readOnly(filter.bind(em.createQuery(OrderSearchQueries.page(filter, table), OrderRow.class)));
+        query.setFirstResult((int) offset);
+        query.setMaxResults(limit);
+        return contentTimer.record(() -> query.getResultList());
+    }
 
-        // 绑定参数到主查询（只在对应值非 null 时绑定）
-        if (productName != null) query.setParameter("productName", productName);
-        if (customer != null) query.setParameter("customer", customer);
-        if (status != null) query.setParameter("status", status);
-        if (startTime != null) query.setParameter("startTime", startTime);
-        if (endTime != null) query.setParameter("endTime", endTime);
+    // the product ranking of OrderSearchQueries: exact match, then prefix match, then the rest, newest first;
+    // compared accent-folded like the column collation, so the merge agrees with each table's own order
+    private static Comparator<OrderRow> ranking(String productName) {
+        String term = ProductTokens.normalize(productName);
+        return Comparator.<OrderRow>comparingInt(row -> {
+            String name = row.productName() == null ? "" : ProductTokens.normalize(row.productName());
+            return name.equals(term) ? 0 : name.startsWith(term) ? 1 : 2;
+        }).thenComparing(NEWEST_FIRST);
+    }
 
-        // 分页
-        query.setFirstResult((int) pageable.getOffset());
-        query.setMaxResults(pageable.getPageSize());
-        List<Order> content = query.getResultList();
+    // merges two lists sorted by order and returns [skip, skip + limit) of the result
+    private static List<OrderRow> merge(List<OrderRow> a, List<OrderRow> b, Comparator<OrderRow> order, int skip, int limit) {
+        List<OrderRow> merged = new ArrayList<>(Math.min(a.size() + b.size(), skip + limit));
+        int i = 0;
+        int j = 0;
+        while (merged.size() < skip + limit && (i < a.size() || j < b.size())) {
+            if (j >= b.size() || (i < a.size() && order.compare(a.get(i), b.get(j)) <= 0)) {
+                merged.add(a.get(i++));
+            } else {
+                merged.add(b.get(j++));
+            }
+        }
+        return skip >= merged.size() ? List.of() : merged.subList(skip, merged.size());
+    }
 
-        // 计数查询
-        CriteriaQuery<Long> countQ = cb.createQuery(Long.class);
-        Root<Order> countRoot = countQ.from(Order.class);
-        List<Predicate> countPredicates = new ArrayList<>();
+    // terminal orders created before this instant may have been archived
+    private LocalDateTime archiveBoundary() {
+        return LocalDateTime.now().minusDays(archiveMinAgeDays);
+    }
+
+    // whether matching orders can be in the archive: never for CREATED, otherwise unless the range starts after the boundary
+    private boolean reachesArchive(OrderStatus status, LocalDateTime startTime) {
+        if (status == OrderStatus.CREATED) return false;
+        return startTime == null || startTime.isBefore(archiveBoundary());
+    }
+
+    private long count(OrderSearchQueries.Filter filter, boolean archive) {
+        return archive ? count(filter, Table.HOT) + count(filter, Table.ARCHIVE) : count(filter, Table.HOT);
+    }
+
+    private long count(OrderSearchQueries.Filter filter, Table table) {
+        TypedQuery<Long> countQuery = filter.bind(em.createQuery(OrderSearchQueries.count(filter, table), Long.class));
+        return countTimer.record(() -> countQuery.getSingleResult());
+    }
 
+    private static String tableName(Table table) {
+        return table == Table.HOT ? "orders" : "orders_archive";
+    }
+
+    // 最多数 cap+1 行即停止扫描
+    private long cappedCount(String productName, String customer, OrderStatus status, LocalDateTime startTime, LocalDateTime endTime, int cap, Table table) {
+        NativeFilter filter = nativeFilter(productName, customer, status, startTime, endTime);
+        Query query = em.createNativeQuery("SELECT COUNT(*) FROM (SELECT 1 FROM " + tableName(table) + " o" + filter.where() + " LIMIT " + (Math.max(0, cap) + 1) + ") capped");
+        filter.bind(query);
+        return ((Number) cappedCountTimer.record(() -> query.getSingleResult())).longValue();
+    }
+
+    // MySQL 优化器估算行数（rows * filtered%），非 MySQL 返回 null
+    private Long estimateCount(String productName, String customer, OrderStatus status, LocalDateTime startTime, LocalDateTime endTime, Table table) {
+        if (!isMysql()) return null;
+        NativeFilter filter = nativeFilter(productName, customer, status, startTime, endTime);
+        Query query = em.createNativeQuery("EXPLAIN SELECT 1 FROM " + tableName(table) + " o" + filter.where(), Tuple.class);
+        filter.bind(query);
+        @SuppressWarnings("unchecked")
+        List<Tuple> plan = estimateTimer.record(() -> query.getResultList());
+        if (plan.isEmpty()) return null;
+        Tuple row = plan.get(0);
+        Number rows = (Number) row.get("rows");
+        Number filtered = (Number) row.get("filtered");
+        if (rows == null) return null;
+        double pct = filtered == null ? 100.0 : filtered.doubleValue();
+        return Math.round(rows.doubleValue() * pct / 100.0);
+    }
+
+    private boolean isMysql() {
+        Boolean cached = mysql;
+        if (cached == null) {
+            try {
+                String product = em.unwrap(Session.class).doReturningWork(conn -> conn.getMetaData().getDatabaseProductName());
+                cached = product != null && product.toLowerCase(Locale.ROOT).contains("mysql");
+            } catch (RuntimeException ex) {
+                logger.warn("isMysql: could not determine database product, approximate totals disabled: {}", ex.getMessage());
+                cached = Boolean.FALSE;
+            }
+            mysql = cached;
+        }
+        return cached;
+    }
+
+    // 原生 SQL 版本的过滤条件（窗口计数、限量计数、EXPLAIN 使用），依旧只做参数绑定
+    private NativeFilter nativeFilter(String productName, String customer, OrderStatus status, LocalDateTime startTime, LocalDateTime endTime) {
+        StringBuilder where = new StringBuilder();
+        List<Object> params = new ArrayList<>();
         if (productName != null) {
-            Expression<String> lowered = cb.lower(countRoot.get("productName"));
-            Expression<String> pattern = cb.concat(cb.concat(cb.literal("%"), cb.lower(cb.parameter(String.class, "productName"))), cb.literal("%"));
-            countPredicates.add(cb.like(lowered, pattern));
+            Set<String> tokens = ProductTokens.query(productName);
+            if (customer != null && !tokens.isEmpty()) {
+                appendCondition(where, "o.id IN (SELECT t.order_id FROM order_product_token t WHERE t.customer = ? AND t.token IN ("
+                        + String.join(", ", Collections.nCopies(tokens.size(), "?"))
+                        + ") GROUP BY t.order_id HAVING COUNT(DISTINCT t.token) = " + tokens.size() + ")");
+                params.add(customer);
+                params.addAll(tokens);
+            }
+            appendCondition(where, "LOWER(o.product_name) LIKE CONCAT('%', LOWER(?), '%')");
+            params.add(productName);
         }
         if (customer != null) {
-            countPredicates.add(cb.equal(countRoot.get("customer"), cb.parameter(String.class, "customer")));
+            appendCondition(where, "o.customer = ?");
+            params.add(customer);
         }
         if (status != null) {
-            countPredicates.add(cb.equal(countRoot.get("status"), cb.parameter(OrderStatus.class, "status")));
+            appendCondition(where, "o.status = ?");
+            params.add(status.getCode());
         }
         if (startTime != null) {
-            countPredicates.add(cb.greaterThanOrEqualTo(countRoot.get("createTime"), cb.parameter(LocalDateTime.class, "startTime")));
+            appendCondition(where, "o.create_time >= ?");
+            params.add(startTime);
         }
         if (endTime != null) {
-            countPredicates.add(cb.lessThanOrEqualTo(countRoot.get("createTime"), cb.parameter(LocalDateTime.class, "endTime")));
+            appendCondition(where, "o.create_time <= ?");
+            params.add(endTime);
+        }
+        return new NativeFilter(where.toString(), params);
+    }
+
+    private static void appendCondition(StringBuilder where, String condition) {
+        where.append(where.length() == 0 ? " WHERE " : " AND ").append(condition);
+    }
+
+    private record NativeFilter(String where, List<Object> params) {
+        // parameters for placeholders that follow the WHERE clause
+        NativeFilter with(Object... trailing) {
+            List<Object> all = new ArrayList<>(params);
+            all.addAll(Arrays.asList(trailing));
+            return new NativeFilter(where, all);
         }
 
-        countQ.select(cb.count(countRoot));
-        if (!countPredicates.isEmpty()) {
-            countQ.where(countPredicates.toArray(new Predicate[0]));
+        void bind(Query query) {
+            for (int i = 0; i < params.size(); i++) {
+                query.setParameter(i + 1, params.get(i));
+            }
         }
+    }
 
-        TypedQuery<Long> countQuery = em.createQuery(countQ);
-        if (productName != null) countQuery.setParameter("productName", productName);
-        if (customer != null) countQuery.setParameter("customer", customer);
-        if (status != null) countQuery.setParameter("status", status);
-        if (startTime != null) countQuery.setParameter("startTime", startTime);
-        if (endTime != null) countQuery.setParameter("endTime", endTime);
+    private static <T> TypedQuery<T> readOnly(TypedQuery<T> query) {
+        query.setHint(HibernateHints.HINT_READ_ONLY, true);
+        return query;
+    }
 
-        long total = countQuery.getSingleResult();
+    private static OrderRow toRow(Tuple t) {
+        Number status = (Number) t.get("status");
+        Object amount = t.get("total_amount");
+        return new OrderRow(
+                ((Number) t.get("id")).longValue(),
+                (String) t.get("product_name"),
+                (String) t.get("customer"),
+                amount == null ? null : amount instanceof BigDecimal bd ? bd : new BigDecimal(amount.toString()),
+                (String) t.get("currency"),
+                status == null ? null : OrderStatus.fromCode(status.intValue()),
+                toLocalDateTime(t.get("create_time")),
+                toLocalDateTime(t.get("update_time")));
+    }
 
-        return new PageImpl<>(content, pageable, total);
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp ts) return ts.toLocalDateTime();
+        return (LocalDateTime) value;
     }
 }
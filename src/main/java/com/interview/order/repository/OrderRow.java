@@ -0,0 +1,20 @@
+package com.interview.order.repository;
+
+import com.interview.order.entity.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of an order row. Selected with a constructor expression, so it is never
+ * attached to the persistence context.
+ */
+public record OrderRow(Long id,
+                       String productName,
+                       String customer,
+                       BigDecimal totalAmount,
+                       String currency,
+                       OrderStatus status,
+                       LocalDateTime createTime,
+                       LocalDateTime updateTime) {
+}
@@ -0,0 +1,20 @@
+package com.interview.order.repository;
+
+import java.util.List;
+
+/**
+ * One page of search results together with a total whose precision depends on the requested {@link TotalMode}.
+ *
+ * @param total     null when {@code totalKind} is {@link TotalKind#NONE}
+ * @param hasNext   whether more rows follow this page, always exact
+ */
+public record OrderSearchPage(List<OrderRow> content, Long total, TotalKind totalKind, boolean hasNext) {
+
+    public enum TotalKind {
+        EXACT,
+        APPROXIMATE,
+        // the real total is greater than {@code total}
+        AT_LEAST,
+        NONE
+    }
+}
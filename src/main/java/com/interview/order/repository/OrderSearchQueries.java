@@ -0,0 +1,167 @@
+package com.interview.order.repository;
+
+import com.interview.order.entity.OrderStatus;
+
+import jakarta.persistence.TypedQuery;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * JPQL for every search filter combination, built once per filter-presence bitmask at class load.
+ * <p>
+ * The statements are assembled only from the constant fragments below and take every value as a named
+ * parameter, so request data never reaches the query text. Because the text for a given combination is
+ * always the same string, Hibernate's query plan cache parses and translates it once; a search only looks
+ * up its string and binds parameters instead of building and translating a Criteria tree per call.
+ */
+public final class OrderSearchQueries {
+
+    static final int PRODUCT = 1;
+    // product name long enough for the trigram index (needs customer too)
+    static final int PRODUCT_INDEXED = 1 << 1;
+    static final int CUSTOMER = 1 << 2;
+    static final int STATUS = 1 << 3;
+    static final int START = 1 << 4;
+    static final int END = 1 << 5;
+    static final int COMBINATIONS = 1 << 6;
+
+    private static final String ROW_SELECT = "select new com.interview.order.repository.OrderRow("
+            + "o.id, o.productName, o.customer, o.totalAmount, o.currency, o.status, o.createTime, o.updateTime) from ";
+    // 商品名检索排序：完全匹配 > 前缀匹配 > 其他，同级按创建时间倒序
+    private static final String PRODUCT_RANKING = " order by case when lower(o.productName) = lower(:productName) then 0"
+            + " when lower(o.productName) like concat(lower(:productName), '%') then 1 else 2 end, o.createTime desc, o.id desc";
+    private static final String NEWEST_FIRST = " order by o.createTime desc, o.id desc";
+    // seek: createTime < :t OR (createTime = :t AND id < :id), served by the (create_time, id) index order
+    private static final String AFTER_CURSOR = "(o.createTime < :cursorTime or (o.createTime = :cursorTime and o.id < :cursorId))";
+
+    /**
+     * Where the rows live: the hot orders table or the archive of old terminal orders. Both entities map the
+     * same attribute names, so each statement differs only in its FROM.
+     */
+    public enum Table {
+        HOT("Order"),
+        ARCHIVE("ArchivedOrder");
+
+        private final String entity;
+        private final String[] page = new String[COMBINATIONS];
+        private final String[] count = new String[COMBINATIONS];
+        private final String[] stream = new String[COMBINATIONS];
+        private final String[] first = new String[COMBINATIONS];
+        private final String[] after = new String[COMBINATIONS];
+
+        Table(String entity) {
+            this.entity = entity;
+        }
+    }
+
+    static {
+        for (Table table : Table.values()) {
+            String row = ROW_SELECT + table.entity + " o";
+            for (int mask = 0; mask < COMBINATIONS; mask++) {
+                StringBuilder where = new StringBuilder();
+                if ((mask & PRODUCT_INDEXED) != 0) {
+                    // 先用 trigram 索引缩小候选集，再用 LIKE 校验
+                    and(where, "o.id in (select t.orderId from OrderProductToken t where t.customer = :customer and t.token in :tokens"
+                            + " group by t.orderId having count(distinct t.token) = :tokenCount)");
+                }
+                if ((mask & PRODUCT) != 0) and(where, "lower(o.productName) like concat('%', lower(:productName), '%')");
+                if ((mask & CUSTOMER) != 0) and(where, "o.customer = :customer");
+                if ((mask & STATUS) != 0) and(where, "o.status = :status");
+                if ((mask & START) != 0) and(where, "o.createTime >= :startTime");
+                if ((mask & END) != 0) and(where, "o.createTime <= :endTime");
+
+                table.page[mask] = row + where + ((mask & PRODUCT) != 0 ? PRODUCT_RANKING : "");
+                table.count[mask] = "select count(o) from " + table.entity + " o" + where;
+                table.stream[mask] = row + where + " order by o.id asc";
+                table.first[mask] = row + where + NEWEST_FIRST;
+                table.after[mask] = row + new StringBuilder(where).append(where.length() == 0 ? " where " : " and ").append(AFTER_CURSOR) + NEWEST_FIRST;
+            }
+        }
+    }
+
+    private OrderSearchQueries() {
+    }
+
+    private static void and(StringBuilder where, String condition) {
+        where.append(where.length() == 0 ? " where " : " and ").append(condition);
+    }
+
+    /**
+     * Offset page of rows; ranked by product name match when a product name is given.
+     */
+    public static String page(Filter filter) {
+        return page(filter, Table.HOT);
+    }
+
+    public static String page(Filter filter, Table table) {
+        return table.page[filter.mask()];
+    }
+
+    public static String count(Filter filter) {
+        return count(filter, Table.HOT);
+    }
+
+    public static String count(Filter filter, Table table) {
+        return table.count[filter.mask()];
+    }
+
+    /**
+     * Every matching row ordered by id, for exports.
+     */
+    public static String stream(Filter filter) {
+        return stream(filter, Table.HOT);
+    }
+
+    public static String stream(Filter filter, Table table) {
+        return table.stream[filter.mask()];
+    }
+
+    /**
+     * Keyset page ordered by (createTime DESC, id DESC); with a cursor it also binds :cursorTime and :cursorId.
+     */
+    public static String keyset(Filter filter, boolean hasCursor) {
+        return keyset(filter, hasCursor, Table.HOT);
+    }
+
+    public static String keyset(Filter filter, boolean hasCursor, Table table) {
+        return hasCursor ? table.after[filter.mask()] : table.first[filter.mask()];
+    }
+
+    /**
+     * Search filter values; null fields are not filtered on.
+     */
+    public record Filter(String productName, String customer, OrderStatus status, LocalDateTime startTime, LocalDateTime endTime,
+                         Set<String> tokens) {
+
+        public static Filter of(String productName, String customer, OrderStatus status, LocalDateTime startTime, LocalDateTime endTime) {
+            Set<String> tokens = productName != null && customer != null ? ProductTokens.query(productName) : Set.of();
+            return new Filter(productName, customer, status, startTime, endTime, tokens);
+        }
+
+        int mask() {
+            int mask = 0;
+            if (productName != null) mask |= PRODUCT;
+            if (!tokens.isEmpty()) mask |= PRODUCT_INDEXED;
+            if (customer != null) mask |= CUSTOMER;
+            if (status != null) mask |= STATUS;
+            if (startTime != null) mask |= START;
+            if (endTime != null) mask |= END;
+            return mask;
+        }
+
+        // 绑定参数（只在对应值非 null 时绑定）
+        public <T> TypedQuery<T> bind(TypedQuery<T> query) {
+            if (productName != null) query.setParameter("productName", productName);
+            if (!tokens.isEmpty()) {
+                query.setParameter("tokens", tokens);
+                query.setParameter("tokenCount", (long) tokens.size());
+            }
+            if (customer != null) query.setParameter("customer", customer);
+            if (status != null) query.setParameter("status", status);
+            if (startTime != null) query.setParameter("startTime", startTime);
+            if (endTime != null) query.setParameter("endTime", endTime);
+            return query;
+        }
+    }
+}
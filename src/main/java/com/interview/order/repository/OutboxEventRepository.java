@@ -0,0 +1,28 @@
+package com.interview.order.repository;
+
+import com.interview.order.entity.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // FOR UPDATE SKIP LOCKED (-2): several relay instances can drain the outbox without handing out the same row twice
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select e from OutboxEvent e where e.nextAttemptTime <= :now order by e.nextAttemptTime, e.id")
+    List<OutboxEvent> lockDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Query("select min(e.createTime) from OutboxEvent e")
+    LocalDateTime findOldestCreateTime();
+}
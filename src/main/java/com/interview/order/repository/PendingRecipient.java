@@ -0,0 +1,7 @@
+package com.interview.order.repository;
+
+/**
+ * A (channel, recipient) pair with pending notifications.
+ */
+public record PendingRecipient(String channel, String recipient) {
+}
@@ -0,0 +1,55 @@
+package com.interview.order.repository;
+
+import java.text.Normalizer;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Trigram tokenizer shared by the product token index writer and the search query.
+ */
+public final class ProductTokens {
+
+    public static final int GRAM = 3;
+    // longer queries are narrowed by their first trigrams and verified with LIKE
+    public static final int MAX_QUERY_TOKENS = 16;
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private ProductTokens() {
+    }
+
+    /**
+     * Lowercase with accents removed, the way the utf8mb4_0900_ai_ci collation of orders.product_name compares
+     * ('Café' = 'cafe'), so the index never rules out a row the LIKE check would accept.
+     */
+    public static String normalize(String value) {
+        String decomposed = Normalizer.normalize(value.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("");
+    }
+
+    /**
+     * Distinct trigrams of a product name; names shorter than a trigram produce no tokens.
+     */
+    public static Set<String> index(String productName) {
+        return grams(productName, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Trigrams a matching product name must contain, or an empty set when the query is too short to use the index.
+     */
+    public static Set<String> query(String productName) {
+        return grams(productName, MAX_QUERY_TOKENS);
+    }
+
+    private static Set<String> grams(String value, int limit) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (value == null) return tokens;
+        String s = normalize(value);
+        for (int i = 0; i + GRAM <= s.length() && tokens.size() < limit; i++) {
+            tokens.add(s.substring(i, i + GRAM));
+        }
+        return tokens;
+    }
+}
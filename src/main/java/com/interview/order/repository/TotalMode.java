@@ -0,0 +1,41 @@
+package com.interview.order.repository;
+
+import java.util.Locale;
+
+/**
+ * How {@link OrderRepositoryCustom#search} should compute the total of a search.
+ */
+public enum TotalMode {
+    // separate COUNT(*) query (skipped when the page itself shows where the result ends)
+    EXACT,
+    // rows and COUNT(*) OVER() in one statement
+    EXACT_WINDOW,
+    // optimizer row estimate, no scan
+    APPROXIMATE,
+    // count at most N+1 matching rows, reported as "N+" when exceeded
+    CAPPED,
+    // no total at all, only whether a next page exists
+    NONE;
+
+    /**
+     * @throws IllegalArgumentException for unknown values
+     */
+    public static TotalMode parse(String value) {
+        switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "exact":
+                return EXACT;
+            case "window":
+            case "exact_window":
+                return EXACT_WINDOW;
+            case "approx":
+            case "approximate":
+                return APPROXIMATE;
+            case "capped":
+                return CAPPED;
+            case "none":
+                return NONE;
+            default:
+                throw new IllegalArgumentException("Unknown total mode: " + value);
+        }
+    }
+}
@@ -1,6 +1,12 @@
 package com.interview.order.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -8,7 +14,12 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Component
@@ -16,12 +27,44 @@ public class JwtUtil {
 
     private final SecretKey key;
     private final long expirationMillis;
+    // immutable and thread-safe, built once instead of per parse
+    private final JwtParser parser;
+    // sha-256(token) -> verified subject, each entry expires together with its token
+    private final Cache<String, VerifiedToken> verified;
+
+    /**
+     * Result of a successful signature and expiry check.
+     */
+    public record VerifiedToken(String username, long expiresAtMillis) {
+    }
 
     public JwtUtil(@Value("${jwt.secret:secret-key-should-be-long}") String secret,
-                   @Value("${jwt.expiration-ms:3600000}") long expirationMillis) {
+                   @Value("${jwt.expiration-ms:3600000}") long expirationMillis,
+                   @Value("${jwt.cache.max-size:10000}") long cacheMaxSize) {
         // use the provided secret as bytes to create the key
         this.key = Keys.hmacShaKeyFor(secret.getBytes());
         this.expirationMillis = expirationMillis;
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String hash, VerifiedToken token, long currentTime) {
+                        long remaining = token.expiresAtMillis() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remaining));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String hash, VerifiedToken token, long currentTime, long currentDuration) {
+                        return expireAfterCreate(hash, token, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String hash, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
     }
 
     public String generateToken(String username) {
@@ -35,8 +78,31 @@ public class JwtUtil {
                 .compact();
     }
 
+    /**
+     * Verifies signature and expiry in a single parse. Tokens seen before are answered from the cache
+     * without any crypto or JSON work until they expire.
+     *
+     * @throws JwtException when the token is malformed, badly signed, expired or has no expiry/subject
+     */
+    public VerifiedToken verify(String token) {
+        String hash = hash(token);
+        VerifiedToken cached = verified.getIfPresent(hash);
+        if (cached != null && cached.expiresAtMillis() > System.currentTimeMillis()) {
+            return cached;
+        }
+
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        Date exp = claims.getExpiration();
+        if (exp == null || claims.getSubject() == null) {
+            throw new JwtException("Token has no subject or expiration");
+        }
+        VerifiedToken result = new VerifiedToken(claims.getSubject(), exp.getTime());
+        verified.put(hash, result);
+        return result;
+    }
+
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+        final Claims claims = parser.parseClaimsJws(token).getBody();
         return claimsResolver.apply(claims);
     }
 
@@ -45,12 +111,23 @@ public class JwtUtil {
     }
 
     public boolean isTokenExpired(String token) {
-        return extractClaim(token, Claims::getExpiration).before(new Date());
+        try {
+            return extractClaim(token, Claims::getExpiration).before(new Date());
+        } catch (ExpiredJwtException ex) {
+            return true;
+        }
     }
 
     public boolean validateToken(String token, String username) {
-        final String tokenUsername = extractUsername(token);
-        return (tokenUsername.equals(username) && !isTokenExpired(token));
+        return verify(token).username().equals(username);
     }
-}
 
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.interview.order.service;
+
+import com.interview.order.entity.CustomerOrderStat;
+import com.interview.order.entity.Order;
+import com.interview.order.entity.OrderStatus;
+import com.interview.order.notification.OrderCreatedEvent;
+import com.interview.order.notification.OrderStatusChangedEvent;
+import com.interview.order.notification.OrdersCreatedEvent;
+import com.interview.order.notification.OrdersStatusChangedEvent;
+import com.interview.order.repository.CustomerOrderStatRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Per-customer order counts by status and amount sums by currency (customer_order_stats).
+ * <p>
+ * The rows are adjusted by the order event listeners, which run synchronously inside the write transaction,
+ * so the aggregates commit or roll back with the order change. A scheduled rebuild recomputes them from
+ * orders and orders_archive (archiving moves rows but does not change the aggregates), one chunk of customers
+ * per transaction, to repair any drift.
+ */
+@Component
+public class CustomerOrderStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerOrderStatsService.class);
+
+    private final CustomerOrderStatRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final int rebuildChunk;
+
+    public CustomerOrderStatsService(CustomerOrderStatRepository repository,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${order.stats.rebuild-chunk:200}") int rebuildChunk) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rebuildChunk = Math.max(1, rebuildChunk);
+    }
+
+    /**
+     * Summary of one customer's orders, read from at most (statuses x currencies) aggregate rows.
+     */
+    public Summary summary(String customer) {
+        Map<Integer, Long> countByStatus = new LinkedHashMap<>();
+        for (OrderStatus status : OrderStatus.values()) {
+            countByStatus.put(status.getCode(), 0L);
+        }
+        Map<String, BigDecimal> amountByCurrency = new TreeMap<>();
+        long total = 0;
+        for (CustomerOrderStat stat : repository.findByCustomer(customer)) {
+            countByStatus.merge(stat.getStatus().getCode(), stat.getOrderCount(), Long::sum);
+            amountByCurrency.merge(stat.getCurrency(), stat.getTotalAmount(), BigDecimal::add);
+            total += stat.getOrderCount();
+        }
+        return new Summary(customer, total, countByStatus, amountByCurrency);
+    }
+
+    public record Summary(String customer, long total, Map<Integer, Long> countByStatus, Map<String, BigDecimal> amountByCurrency) {
+    }
+
+    @EventListener
+    public void onOrderCreated(OrderCreatedEvent event) {
+        addCreated(List.of(event.getOrder()));
+    }
+
+    @EventListener
+    public void onOrdersCreated(OrdersCreatedEvent event) {
+        addCreated(event.getOrders());
+    }
+
+    @EventListener
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        move(List.of(event.getOrder().getId()), event.getOldStatus(), event.getNewStatus());
+    }
+
+    @EventListener
+    public void onOrdersStatusChanged(OrdersStatusChangedEvent event) {
+        List<Long> ids = new ArrayList<>(event.getOrders().size());
+        for (Order order : event.getOrders()) {
+            ids.add(order.getId());
+        }
+        move(ids, event.getOldStatus(), event.getNewStatus());
+    }
+
+    // one upsert per (customer, currency) group rather than per order
+    private void addCreated(List<Order> orders) {
+        Map<List<String>, BigDecimal[]> groups = new LinkedHashMap<>();
+        for (Order order : orders) {
+            if (order.getCustomer() == null) continue;
+            String currency = order.getCurrency() == null ? "RMB" : order.getCurrency();
+            BigDecimal amount = order.getTotalAmount() == null ? BigDecimal.ZERO : order.getTotalAmount().setScale(2, RoundingMode.HALF_UP);
+            BigDecimal[] group = groups.computeIfAbsent(List.of(order.getCustomer(), currency), k -> new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ZERO});
+            group[0] = group[0].add(BigDecimal.ONE);
+            group[1] = group[1].add(amount);
+        }
+        for (Map.Entry<List<String>, BigDecimal[]> e : groups.entrySet()) {
+            repository.add(e.getKey().get(0), OrderStatus.CREATED.getCode(), e.getKey().get(1), e.getValue()[0].longValue(), e.getValue()[1]);
+        }
+    }
+
+    // customer, currency and amount never change, so they are read from the orders rows being moved
+    private void move(List<Long> ids, int oldStatus, int newStatus) {
+        if (ids.isEmpty() || oldStatus == newStatus) return;
+        repository.subtractOrders(ids, oldStatus);
+        repository.addOrders(ids, newStatus);
+    }
+
+    @Scheduled(cron = "${order.stats.rebuild-cron:0 30 3 * * *}")
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (Exception ex) {
+            logger.error("CustomerOrderStatsService: rebuild failed: {}", ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Recomputes every customer's rows from orders and orders_archive, in customer order and one short transaction per chunk.
+     */
+    public long rebuild() {
+        long customers = 0;
+        String after = "";
+        while (true) {
+            final String cursor = after;
+            List<String> chunk = transactionTemplate.execute(status -> {
+                List<String> batch = repository.findCustomersAfter(cursor, rebuildChunk);
+                if (!batch.isEmpty()) {
+                    repository.deleteByCustomers(batch);
+                    repository.insertFromOrders(batch);
+                }
+                return batch;
+            });
+            if (chunk == null || chunk.isEmpty()) break;
+            customers += chunk.size();
+            after = chunk.get(chunk.size() - 1);
+        }
+        logger.info("CustomerOrderStatsService: rebuilt order stats for {} customers", customers);
+        return customers;
+    }
+}
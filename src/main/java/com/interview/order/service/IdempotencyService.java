@@ -0,0 +1,216 @@
+package com.interview.order.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.interview.order.entity.IdempotencyKey;
+import com.interview.order.entity.Order;
+import com.interview.order.repository.IdempotencyKeyRepository;
+import com.interview.order.web.CreateOrderRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Idempotency-Key handling for POST /orders.
+ * <ol>
+ *   <li>An in-memory cache answers retries seen by this instance without touching the database.</li>
+ *   <li>Concurrent requests with the same key on this instance share one in-flight creation.</li>
+ *   <li>The idempotency_key table covers other instances and restarts; the key row is inserted in the
+ *       order's transaction, so of two instances racing on one key only one order commits.</li>
+ * </ol>
+ * Keys are scoped to the authenticated user and expire after {@code order.idempotency.ttl-hours}.
+ */
+@Component
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public enum Status {
+        CREATED,
+        // same key and same request: the original order id
+        REPLAYED,
+        // same key but a different request body
+        MISMATCH
+    }
+
+    public record Outcome(Status status, Long orderId) {
+    }
+
+    // expireTime is the key row's, so a cached entry never outlives the persisted row
+    private record Stored(long orderId, String requestHash, LocalDateTime expireTime) {
+    }
+
+    private final OrderService orderService;
+    private final IdempotencyKeyRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final Cache<String, Stored> recent;
+    private final ConcurrentMap<String, CompletableFuture<Stored>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter created;
+    private final Counter replayed;
+    private final Counter mismatched;
+
+    public IdempotencyService(OrderService orderService,
+                              IdempotencyKeyRepository repository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${order.idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${order.idempotency.cache-max-size:10000}") long cacheMaxSize,
+                              MeterRegistry meterRegistry) {
+        this.orderService = orderService;
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = Duration.ofHours(ttlHours);
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new Expiry<String, Stored>() {
+                    @Override
+                    public long expireAfterCreate(String cacheKey, Stored stored, long currentTime) {
+                        // a row read back from the table may have little of its lifetime left
+                        long remaining = Duration.between(LocalDateTime.now(), stored.expireTime()).toNanos();
+                        return Math.max(0, Math.min(ttl.toNanos(), remaining));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String cacheKey, Stored stored, long currentTime, long currentDuration) {
+                        return expireAfterCreate(cacheKey, stored, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String cacheKey, Stored stored, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        this.created = outcomeCounter(meterRegistry, "created");
+        this.replayed = outcomeCounter(meterRegistry, "replayed");
+        this.mismatched = outcomeCounter(meterRegistry, "mismatch");
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("order.idempotency").tag("result", result).register(meterRegistry);
+    }
+
+    public Outcome createOrder(String owner, String key, CreateOrderRequest req) {
+        String requestHash = requestHash(req);
+        String cacheKey = owner + '\n' + key;
+
+        Stored cached = recent.getIfPresent(cacheKey);
+        if (cached != null) return replay(cached, requestHash);
+
+        CompletableFuture<Stored> mine = new CompletableFuture<>();
+        CompletableFuture<Stored> running = inFlight.putIfAbsent(cacheKey, mine);
+        if (running != null) {
+            try {
+                return replay(running.join(), requestHash);
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException cause) throw cause;
+                throw ex;
+            }
+        }
+
+        try {
+            Optional<Stored> stored = find(owner, key);
+            if (stored.isPresent()) {
+                recent.put(cacheKey, stored.get());
+                mine.complete(stored.get());
+                return replay(stored.get(), requestHash);
+            }
+
+            Stored result;
+            boolean createdHere;
+            try {
+                result = transactionTemplate.execute(status -> create(owner, key, requestHash, req));
+                createdHere = true;
+            } catch (DataIntegrityViolationException ex) {
+                // another instance committed this key first; our order was rolled back with the key row
+                result = find(owner, key).orElseThrow(() -> ex);
+                createdHere = false;
+                logger.info("IdempotencyService: key {} for {} was created concurrently elsewhere, returning order id={}", key, owner, result.orderId());
+            }
+
+            recent.put(cacheKey, result);
+            mine.complete(result);
+            if (!createdHere) return replay(result, requestHash);
+            created.increment();
+            return new Outcome(Status.CREATED, result.orderId());
+        } catch (RuntimeException ex) {
+            mine.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(cacheKey, mine);
+        }
+    }
+
+    private Stored create(String owner, String key, String requestHash, CreateOrderRequest req) {
+        LocalDateTime now = LocalDateTime.now();
+        // an expired key that has not been purged yet may be reused
+        repository.deleteIfExpired(owner, key, now);
+        Order order = orderService.createOrder(req);
+        LocalDateTime expireTime = now.plus(ttl);
+        repository.insert(owner, key, requestHash, order.getId(), now, expireTime);
+        return new Stored(order.getId(), requestHash, expireTime);
+    }
+
+    // read-write transaction so the lookup goes to the primary: a key just committed by another instance
+    // may not have reached a read replica yet
+    private Optional<Stored> find(String owner, String key) {
+        LocalDateTime now = LocalDateTime.now();
+        Optional<Stored> stored = transactionTemplate.execute(status -> repository.findById(new IdempotencyKey.Key(owner, key))
+                .filter(k -> k.getExpireTime().isAfter(now))
+                .map(k -> new Stored(k.getOrderId(), k.getRequestHash(), k.getExpireTime())));
+        return stored == null ? Optional.empty() : stored;
+    }
+
+    private Outcome replay(Stored stored, String requestHash) {
+        if (!stored.requestHash().equals(requestHash)) {
+            mismatched.increment();
+            return new Outcome(Status.MISMATCH, null);
+        }
+        replayed.increment();
+        return new Outcome(Status.REPLAYED, stored.orderId());
+    }
+
+    @Scheduled(fixedDelayString = "${order.idempotency.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        try {
+            Integer purged = transactionTemplate.execute(status -> repository.deleteExpired(LocalDateTime.now()));
+            if (purged != null && purged > 0) logger.info("IdempotencyService: purged {} expired idempotency keys", purged);
+        } catch (Exception ex) {
+            logger.error("IdempotencyService: purge failed: {}", ex.getMessage(), ex);
+        }
+    }
+
+    // fields that define the order; a retry must send the same values (currency defaults like createOrder)
+    static String requestHash(CreateOrderRequest req) {
+        String amount = req.getTotalAmount() == null ? "" : req.getTotalAmount().stripTrailingZeros().toPlainString();
+        String canonical = req.getProductName() + '\u0000' + req.getCustomer() + '\u0000' + amount + '\u0000'
+                + (req.getCurrency() == null ? "RMB" : req.getCurrency());
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+}
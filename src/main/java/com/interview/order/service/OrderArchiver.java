@@ -0,0 +1,107 @@
+package com.interview.order.service;
+
+import com.interview.order.entity.OrderStatus;
+import com.interview.order.repository.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves COMPLETED/CANCELLED orders created more than {@code order.archive.min-age-days} ago from orders to
+ * orders_archive. Each chunk is one short READ COMMITTED transaction that locks at most
+ * {@code order.archive.chunk-size} rows of the hot table, copies them and deletes them; the scan walks
+ * forward by id so rows that stay hot are not read again.
+ * <p>
+ * Search relies on the same age: a time range starting after now - min-age never reads the archive, so
+ * the setting must only ever grow.
+ */
+@Component
+@ConditionalOnProperty(name = "order.archive.enabled", havingValue = "true", matchIfMissing = true)
+public class OrderArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderArchiver.class);
+
+    private static final List<Integer> TERMINAL = List.of(OrderStatus.COMPLETED.getCode(), OrderStatus.CANCELLED.getCode());
+
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long minAgeDays;
+    private final int chunkSize;
+    private final long pauseMs;
+    private final Counter archived;
+
+    public OrderArchiver(OrderRepository orderRepository,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${order.archive.min-age-days:180}") long minAgeDays,
+                         @Value("${order.archive.chunk-size:500}") int chunkSize,
+                         @Value("${order.archive.pause-ms:50}") long pauseMs,
+                         MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // non-matching rows scanned by the locking read are released right away instead of held to commit
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.minAgeDays = minAgeDays;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.pauseMs = Math.max(0, pauseMs);
+        this.archived = Counter.builder("order.archive.moved").register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${order.archive.cron:0 0 4 * * *}")
+    public void scheduledArchive() {
+        try {
+            archive();
+        } catch (Exception ex) {
+            logger.error("OrderArchiver: archive run failed: {}", ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Archives every eligible order, one chunk per transaction; returns the number of orders moved.
+     */
+    public long archive() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(minAgeDays);
+        long moved = 0;
+        long after = 0;
+        while (true) {
+            final long cursor = after;
+            List<Long> chunk = transactionTemplate.execute(status -> {
+                List<Long> ids = new ArrayList<>(chunkSize);
+                for (Number id : orderRepository.lockArchivable(cursor, cutoff, TERMINAL, chunkSize)) {
+                    ids.add(id.longValue());
+                }
+                if (!ids.isEmpty()) {
+                    orderRepository.copyToArchive(ids, LocalDateTime.now());
+                    orderRepository.deleteByIds(ids);
+                }
+                return ids;
+            });
+            if (chunk == null || chunk.isEmpty()) break;
+            moved += chunk.size();
+            archived.increment(chunk.size());
+            after = chunk.get(chunk.size() - 1);
+            // let replication and concurrent writers catch up between chunks
+            if (pauseMs > 0) {
+                try {
+                    Thread.sleep(pauseMs);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        if (moved > 0) logger.info("OrderArchiver: archived {} orders created before {}", moved, cutoff);
+        return moved;
+    }
+}
@@ -0,0 +1,133 @@
+package com.interview.order.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.interview.order.entity.Order;
+import com.interview.order.entity.OrderStatus;
+import com.interview.order.notification.OrderStatusChangedEvent;
+import com.interview.order.notification.OrdersStatusChangedEvent;
+import com.interview.order.repository.OrderRow;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of order rows by id for {@link OrderService#getOrder}. Rows are immutable, so a
+ * cached value can be shared between requests.
+ * CREATED orders may still change and expire quickly; COMPLETED/CANCELLED orders are final and live longer.
+ * Hit/miss/eviction statistics are published as the "orders" cache metrics.
+ * <p>
+ * A load is not atomic with the invalidations: a reader can fetch the old row, lose the CPU while the update
+ * commits and invalidates, and put the old row back afterwards. Every invalidation therefore bumps a
+ * generation counter (striped by id, so memory stays fixed), and a loaded row is only stored if its stripe's
+ * generation is still the one read before the load.
+ */
+@Component
+public class OrderCache {
+
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final Cache<Long, OrderRow> cache;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    public OrderCache(@Value("${order.cache.max-size:10000}") long maxSize,
+                      @Value("${order.cache.ttl-seconds:30}") long ttlSeconds,
+                      @Value("${order.cache.terminal-ttl-seconds:600}") long terminalTtlSeconds,
+                      MeterRegistry meterRegistry) {
+        long ttlNanos = Duration.ofSeconds(ttlSeconds).toNanos();
+        long terminalTtlNanos = Duration.ofSeconds(terminalTtlSeconds).toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<Long, OrderRow>() {
+                    @Override
+                    public long expireAfterCreate(Long id, OrderRow order, long currentTime) {
+                        return isTerminal(order) ? terminalTtlNanos : ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Long id, OrderRow order, long currentTime, long currentDuration) {
+                        return expireAfterCreate(id, order, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long id, OrderRow order, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "orders");
+    }
+
+    /**
+     * Returns the cached order or loads it; absent orders are not cached.
+     */
+    public Optional<OrderRow> get(Long id, Function<Long, Optional<OrderRow>> loader) {
+        OrderRow cached = cache.getIfPresent(id);
+        if (cached != null) return Optional.of(cached);
+        long generation = generations.get(stripe(id));
+        Optional<OrderRow> loaded = loader.apply(id);
+        // compute locks the entry, and invalidate bumps the generation before removing it: either the check
+        // sees the new generation, or the removal comes after this put
+        loaded.ifPresent(order -> cache.asMap().compute(id,
+                (key, current) -> generations.get(stripe(key)) == generation ? order : current));
+        return loaded;
+    }
+
+    public void invalidate(Long id) {
+        generations.incrementAndGet(stripe(id));
+        cache.invalidate(id);
+    }
+
+    private static int stripe(Long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (GENERATION_STRIPES - 1);
+    }
+
+    // drop the entry as soon as the change happens, and again after commit so a read racing the
+    // transaction cannot leave the pre-update row behind
+    @EventListener
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        invalidate(event.getOrder().getId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void afterOrderStatusChanged(OrderStatusChangedEvent event) {
+        invalidate(event.getOrder().getId());
+    }
+
+    @EventListener
+    public void onOrdersStatusChanged(OrdersStatusChangedEvent event) {
+        invalidateAll(event);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void afterOrdersStatusChanged(OrdersStatusChangedEvent event) {
+        invalidateAll(event);
+    }
+
+    private void invalidateAll(OrdersStatusChangedEvent event) {
+        List<Long> ids = new ArrayList<>(event.getOrders().size());
+        for (Order order : event.getOrders()) {
+            generations.incrementAndGet(stripe(order.getId()));
+            ids.add(order.getId());
+        }
+        cache.invalidateAll(ids);
+    }
+
+    private static boolean isTerminal(OrderRow order) {
+        return order.status() == OrderStatus.COMPLETED || order.status() == OrderStatus.CANCELLED;
+    }
+}
@@ -0,0 +1,376 @@
+package com.interview.order.service;
+
+import com.interview.order.entity.Order;
+import com.interview.order.notification.OrderCreatedEvent;
+import com.interview.order.notification.OrderStatusChangedEvent;
+import com.interview.order.notification.OrdersCreatedEvent;
+import com.interview.order.notification.OrdersStatusChangedEvent;
+import com.interview.order.repository.OrderCustomer;
+import com.interview.order.repository.OrderRepository;
+import com.interview.order.web.OrderView;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fan-out of committed order changes to streaming subscribers (GET /orders/stream).
+ * <p>
+ * Changes are numbered in commit order and the last {@code order.stream.history-size} are kept, so a
+ * subscriber can resume after a sequence number. Each subscriber has a bounded queue drained by its own
+ * virtual thread; publishing never blocks on a slow client. When a queue is full the overflow policy
+ * either disconnects the subscriber (it resumes from its last sequence) or drops its oldest queued change
+ * and reports the gap. Sequence numbers and history are per instance: the high bits of every sequence number are a
+ * random epoch chosen at startup, so an id issued before a restart or by another instance is recognised as
+ * foreign and answered with a reset instead of silently skipping what changed in between. Sequence numbers stay
+ * below 2^53 so JavaScript clients can handle them as numbers.
+ * <p>
+ * Publishing runs on the committing thread, so it never touches a sink: a disconnected subscriber is only
+ * flagged and its sender thread closes the transport. Status events do not carry the customer; it is looked
+ * up only while someone is subscribed, and changes published without it are resolved by the sender of a
+ * customer-filtered subscriber before they are matched.
+ */
+@Component
+@ConditionalOnProperty(name = "order.stream.enabled", havingValue = "true", matchIfMissing = true)
+public class OrderChangeStream {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderChangeStream.class);
+
+    public static final String ORDER_CREATED = "order.created";
+    public static final String ORDER_STATUS_CHANGED = "order.status_changed";
+
+    // sequence number = epoch << COUNTER_BITS | counter; 21 epoch bits keep it a safe JavaScript integer
+    private static final int COUNTER_BITS = 32;
+    private static final int EPOCH_BITS = 21;
+
+    public enum Overflow {
+        DISCONNECT,
+        DROP_OLDEST
+    }
+
+    public record OrderChange(long seq, String type, Long orderId, String customer, Integer oldStatus, Integer status, String time) {
+    }
+
+    /**
+     * Transport of one subscriber. Called only from that subscriber's sender thread.
+     */
+    public interface Sink {
+        void send(OrderChange change) throws IOException;
+
+        // changes were dropped by DROP_OLDEST
+        void gap(long missed) throws IOException;
+
+        // the requested sequence is no longer in history; the client has to resync
+        void reset(long oldestSeq) throws IOException;
+
+        void heartbeat() throws IOException;
+
+        void close();
+    }
+
+    public interface Subscription {
+        void cancel();
+    }
+
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate lookupTemplate;
+    private final int bufferSize;
+    private final int historySize;
+    private final int maxSubscribers;
+    private final long heartbeatMs;
+    private final Overflow overflow;
+    private final long epoch;
+
+    private final Object lock = new Object();
+    // guarded by lock
+    private long lastSeq;
+    private final ArrayDeque<OrderChange> history = new ArrayDeque<>();
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Counter dropped;
+    private final Counter disconnected;
+
+    @Autowired
+    public OrderChangeStream(OrderRepository orderRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${order.stream.buffer-size:256}") int bufferSize,
+                             @Value("${order.stream.history-size:10000}") int historySize,
+                             @Value("${order.stream.max-subscribers:1000}") int maxSubscribers,
+                             @Value("${order.stream.heartbeat-ms:15000}") long heartbeatMs,
+                             @Value("${order.stream.overflow:DISCONNECT}") Overflow overflow,
+                             MeterRegistry meterRegistry) {
+        // never 0, so the ids of a fresh boot cannot be mistaken for small sequence numbers of another one
+        this(orderRepository, transactionManager, bufferSize, historySize, maxSubscribers, heartbeatMs, overflow, meterRegistry,
+                ThreadLocalRandom.current().nextLong(1, 1L << EPOCH_BITS));
+    }
+
+    OrderChangeStream(OrderRepository orderRepository,
+                      PlatformTransactionManager transactionManager,
+                      int bufferSize,
+                      int historySize,
+                      int maxSubscribers,
+                      long heartbeatMs,
+                      Overflow overflow,
+                      MeterRegistry meterRegistry,
+                      long epoch) {
+        this.epoch = epoch;
+        this.lastSeq = epoch << COUNTER_BITS;
+        this.orderRepository = orderRepository;
+        this.lookupTemplate = new TransactionTemplate(transactionManager);
+        // runs after the publishing transaction committed; read the primary in a fresh transaction
+        this.lookupTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.bufferSize = Math.max(1, bufferSize);
+        this.historySize = Math.max(0, historySize);
+        this.maxSubscribers = maxSubscribers;
+        this.heartbeatMs = Math.max(1, heartbeatMs);
+        this.overflow = overflow;
+        this.dropped = Counter.builder("order.stream.dropped").register(meterRegistry);
+        this.disconnected = Counter.builder("order.stream.slow_consumer_disconnects").register(meterRegistry);
+        Gauge.builder("order.stream.subscribers", subscribers, Set::size).register(meterRegistry);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOrderCreated(OrderCreatedEvent event) {
+        publish(List.of(created(event.getOrder())));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOrdersCreated(OrdersCreatedEvent event) {
+        List<OrderChange> changes = new ArrayList<>(event.getOrders().size());
+        for (Order order : event.getOrders()) {
+            changes.add(created(order));
+        }
+        publish(changes);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        publish(statusChanged(List.of(event.getOrder()), event.getOldStatus(), event.getNewStatus()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOrdersStatusChanged(OrdersStatusChangedEvent event) {
+        publish(statusChanged(event.getOrders(), event.getOldStatus(), event.getNewStatus()));
+    }
+
+    private static OrderChange created(Order order) {
+        return new OrderChange(0, ORDER_CREATED, order.getId(), order.getCustomer(), null,
+                order.getStatus() == null ? null : order.getStatus().getCode(), OrderView.formatTime(order.getCreateTime()));
+    }
+
+    // status events only carry id, status and updateTime; one query resolves the customers of the whole batch,
+    // skipped while nobody is subscribed (a later filtered subscriber resolves what it replays)
+    private List<OrderChange> statusChanged(List<Order> orders, int oldStatus, int newStatus) {
+        Map<Long, String> customers = Map.of();
+        if (!subscribers.isEmpty()) {
+            List<Long> ids = new ArrayList<>(orders.size());
+            for (Order order : orders) {
+                ids.add(order.getId());
+            }
+            customers = findCustomers(ids);
+        }
+        List<OrderChange> changes = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            changes.add(new OrderChange(0, ORDER_STATUS_CHANGED, order.getId(), customers.get(order.getId()), oldStatus, newStatus,
+                    OrderView.formatTime(order.getUpdateTime())));
+        }
+        return changes;
+    }
+
+    private Map<Long, String> findCustomers(List<Long> ids) {
+        Map<Long, String> customers = new HashMap<>();
+        try {
+            List<OrderCustomer> found = lookupTemplate.execute(status -> orderRepository.findCustomers(ids));
+            if (found != null) {
+                for (OrderCustomer c : found) {
+                    customers.put(c.id(), c.customer());
+                }
+            }
+        } catch (RuntimeException ex) {
+            // still publish: unfiltered subscribers get the change, filtered ones retry the lookup before matching
+            logger.warn("OrderChangeStream: could not resolve customers of {} changed orders: {}", ids.size(), ex.getMessage());
+        }
+        return customers;
+    }
+
+    // fills in the customers a change was published without; runs on a sender thread, never on the publisher
+    private List<OrderChange> withCustomers(List<OrderChange> changes) {
+        List<Long> ids = new ArrayList<>();
+        for (OrderChange change : changes) {
+            if (change.customer() == null) ids.add(change.orderId());
+        }
+        if (ids.isEmpty()) return changes;
+        Map<Long, String> customers = findCustomers(ids);
+        List<OrderChange> resolved = new ArrayList<>(changes.size());
+        for (OrderChange c : changes) {
+            resolved.add(c.customer() != null ? c : new OrderChange(c.seq(), c.type(), c.orderId(), customers.get(c.orderId()),
+                    c.oldStatus(), c.status(), c.time()));
+        }
+        return resolved;
+    }
+
+    void publish(List<OrderChange> changes) {
+        synchronized (lock) {
+            for (OrderChange change : changes) {
+                OrderChange numbered = new OrderChange(++lastSeq, change.type(), change.orderId(), change.customer(),
+                        change.oldStatus(), change.status(), change.time());
+                if (historySize > 0) {
+                    if (history.size() == historySize) history.removeFirst();
+                    history.addLast(numbered);
+                }
+                // offers never block; a full queue is handled by the overflow policy
+                for (Subscriber subscriber : subscribers) {
+                    subscriber.offer(numbered);
+                }
+            }
+        }
+    }
+
+    /**
+     * Registers a subscriber for changes of {@code customer} (all customers when null). With {@code afterSeq}
+     * the retained changes after that sequence are replayed first, preceded by a reset when changes after it are
+     * no longer retained or the sequence was not issued by this instance since its start; returns null when the
+     * subscriber limit is reached.
+     */
+    public Subscription subscribe(String customer, Long afterSeq, Sink sink) {
+        Subscriber subscriber = new Subscriber(customer, sink);
+        synchronized (lock) {
+            // checked under the lock, so concurrent subscribes cannot pass it together
+            if (subscribers.size() >= maxSubscribers) return null;
+            // replay and registration under the lock: no change is missed or delivered twice in between
+            if (afterSeq != null) {
+                // an id from before a restart, from another instance or from the future says nothing about what the
+                // client has seen: replay everything retained after a reset
+                boolean issued = (afterSeq >>> COUNTER_BITS) == epoch && afterSeq <= lastSeq;
+                long after = issued ? afterSeq : epoch << COUNTER_BITS;
+                OrderChange oldest = history.peekFirst();
+                if (!issued || (after < lastSeq && (oldest == null || oldest.seq() > after + 1))) {
+                    subscriber.resetFrom = oldest == null ? lastSeq + 1 : oldest.seq();
+                }
+                for (OrderChange change : history) {
+                    if (change.seq() > after && subscriber.accepts(change)) subscriber.replay.add(change);
+                }
+            }
+            subscribers.add(subscriber);
+        }
+        subscriber.start();
+        return subscriber::cancel;
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    private final class Subscriber {
+        private final String customer;
+        private final Sink sink;
+        private final BlockingQueue<OrderChange> queue;
+        private final List<OrderChange> replay = new ArrayList<>();
+        private final AtomicLong missed = new AtomicLong();
+        private volatile long resetFrom = -1;
+        private volatile boolean closed;
+        private volatile Thread sender;
+
+        private Subscriber(String customer, Sink sink) {
+            this.customer = customer;
+            this.sink = sink;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        private boolean matches(OrderChange change) {
+            return customer == null || customer.equals(change.customer());
+        }
+
+        // a change without customer may still be ours; the sender resolves it before matching
+        private boolean accepts(OrderChange change) {
+            return matches(change) || change.customer() == null;
+        }
+
+        private void offer(OrderChange change) {
+            if (closed || !accepts(change)) return;
+            if (queue.offer(change)) return;
+            if (overflow == Overflow.DROP_OLDEST) {
+                // only the publisher adds to the queue, so after one poll there is room
+                if (queue.poll() != null) {
+                    missed.incrementAndGet();
+                    dropped.increment();
+                }
+                queue.offer(change);
+            } else {
+                disconnected.increment();
+                logger.info("OrderChangeStream: disconnecting slow subscriber (customer={}), buffer of {} full", customer, bufferSize);
+                // on the publishing thread: only flag it, the sender closes the sink
+                cancel();
+            }
+        }
+
+        private void start() {
+            sender = Thread.ofVirtual().name("order-stream").start(this::run);
+        }
+
+        private void run() {
+            try {
+                if (closed) return;
+                if (resetFrom >= 0) sink.reset(resetFrom);
+                for (OrderChange change : customer == null ? replay : withCustomers(replay)) {
+                    if (matches(change)) sink.send(change);
+                }
+                replay.clear();
+                while (!closed) {
+                    OrderChange change = queue.poll(heartbeatMs, TimeUnit.MILLISECONDS);
+                    long gap = missed.getAndSet(0);
+                    if (gap > 0) sink.gap(gap);
+                    if (change == null) {
+                        sink.heartbeat();
+                        continue;
+                    }
+                    if (change.customer() == null && customer != null) {
+                        change = withCustomers(List.of(change)).get(0);
+                    }
+                    if (matches(change)) sink.send(change);
+                }
+            } catch (IOException | RuntimeException ex) {
+                logger.debug("OrderChangeStream: subscriber (customer={}) gone: {}", customer, ex.getMessage());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                cancel();
+                sink.close();
+            }
+        }
+
+        // may run on the publishing or a request thread: never closes the sink itself, since completing a
+        // stuck client can block; the interrupted sender leaves its loop and closes it
+        private void cancel() {
+            if (closed) return;
+            closed = true;
+            subscribers.remove(this);
+            Thread thread = sender;
+            if (thread != null && thread != Thread.currentThread()) thread.interrupt();
+        }
+    }
+}
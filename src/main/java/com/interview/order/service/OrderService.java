@@ -1,16 +1,28 @@
 package com.interview.order.service;
 
 import com.interview.order.entity.Order;
+import com.interview.order.repository.OrderCursor;
+import com.interview.order.repository.OrderRow;
+import com.interview.order.repository.OrderSearchPage;
+import com.interview.order.repository.TotalMode;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface OrderService {
 
     Order createOrder(com.interview.order.web.CreateOrderRequest req);
 
-    Optional<Order> getOrder(Long id);
+    // all-or-nothing: one transaction, JDBC-batched inserts, one OrdersCreatedEvent
+    List<Order> createOrders(List<com.interview.order.web.CreateOrderRequest> reqs);
+
+    // read-only projection, served from OrderCache when possible
+    Optional<OrderRow> getOrder(Long id);
 
     enum UpdateResult {
         SUCCESS,
@@ -21,6 +33,19 @@ public interface OrderService {
 
     UpdateResult updateOrderStatus(Long id, int statusCode);
 
-    Page<Order> search(String productName, String customer, Integer statusCode, LocalDateTime startTime, LocalDateTime endTime, int start, int count);
+    // same CREATED-only rule for many orders in set-based statements; result per distinct id, in request order.
+    // Committed in chunks: FAILED marks ids of a chunk that rolled back, or that came after it, and were not changed
+    Map<Long, UpdateResult> updateOrderStatuses(List<Long> ids, int statusCode);
+
+    Page<OrderRow> search(String productName, String customer, Integer statusCode, LocalDateTime startTime, LocalDateTime endTime, int start, int count);
+
+    // offset paging where the caller picks how the total is computed (none / approximate / capped / exact)
+    OrderSearchPage search(String productName, String customer, Integer statusCode, LocalDateTime startTime, LocalDateTime endTime, int start, int count, TotalMode totalMode);
+
+    // streams every matching order to sink inside one read-only transaction; returns the number of rows
+    long exportOrders(String productName, String customer, Integer statusCode, LocalDateTime startTime, LocalDateTime endTime, Consumer<OrderRow> sink);
+
+    // cursor (keyset) paging: null cursor means first page
+    Slice<OrderRow> searchAfter(String productName, String customer, Integer statusCode, LocalDateTime startTime, LocalDateTime endTime, OrderCursor cursor, int size);
 }
 
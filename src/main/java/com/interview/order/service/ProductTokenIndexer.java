@@ -0,0 +1,132 @@
+package com.interview.order.service;
+
+import com.interview.order.entity.Order;
+import com.interview.order.entity.OrderProductToken;
+import com.interview.order.notification.OrderCreatedEvent;
+import com.interview.order.notification.OrdersCreatedEvent;
+import com.interview.order.repository.ProductTokens;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maintains order_product_token for new orders inside the creating transaction (product names never
+ * change afterwards) and rebuilds the tokens of orders that predate the current tokenizer, see
+ * V12__product_token_folding.sql.
+ */
+@Component
+public class ProductTokenIndexer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductTokenIndexer.class);
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final TransactionTemplate transactionTemplate;
+    private final boolean backfillOnStartup;
+    private final int backfillChunk;
+
+    public ProductTokenIndexer(PlatformTransactionManager transactionManager,
+                               @Value("${order.search.product-index.backfill-on-startup:true}") boolean backfillOnStartup,
+                               @Value("${order.search.product-index.backfill-chunk:500}") int backfillChunk) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.backfillOnStartup = backfillOnStartup;
+        this.backfillChunk = Math.max(1, backfillChunk);
+    }
+
+    @EventListener
+    public void onOrderCreated(OrderCreatedEvent event) {
+        index(event.getOrder());
+    }
+
+    @EventListener
+    public void onOrdersCreated(OrdersCreatedEvent event) {
+        for (Order order : event.getOrders()) {
+            index(order);
+        }
+    }
+
+    void index(Order order) {
+        if (order.getId() == null) return;
+        index(order.getId(), order.getCustomer(), order.getProductName());
+    }
+
+    // persist() rather than save(): ids are assigned, save() would SELECT each row first
+    private void index(Long orderId, String customer, String productName) {
+        if (customer == null) return;
+        for (String token : ProductTokens.index(productName)) {
+            em.persist(new OrderProductToken(customer, token, orderId));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (backfillOnStartup) backfill();
+    }
+
+    /**
+     * Rebuilds the tokens of the orders, hot or archived, up to order_product_token_backfill.target_order_id,
+     * in id order and one short transaction per chunk. The progress row is advanced with each chunk, so a
+     * restart resumes after the last committed chunk and a finished backfill costs a single row read.
+     */
+    public long backfill() {
+        long indexed = 0;
+        while (true) {
+            Integer n = transactionTemplate.execute(status -> backfillChunk());
+            if (n == null || n == 0) break;
+            indexed += n;
+        }
+        if (indexed > 0) logger.info("ProductTokenIndexer: rebuilt product tokens for {} orders", indexed);
+        return indexed;
+    }
+
+    // the progress row is locked for the chunk, so instances starting together take turns instead of redoing it
+    int backfillChunk() {
+        List<?> progress = em.createNativeQuery(
+                        "SELECT last_order_id, target_order_id FROM order_product_token_backfill WHERE id = 1 FOR UPDATE")
+                .getResultList();
+        if (progress.isEmpty()) return 0;
+        Object[] row = (Object[]) progress.get(0);
+        long last = ((Number) row[0]).longValue();
+        long target = ((Number) row[1]).longValue();
+        if (last >= target) return 0;
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> orders = em.createNativeQuery(
+                        "(SELECT id, customer, product_name FROM orders WHERE id > :last AND id <= :target ORDER BY id LIMIT :limit)"
+                                + " UNION ALL (SELECT id, customer, product_name FROM orders_archive WHERE id > :last AND id <= :target ORDER BY id LIMIT :limit)"
+                                + " ORDER BY id LIMIT :limit")
+                .setParameter("last", last)
+                .setParameter("target", target)
+                .setParameter("limit", backfillChunk)
+                .getResultList();
+        long reached = target;
+        if (!orders.isEmpty()) {
+            List<Long> ids = new ArrayList<>(orders.size());
+            for (Object[] order : orders) {
+                ids.add(((Number) order[0]).longValue());
+            }
+            em.createQuery("delete from OrderProductToken t where t.orderId in :ids").setParameter("ids", ids).executeUpdate();
+            for (Object[] order : orders) {
+                index(((Number) order[0]).longValue(), (String) order[1], (String) order[2]);
+            }
+            reached = ids.get(ids.size() - 1);
+        }
+        em.createNativeQuery("UPDATE order_product_token_backfill SET last_order_id = :reached, update_time = :now WHERE id = 1")
+                .setParameter("reached", reached)
+                .setParameter("now", LocalDateTime.now())
+                .executeUpdate();
+        return orders.size();
+    }
+}
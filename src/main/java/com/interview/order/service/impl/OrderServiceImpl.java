@@ -1,106 +1,285 @@
 package com.interview.order.service.impl;
 
+import com.interview.order.config.ReplicaRoutingDataSource;
 import com.interview.order.entity.Order;
 import com.interview.order.entity.OrderStatus;
 import com.interview.order.notification.OrderCreatedEvent;
 import com.interview.order.notification.OrderStatusChangedEvent;
+import com.interview.order.notification.OrdersCreatedEvent;
+import com.interview.order.notification.OrdersStatusChangedEvent;
+import com.interview.order.repository.OrderCursor;
 import com.interview.order.repository.OrderRepository;
+import com.interview.order.repository.OrderRow;
+import com.interview.order.repository.OrderSearchPage;
+import com.interview.order.repository.TotalMode;
+import com.interview.order.service.OrderCache;
 import com.interview.order.service.OrderService;
 import com.interview.order.web.CreateOrderRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class OrderServiceImpl implements OrderService {
 
+    private static final Logger logger = LoggerFactory.getLogger(OrderServiceImpl.class);
+
     private final OrderRepository orderRepository;
     private final ApplicationEventPublisher eventPublisher;
+    private final OrderCache orderCache;
+    // bulk status updates commit per chunk, so row locks are held for one chunk only
+    private final TransactionTemplate chunkTransaction;
+
+    // upper bound for TotalMode.CAPPED, reported as "N+" when exceeded
+    @Value("${order.search.total-cap:1000}")
+    private int totalCap = 1000;
+
+    // rows per round trip for exports; the driver never holds more than this in memory
+    @Value("${order.export.fetch-size:500}")
+    private int exportFetchSize = 500;
+
+    // ids per lock/update statement in bulk status updates, and orders per OrdersStatusChangedEvent
+    @Value("${order.bulk-status.chunk-size:500}")
+    private int bulkStatusChunkSize = 500;
 
     @Autowired
-    public OrderServiceImpl(OrderRepository orderRepository, ApplicationEventPublisher eventPublisher) {
+    public OrderServiceImpl(OrderRepository orderRepository, ApplicationEventPublisher eventPublisher, OrderCache orderCache,
+                            PlatformTransactionManager transactionManager) {
         this.orderRepository = orderRepository;
         this.eventPublisher = eventPublisher;
+        this.orderCache = orderCache;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
     }
 
     @Override
     @Transactional
     public Order createOrder(CreateOrderRequest req) {
+        Order saved = orderRepository.save(newOrder(req, LocalDateTime.now()));
+
+        // publish event
+        eventPublisher.publishEvent(new OrderCreatedEvent(this, saved));
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public List<Order> createOrders(List<CreateOrderRequest> reqs) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Order> orders = new ArrayList<>(reqs.size());
+        for (CreateOrderRequest req : reqs) {
+            orders.add(newOrder(req, now));
+        }
+        // ids come from the pooled sequence, inserts are flushed as JDBC batches (hibernate.jdbc.batch_size)
+        List<Order> saved = orderRepository.saveAll(orders);
+
+        eventPublisher.publishEvent(new OrdersCreatedEvent(this, saved));
+        return saved;
+    }
+
+    private static Order newOrder(CreateOrderRequest req, LocalDateTime now) {
         Order order = new Order();
         order.setProductName(req.getProductName());
         order.setCustomer(req.getCustomer());
         order.setTotalAmount(req.getTotalAmount());
         order.setCurrency(req.getCurrency() == null ? "RMB" : req.getCurrency());
         order.setStatus(OrderStatus.CREATED);
-        LocalDateTime now = LocalDateTime.now();
         order.setCreateTime(now);
         order.setUpdateTime(now);
-        Order saved = orderRepository.save(order);
-
-        // publish event
-        eventPublisher.publishEvent(new OrderCreatedEvent(this, saved));
-        return saved;
+        return order;
     }
 
     @Override
-    public Optional<Order> getOrder(Long id) {
-        return orderRepository.findById(id);
+    public Optional<OrderRow> getOrder(Long id) {
+        // archived orders are terminal and keep their id, so a miss in the hot table falls back to the archive.
+        // The cached row is served to every user for its TTL, so it is loaded from the primary: a lagging replica
+        // could still return the row an update just invalidated.
+        return orderCache.get(id, key -> ReplicaRoutingDataSource.readFromPrimary(
+                () -> orderRepository.findRowById(key).or(() -> orderRepository.findArchivedRowById(key))));
     }
 
     @Override
     @Transactional
     public UpdateResult updateOrderStatus(Long id, int statusCode) {
-        Optional<Order> o = orderRepository.findById(id);
-        if (o.isEmpty()) return UpdateResult.NOT_FOUND;
-
-        Order order = o.get();
-        OrderStatus current = order.getStatus();
-        //only allow CREATED -> COMPLETED/CANCELLED
-        if (current == null || current != OrderStatus.CREATED) {
-            return UpdateResult.NOT_ALLOWED;
-        }
-
         OrderStatus target;
         //unknown status code return not allowed
         try {
             target = OrderStatus.fromCode(statusCode);
         } catch (IllegalArgumentException ex) {
-            return UpdateResult.NOT_ALLOWED;
+            target = null;
+        }
+        //only allow CREATED -> COMPLETED/CANCELLED
+        if (target != OrderStatus.COMPLETED && target != OrderStatus.CANCELLED) {
+            return exists(id) ? UpdateResult.NOT_ALLOWED : UpdateResult.NOT_FOUND;
         }
 
-        if (target == OrderStatus.COMPLETED || target == OrderStatus.CANCELLED) {
-            int oldCode = current == null ? 0 : current.getCode();
-            order.setStatus(target);
-            order.setUpdateTime(LocalDateTime.now());
-            orderRepository.save(order);
-
-            // publish status changed event
-            eventPublisher.publishEvent(new OrderStatusChangedEvent(this, order, oldCode, target.getCode()));
-            return UpdateResult.SUCCESS;
-        } else {
-            return UpdateResult.NOT_ALLOWED;
+        // check and write in one statement: concurrent updates cannot both pass the CREATED check
+        LocalDateTime now = LocalDateTime.now();
+        int updated = orderRepository.transitionStatus(id, OrderStatus.CREATED, target, now);
+        if (updated == 0) {
+            // only the failure path pays for the existence probe
+            return exists(id) ? UpdateResult.NOT_ALLOWED : UpdateResult.NOT_FOUND;
         }
+
+        // the row was not loaded; the event carries the fields this update knows about
+        Order order = new Order();
+        order.setId(id);
+        order.setStatus(target);
+        order.setUpdateTime(now);
+
+        // publish status changed event
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(this, order, OrderStatus.CREATED.getCode(), target.getCode()));
+        return UpdateResult.SUCCESS;
+    }
+
+    // archived orders still exist (and are terminal, so never updatable)
+    private boolean exists(Long id) {
+        return orderRepository.existsById(id) || !orderRepository.findArchivedIds(List.of(id)).isEmpty();
     }
 
+    /**
+     * Each chunk of order.bulk-status.chunk-size ids is its own transaction: its locks are released and its
+     * event delivered when it commits. A failing chunk rolls back and stops the update: the earlier chunks stay
+     * committed and keep their results, the ids of the failed chunk and of all later ones are reported as FAILED,
+     * so the caller knows exactly which ids to retry.
+     */
     @Override
-    public Page<Order> search(String productName, String customer, Integer statusCode, LocalDateTime startTime, LocalDateTime endTime, int start, int count) {
-        OrderStatus status = null;
-        if (statusCode != null) {
+    public Map<Long, UpdateResult> updateOrderStatuses(List<Long> ids, int statusCode) {
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        Map<Long, UpdateResult> results = new LinkedHashMap<>();
+        OrderStatus target = resolveStatus(statusCode);
+        boolean allowed = target == OrderStatus.COMPLETED || target == OrderStatus.CANCELLED;
+
+        LocalDateTime now = LocalDateTime.now();
+        for (int from = 0; from < distinct.size(); from += bulkStatusChunkSize) {
+            List<Long> chunk = distinct.subList(from, Math.min(distinct.size(), from + bulkStatusChunkSize));
+            // results of a chunk only count once it committed
+            Map<Long, UpdateResult> chunkResults = new HashMap<>(chunk.size() * 2);
             try {
-                status = OrderStatus.fromCode(statusCode);
-            } catch (IllegalArgumentException ex) {
-                status = null; // let repository handle null => no filter
+                chunkTransaction.executeWithoutResult(tx -> updateChunk(chunk, target, allowed, now, chunkResults));
+            } catch (RuntimeException ex) {
+                logger.error("updateOrderStatuses: chunk of {} ids starting at index {} failed, {} of {} ids left unchanged.",
+                        chunk.size(), from, distinct.size() - from, distinct.size(), ex);
+                break;
+            }
+            results.putAll(chunkResults);
+        }
+
+        // report in request order; ids without a result were rolled back or never attempted
+        Map<Long, UpdateResult> ordered = new LinkedHashMap<>(distinct.size() * 2);
+        for (Long id : distinct) {
+            ordered.put(id, results.getOrDefault(id, UpdateResult.FAILED));
+        }
+        return ordered;
+    }
+
+    private void updateChunk(List<Long> chunk, OrderStatus target, boolean allowed, LocalDateTime now, Map<Long, UpdateResult> results) {
+        List<Order> changed = new ArrayList<>();
+        if (allowed) {
+            // lock the CREATED rows first so the update touches exactly these ids even under concurrent updates
+            List<Long> locked = new ArrayList<>();
+            for (Number id : orderRepository.lockIdsInStatus(chunk, OrderStatus.CREATED.getCode())) {
+                locked.add(id.longValue());
+            }
+            if (!locked.isEmpty()) {
+                orderRepository.transitionStatuses(locked, OrderStatus.CREATED, target, now);
+                for (Long id : locked) {
+                    results.put(id, UpdateResult.SUCCESS);
+                    Order order = new Order();
+                    order.setId(id);
+                    order.setStatus(target);
+                    order.setUpdateTime(now);
+                    changed.add(order);
+                }
             }
         }
+        if (changed.size() < chunk.size()) {
+            // only ids that were not transitioned pay for the existence probe
+            List<Long> rest = new ArrayList<>(chunk.size() - changed.size());
+            for (Long id : chunk) {
+                if (!results.containsKey(id)) rest.add(id);
+            }
+            Set<Long> existing = new HashSet<>(orderRepository.findExistingIds(rest));
+            if (existing.size() < rest.size()) {
+                List<Long> missing = new ArrayList<>(rest.size() - existing.size());
+                for (Long id : rest) {
+                    if (!existing.contains(id)) missing.add(id);
+                }
+                existing.addAll(orderRepository.findArchivedIds(missing));
+            }
+            for (Long id : rest) {
+                results.put(id, existing.contains(id) ? UpdateResult.NOT_ALLOWED : UpdateResult.NOT_FOUND);
+            }
+        }
+        if (!changed.isEmpty()) {
+            eventPublisher.publishEvent(new OrdersStatusChangedEvent(this, changed, OrderStatus.CREATED.getCode(), target.getCode()));
+        }
+    }
+
+    @Override
+    public Page<OrderRow> search(String productName, String customer, Integer statusCode, LocalDateTime startTime, LocalDateTime endTime, int start, int count) {
+        OrderStatus status = resolveStatus(statusCode);
         int page = Math.max(0, start / Math.max(1, count));
         Pageable pageable = PageRequest.of(page, Math.max(1, count));
         return orderRepository.search(productName, customer, status, startTime, endTime, pageable);
     }
+
+    @Override
+    public OrderSearchPage search(String productName, String customer, Integer statusCode, LocalDateTime startTime, LocalDateTime endTime, int start, int count, TotalMode totalMode) {
+        int page = Math.max(0, start / Math.max(1, count));
+        Pageable pageable = PageRequest.of(page, Math.max(1, count));
+        return orderRepository.search(productName, customer, resolveStatus(statusCode), startTime, endTime, pageable,
+                totalMode == null ? TotalMode.EXACT : totalMode, totalCap);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportOrders(String productName, String customer, Integer statusCode, LocalDateTime startTime, LocalDateTime endTime, Consumer<OrderRow> sink) {
+        long rows = 0;
+        try (Stream<OrderRow> stream = orderRepository.streamRows(productName, customer, resolveStatus(statusCode), startTime, endTime, exportFetchSize)) {
+            Iterator<OrderRow> it = stream.iterator();
+            while (it.hasNext()) {
+                sink.accept(it.next());
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    @Override
+    public Slice<OrderRow> searchAfter(String productName, String customer, Integer statusCode, LocalDateTime startTime, LocalDateTime endTime, OrderCursor cursor, int size) {
+        return orderRepository.searchAfter(productName, customer, resolveStatus(statusCode), startTime, endTime, cursor, Math.max(1, size));
+    }
+
+    private static OrderStatus resolveStatus(Integer statusCode) {
+        if (statusCode == null) return null;
+        try {
+            return OrderStatus.fromCode(statusCode);
+        } catch (IllegalArgumentException ex) {
+            return null; // let repository handle null => no filter
+        }
+    }
 }
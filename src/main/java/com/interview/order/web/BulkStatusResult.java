@@ -0,0 +1,10 @@
+package com.interview.order.web;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * Outcome of one id in PATCH /orders/batch/status; {@code result} is an {@code OrderService.UpdateResult} name.
+ */
+@JsonPropertyOrder({"id", "result"})
+public record BulkStatusResult(long id, String result) {
+}
@@ -0,0 +1,9 @@
+package com.interview.order.web;
+
+import java.util.List;
+
+/**
+ * Body of PATCH /orders/batch/status: one result per distinct id, in request order.
+ */
+public record BulkStatusView(List<BulkStatusResult> results) {
+}
@@ -0,0 +1,43 @@
+package com.interview.order.web;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+public class BulkUpdateStatusRequest {
+
+    @NotEmpty
+    private List<@NotNull Long> ids;
+
+    @NotNull
+    @Min(1)
+    @Max(3)
+    private Integer status;
+
+    public BulkUpdateStatusRequest() {
+    }
+
+    public BulkUpdateStatusRequest(List<Long> ids, Integer status) {
+        this.ids = ids;
+        this.status = status;
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public void setStatus(Integer status) {
+        this.status = status;
+    }
+}
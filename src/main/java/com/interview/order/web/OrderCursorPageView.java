@@ -0,0 +1,12 @@
+package com.interview.order.web;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.List;
+
+/**
+ * Keyset page of GET /orders; {@code nextCursor} is null on the last page.
+ */
+@JsonPropertyOrder({"orders", "size", "nextCursor"})
+public record OrderCursorPageView(List<OrderView> orders, int size, String nextCursor) {
+}
@@ -0,0 +1,189 @@
+package com.interview.order.web;
+
+import com.interview.order.repository.OrderRow;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * Writes order rows straight to the response as NDJSON or CSV, one line per row, without building
+ * intermediate maps or documents. Field names and date format match the search response.
+ * <p>
+ * The status and headers are committed before the first row, so a failure mid-stream cannot change the status
+ * code. Instead {@link #writeError} ends the body with an error line that no row can produce: in NDJSON the usual
+ * error body {@code {"code":...,"msg":"..."}} (rows always carry {@code "id"}), in CSV a record starting with
+ * {@code #error} (row ids are numeric). A body without such a line is complete.
+ */
+public class OrderExportWriter {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * @throws IllegalArgumentException for unknown formats
+         */
+        public static Format parse(String value) {
+            return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private static final String CSV_HEADER = "id,productName,totalAmount,customer,currency,status,createtime,updatetime\n";
+
+    private final Writer out;
+    private final Format format;
+    // a row is half written, the error line has to start on a fresh line
+    private boolean lineOpen;
+
+    public OrderExportWriter(Writer out, Format format) {
+        this.out = out;
+        this.format = format;
+    }
+
+    public void writeHeader() throws IOException {
+        if (format == Format.CSV) out.write(CSV_HEADER);
+    }
+
+    /**
+     * Usable as a stream consumer; I/O failures surface as {@link UncheckedIOException}.
+     */
+    public void write(OrderRow row) {
+        try {
+            if (format == Format.CSV) writeCsv(row);
+            else writeJson(row);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Ends an aborted export with the error line described above and flushes it.
+     */
+    public void writeError(int code, String msg) throws IOException {
+        if (lineOpen) out.write('\n');
+        if (format == Format.CSV) {
+            out.write("#error,");
+            out.write(String.valueOf(code));
+            out.write(',');
+            csvField(msg);
+        } else {
+            out.write("{\"code\":");
+            out.write(String.valueOf(code));
+            out.write(",\"msg\":");
+            jsonString(msg);
+            out.write('}');
+        }
+        out.write('\n');
+        lineOpen = false;
+        out.flush();
+    }
+
+    private void writeJson(OrderRow row) throws IOException {
+        lineOpen = true;
+        out.write("{\"id\":");
+        out.write(String.valueOf(row.id()));
+        out.write(",\"productName\":");
+        jsonString(row.productName());
+        out.write(",\"totalAmount\":");
+        out.write(row.totalAmount() == null ? "null" : row.totalAmount().toPlainString());
+        out.write(",\"customer\":");
+        jsonString(row.customer());
+        out.write(",\"currency\":");
+        jsonString(row.currency());
+        out.write(",\"status\":");
+        out.write(row.status() == null ? "null" : String.valueOf(row.status().getCode()));
+        out.write(",\"createtime\":");
+        jsonString(format(row.createTime()));
+        out.write(",\"updatetime\":");
+        jsonString(format(row.updateTime()));
+        out.write("}\n");
+        lineOpen = false;
+    }
+
+    private void writeCsv(OrderRow row) throws IOException {
+        lineOpen = true;
+        out.write(String.valueOf(row.id()));
+        out.write(',');
+        csvField(row.productName());
+        out.write(',');
+        if (row.totalAmount() != null) out.write(row.totalAmount().toPlainString());
+        out.write(',');
+        csvField(row.customer());
+        out.write(',');
+        csvField(row.currency());
+        out.write(',');
+        if (row.status() != null) out.write(String.valueOf(row.status().getCode()));
+        out.write(',');
+        csvField(format(row.createTime()));
+        out.write(',');
+        csvField(format(row.updateTime()));
+        out.write('\n');
+        lineOpen = false;
+    }
+
+    private static String format(LocalDateTime time) {
+        return OrderView.formatTime(time);
+    }
+
+    private void jsonString(String value) throws IOException {
+        if (value == null) {
+            out.write("null");
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.write("\\\"");
+                case '\\' -> out.write("\\\\");
+                case '\n' -> out.write("\\n");
+                case '\r' -> out.write("\\r");
+                case '\t' -> out.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+                }
+            }
+        }
+        out.write('"');
+    }
+
+    // RFC 4180: quote when the value contains a separator, quote or line break
+    private void csvField(String value) throws IOException {
+        if (value == null) return;
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
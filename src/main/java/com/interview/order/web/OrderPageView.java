@@ -0,0 +1,19 @@
+package com.interview.order.web;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.List;
+
+/**
+ * Offset page of GET /orders. {@code total} is written even when null (total=none); {@code hasNext} is only
+ * present when the client chose a total mode.
+ */
+@JsonPropertyOrder({"orders", "total", "totalKind", "hasNext", "page", "size"})
+public record OrderPageView(List<OrderView> orders,
+                            Long total,
+                            String totalKind,
+                            @JsonInclude(JsonInclude.Include.NON_NULL) Boolean hasNext,
+                            int page,
+                            int size) {
+}
@@ -0,0 +1,76 @@
+package com.interview.order.web;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.interview.order.repository.OrderRow;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * One order in the GET /orders and GET /orders/{id} responses. Field names, order, status codes and the
+ * "yyyy-MM-dd HH:mm:ss" time format are part of the wire contract.
+ */
+@JsonPropertyOrder({"productName", "totalAmount", "customer", "currency", "status", "createtime", "updatetime"})
+public record OrderView(String productName,
+                        BigDecimal totalAmount,
+                        String customer,
+                        String currency,
+                        Integer status,
+                        String createtime,
+                        String updatetime) {
+
+    public static OrderView of(OrderRow row) {
+        return new OrderView(row.productName(), row.totalAmount(), row.customer(), row.currency(),
+                row.status() == null ? null : row.status().getCode(),
+                formatTime(row.createTime()), formatTime(row.updateTime()));
+    }
+
+    /**
+     * Views over {@code rows} created as the serializer walks the list, so a page never holds a second
+     * full copy of its rows.
+     */
+    public static List<OrderView> of(List<OrderRow> rows) {
+        return new AbstractList<>() {
+            @Override
+            public OrderView get(int index) {
+                return of(rows.get(index));
+            }
+
+            @Override
+            public int size() {
+                return rows.size();
+            }
+        };
+    }
+
+    /**
+     * Same output as {@code DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")} for years 0-9999, written into
+     * one char array instead of going through the formatter's builder and field lookups.
+     */
+    public static String formatTime(LocalDateTime time) {
+        if (time == null) return null;
+        int year = time.getYear();
+        if (year < 0 || year > 9999) throw new IllegalArgumentException("Year out of range: " + year);
+        char[] buf = new char[19];
+        digits(buf, 0, year / 100);
+        digits(buf, 2, year % 100);
+        buf[4] = '-';
+        digits(buf, 5, time.getMonthValue());
+        buf[7] = '-';
+        digits(buf, 8, time.getDayOfMonth());
+        buf[10] = ' ';
+        digits(buf, 11, time.getHour());
+        buf[13] = ':';
+        digits(buf, 14, time.getMinute());
+        buf[16] = ':';
+        digits(buf, 17, time.getSecond());
+        return new String(buf);
+    }
+
+    private static void digits(char[] buf, int at, int value) {
+        buf[at] = (char) ('0' + value / 10);
+        buf[at + 1] = (char) ('0' + value % 10);
+    }
+}
@@ -0,0 +1,16 @@
+-- Notifications taken off the outbox but not sent yet, one row per event and recipient. The outbox relay writes
+-- them in the transaction that deletes the outbox row; NotificationBatcher claims them per (channel, recipient)
+-- and deletes them only once the digest went out, so a crash or restart loses nothing.
+CREATE TABLE `notification_pending` (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT 'Pending notification id',
+    channel VARCHAR(16) NOT NULL COMMENT 'Notification channel name, e.g. email or sms',
+    recipient VARCHAR(255) NOT NULL COMMENT 'Email address or phone number',
+    event_type VARCHAR(32) NOT NULL COMMENT 'ORDER_CREATED or ORDER_STATUS_CHANGED',
+    order_id BIGINT NOT NULL COMMENT 'Order the event belongs to',
+    product_name VARCHAR(255) COMMENT 'orders.product_name when the event was relayed',
+    attempts INT NOT NULL DEFAULT 0 COMMENT 'Failed send attempts so far',
+    create_time TIMESTAMP NOT NULL COMMENT 'Time the event was taken off the outbox',
+    next_attempt_time TIMESTAMP NOT NULL COMMENT 'Earliest time the event may be (re)sent',
+    INDEX idx_next_attempt_time (next_attempt_time),
+    INDEX idx_channel_recipient (channel, recipient, next_attempt_time, id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='per-recipient notifications waiting to be sent';
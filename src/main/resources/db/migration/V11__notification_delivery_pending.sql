@@ -0,0 +1,8 @@
+-- Delivery no longer queues in memory: with digests disabled, ChannelDelivery workers claim due notification_pending
+-- rows per channel rather than per recipient. Dead letters are now only written once a row ran out of attempts
+-- (never while a breaker is open or at shutdown) and keep the product name so they can be replayed into
+-- notification_pending.
+CREATE INDEX idx_channel_next_attempt_time ON `notification_pending` (channel, next_attempt_time, id);
+
+ALTER TABLE `notification_dead_letter`
+    ADD COLUMN product_name VARCHAR(255) COMMENT 'orders.product_name when the event was relayed' AFTER order_id;
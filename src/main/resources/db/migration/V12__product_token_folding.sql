@@ -0,0 +1,18 @@
+-- Product tokens are now accent-folded the way orders.product_name compares (utf8mb4_0900_ai_ci: 'Café' = 'cafe').
+-- The token column compares bytes, so the tokenizer alone decides what matches and tokens the collation would
+-- treat as equal ('afé', 'afe') can no longer collide in the primary key.
+ALTER TABLE `order_product_token`
+    MODIFY token VARCHAR(8) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL COMMENT 'Lowercase, accent-folded trigram of product_name';
+
+-- Tokens of orders up to target_order_id predate the folding (or the index) and are rebuilt by ProductTokenIndexer,
+-- which commits last_order_id with every chunk: a restart resumes there and a finished backfill costs one read.
+-- Orders created afterwards are indexed when they are created.
+CREATE TABLE `order_product_token_backfill` (
+    id TINYINT PRIMARY KEY COMMENT 'Always 1',
+    last_order_id BIGINT NOT NULL COMMENT 'Highest order id whose tokens were rebuilt',
+    target_order_id BIGINT NOT NULL COMMENT 'Highest order id that existed when this migration ran',
+    update_time TIMESTAMP NOT NULL COMMENT 'Time of the last chunk'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='progress of the product token backfill';
+
+INSERT INTO `order_product_token_backfill` (id, last_order_id, target_order_id, update_time)
+SELECT 1, 0, GREATEST(COALESCE((SELECT MAX(id) FROM orders), 0), COALESCE((SELECT MAX(id) FROM orders_archive), 0)), CURRENT_TIMESTAMP;
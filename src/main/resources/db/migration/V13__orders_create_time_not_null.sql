@@ -0,0 +1,10 @@
+-- Cursor paging seeks on (create_time, id) < (:cursorTime, :cursorId), which no row with a NULL create_time
+-- satisfies, and OrderCursor cannot carry a NULL time. create_time becomes NOT NULL on both tables so every row has
+-- a position; rows left without one fall back to their last update, or to the migration time.
+UPDATE `orders` SET create_time = COALESCE(update_time, CURRENT_TIMESTAMP) WHERE create_time IS NULL;
+UPDATE `orders_archive` SET create_time = COALESCE(update_time, archive_time) WHERE create_time IS NULL;
+
+ALTER TABLE `orders`
+    MODIFY create_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT 'Order creation time';
+ALTER TABLE `orders_archive`
+    MODIFY create_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT 'Order creation time';
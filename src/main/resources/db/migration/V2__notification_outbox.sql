@@ -0,0 +1,18 @@
+-- Transactional outbox: order events are written in the order transaction and delivered afterwards by OutboxRelay.
+-- Ids come from a pooled sequence (emulated by a table on MySQL) so outbox inserts can be JDBC-batched.
+CREATE TABLE `notification_outbox_seq` (
+    next_val BIGINT
+) ENGINE=InnoDB COMMENT='hibernate pooled id generator for notification_outbox';
+INSERT INTO `notification_outbox_seq` VALUES (1);
+
+CREATE TABLE `notification_outbox` (
+    id BIGINT PRIMARY KEY COMMENT 'Outbox event id, from notification_outbox_seq',
+    event_type VARCHAR(32) NOT NULL COMMENT 'ORDER_CREATED or ORDER_STATUS_CHANGED',
+    order_id BIGINT NOT NULL COMMENT 'Order the event belongs to',
+    old_status TINYINT COMMENT 'Status before the change, status events only',
+    new_status TINYINT COMMENT 'Status after the change, status events only',
+    attempts INT NOT NULL DEFAULT 0 COMMENT 'Failed delivery attempts so far',
+    create_time TIMESTAMP NOT NULL COMMENT 'Time the order change committed',
+    next_attempt_time TIMESTAMP NOT NULL COMMENT 'Earliest time the relay may (re)try delivery',
+    INDEX idx_next_attempt_time (next_attempt_time, id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='order events waiting for notification delivery';
@@ -0,0 +1,8 @@
+-- Order ids come from a pooled sequence (emulated by a table on MySQL) so inserts can be JDBC-batched.
+-- With allocationSize = 50 Hibernate's pooled optimizer reads next_val and hands out next_val - 49 .. next_val,
+-- so next_val has to be at least MAX(orders.id) + 50; seeding it at MAX(id) + 51 keeps the first block clear of
+-- every existing id (AUTO_INCREMENT rows from data.sql included).
+CREATE TABLE `orders_seq` (
+    next_val BIGINT
+) ENGINE=InnoDB COMMENT='hibernate pooled id generator for orders';
+INSERT INTO `orders_seq` (next_val) SELECT COALESCE(MAX(id), 0) + 50 + 1 FROM `orders`;
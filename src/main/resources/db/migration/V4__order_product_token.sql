@@ -0,0 +1,10 @@
+-- Product name trigram index: one row per distinct lowercase trigram per order, maintained on order creation
+-- and backfilled at startup (order.search.product-index.backfill-on-startup). Lets '%term%' searches
+-- narrow by (customer, token) before the LIKE check.
+CREATE TABLE `order_product_token` (
+    customer VARCHAR(255) NOT NULL COMMENT 'Order customer, leading key so searches stay per customer',
+    token VARCHAR(8) NOT NULL COMMENT 'Lowercase trigram of product_name',
+    order_id BIGINT NOT NULL COMMENT 'orders.id',
+    PRIMARY KEY (customer, token, order_id),
+    INDEX idx_token_order_id (order_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='trigram index over orders.product_name';
@@ -0,0 +1,12 @@
+-- Composite indexes matching the filters OrderSearchQueries builds. Searches filter on customer = ?, optionally
+-- status = ? and a create_time range. Keyset pages (first page and (create_time, id) cursor alike) are ordered by
+-- create_time DESC, id DESC, so both indexes end in (create_time, id) to serve that ORDER BY without a filesort.
+-- Offset pages have no ORDER BY unless a product name is given (then they are ranked by match and sorted); the
+-- indexes serve their filters only.
+--   customer [+ create_time range] [+ cursor]            -> idx_customer_create_time_id
+--   customer + status [+ create_time range] [+ cursor]   -> idx_customer_status_create_time
+-- idx_customer is a prefix of both and is dropped.
+ALTER TABLE `orders`
+    ADD INDEX idx_customer_create_time_id (customer, create_time, id),
+    ADD INDEX idx_customer_status_create_time (customer, status, create_time, id),
+    DROP INDEX idx_customer;
@@ -0,0 +1,12 @@
+-- Idempotency-Key records for POST /orders: the first request with a key stores the order it created,
+-- retries within the TTL get that order id back. Expired rows are purged by IdempotencyService.
+CREATE TABLE `idempotency_key` (
+    owner VARCHAR(64) NOT NULL COMMENT 'Authenticated user the key belongs to',
+    idem_key VARCHAR(255) NOT NULL COMMENT 'Client supplied Idempotency-Key header',
+    request_hash CHAR(44) NOT NULL COMMENT 'Base64 SHA-256 of the request body fields, detects key reuse for another order',
+    order_id BIGINT NOT NULL COMMENT 'Order created by the first request',
+    create_time TIMESTAMP NOT NULL COMMENT 'First request time',
+    expire_time TIMESTAMP NOT NULL COMMENT 'Key can be reused after this time',
+    PRIMARY KEY (owner, idem_key),
+    INDEX idx_expire_time (expire_time)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='idempotency keys of order creation requests';
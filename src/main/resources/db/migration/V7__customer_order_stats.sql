@@ -0,0 +1,17 @@
+-- Per-customer order aggregates: one row per (customer, status, currency), maintained incrementally inside the
+-- order write transactions by CustomerOrderStatsService and rebuilt from orders by its scheduled job.
+-- Amounts are summed at 2 decimals (orders.total_amount is a FLOAT column).
+CREATE TABLE `customer_order_stats` (
+    customer VARCHAR(255) NOT NULL COMMENT 'orders.customer',
+    status TINYINT NOT NULL COMMENT 'Order status: 1, CREATED; 2, COMPLETED; 3, CANCELED',
+    currency VARCHAR(10) NOT NULL COMMENT 'orders.currency',
+    order_count BIGINT NOT NULL COMMENT 'Orders of the customer in this status and currency',
+    total_amount DECIMAL(20, 2) NOT NULL COMMENT 'Sum of total_amount of those orders',
+    PRIMARY KEY (customer, status, currency)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='order counts and amounts per customer, status and currency';
+
+INSERT INTO `customer_order_stats` (customer, status, currency, order_count, total_amount)
+SELECT customer, status, COALESCE(currency, 'RMB'), COUNT(*), COALESCE(SUM(CAST(total_amount AS DECIMAL(20, 2))), 0)
+FROM `orders`
+WHERE customer IS NOT NULL AND status IS NOT NULL
+GROUP BY customer, status, COALESCE(currency, 'RMB');
@@ -0,0 +1,17 @@
+-- Cold storage for COMPLETED/CANCELLED orders older than order.archive.min-age-days, filled in small chunks by
+-- OrderArchiver. Same columns and search indexes as orders, so a search runs the same statements on either
+-- table; idx_create_time serves the archiver's and the time-bounded searches' range scans.
+CREATE TABLE `orders_archive` (
+    id BIGINT PRIMARY KEY COMMENT 'orders.id of the archived order',
+    product_name VARCHAR(255) COMMENT 'Product name',
+    customer VARCHAR(255) COMMENT 'Who buy it',
+    `total_amount` FLOAT COMMENT 'Total amount of money the order paid',
+    currency VARCHAR(10) DEFAULT 'RMB' COMMENT 'Currency,default is RMB',
+    status TINYINT COMMENT 'Order status: 2, COMPLETED; 3, CANCELED (only terminal orders are archived)',
+    create_time TIMESTAMP NULL COMMENT 'Order creation time',
+    update_time TIMESTAMP NULL COMMENT 'Order update time',
+    archive_time TIMESTAMP NOT NULL COMMENT 'Time the order moved out of orders',
+    INDEX idx_customer_create_time_id (customer, create_time, id),
+    INDEX idx_customer_status_create_time (customer, status, create_time, id),
+    INDEX idx_create_time (create_time)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='archived terminal orders, searched only when a time range reaches them';
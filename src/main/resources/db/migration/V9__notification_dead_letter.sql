@@ -0,0 +1,14 @@
+-- Notifications a channel gave up on after running out of send attempts; an open circuit breaker or a shutdown
+-- leaves events in notification_pending instead. One row per event and recipient, kept for inspection and manual
+-- replay.
+CREATE TABLE `notification_dead_letter` (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT 'Dead letter id',
+    channel VARCHAR(16) NOT NULL COMMENT 'email or sms',
+    recipient VARCHAR(255) NOT NULL COMMENT 'Email address or phone number',
+    event_type VARCHAR(32) NOT NULL COMMENT 'ORDER_CREATED or ORDER_STATUS_CHANGED',
+    order_id BIGINT NOT NULL COMMENT 'Order the event belongs to',
+    attempts INT NOT NULL COMMENT 'Send attempts made before giving up',
+    last_error VARCHAR(512) COMMENT 'Reason of the last failure',
+    create_time TIMESTAMP NOT NULL COMMENT 'Time the event was dead-lettered',
+    INDEX idx_create_time (create_time)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='notifications that could not be delivered';
@@ -0,0 +1,63 @@
+package com.interview.order.benchmark;
+
+import com.interview.order.service.OrderService;
+import com.interview.order.web.CreateOrderRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Orders/sec of POST /orders style single inserts versus one batched create, against the configured database.
+ * Opt-in because it writes real rows: {@code mvn test -Dbenchmark=true -Dtest=OrderBatchInsertBenchmark}
+ */
+@SpringBootTest(properties = "notification.outbox.relay.enabled=false")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class OrderBatchInsertBenchmark {
+
+    private static final int ORDERS = Integer.getInteger("benchmark.orders", 2000);
+    private static final int BATCH = Integer.getInteger("benchmark.batch", 500);
+
+    @Autowired
+    private OrderService orderService;
+
+    @Test
+    void singleVersusBatchInsert() {
+        List<CreateOrderRequest> reqs = requests(ORDERS);
+
+        // warm up connection pool, sequence allocation and statement cache
+        orderService.createOrders(requests(BATCH));
+        for (CreateOrderRequest req : requests(50)) orderService.createOrder(req);
+
+        long t0 = System.nanoTime();
+        for (CreateOrderRequest req : reqs) {
+            orderService.createOrder(req);
+        }
+        long single = System.nanoTime() - t0;
+
+        t0 = System.nanoTime();
+        for (int i = 0; i < reqs.size(); i += BATCH) {
+            orderService.createOrders(reqs.subList(i, Math.min(i + BATCH, reqs.size())));
+        }
+        long batched = System.nanoTime() - t0;
+
+        System.out.printf("[BENCH] single inserts : %8.0f orders/sec (%d orders)%n", ORDERS / (single / 1e9), ORDERS);
+        System.out.printf("[BENCH] batch of %-5d : %8.0f orders/sec (%d orders)%n", BATCH, ORDERS / (batched / 1e9), ORDERS);
+    }
+
+    private static List<CreateOrderRequest> requests(int n) {
+        List<CreateOrderRequest> reqs = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            CreateOrderRequest req = new CreateOrderRequest();
+            req.setProductName("Bench-" + i);
+            req.setCustomer("bench");
+            req.setTotalAmount(new BigDecimal("9.99"));
+            reqs.add(req);
+        }
+        return reqs;
+    }
+}
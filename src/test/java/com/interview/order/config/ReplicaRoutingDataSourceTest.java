@@ -0,0 +1,121 @@
+package com.interview.order.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+    @Mock
+    private DataSource replica0;
+    @Mock
+    private DataSource replica1;
+    @Mock
+    private Connection primaryConnection;
+    @Mock
+    private Connection replicaConnection;
+
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() {
+        routing = new ReplicaRoutingDataSource(primary, List.of(replica0, replica1), 0, 60_000, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void clearUser() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readsAreSpreadOverReplicas() throws SQLException {
+        when(replica0.getConnection()).thenReturn(replicaConnection);
+        when(replica1.getConnection()).thenReturn(replicaConnection);
+
+        routing.getConnection();
+        routing.getConnection();
+
+        verify(replica0).getConnection();
+        verify(replica1).getConnection();
+        verifyNoInteractions(primary);
+    }
+
+    @Test
+    void unreachableReplicaIsSkippedAndLastResortIsPrimary() throws SQLException {
+        when(replica0.getConnection()).thenThrow(new SQLException("down"));
+        when(replica1.getConnection()).thenThrow(new SQLException("down"));
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+        assertThat(routing.isHealthy(0)).isFalse();
+        assertThat(routing.isHealthy(1)).isFalse();
+
+        // unhealthy replicas are not tried again until a health check passes
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+        verify(replica0, times(1)).getConnection();
+    }
+
+    @Test
+    void healthCheckRestoresReplica() throws SQLException {
+        when(replica0.getConnection()).thenThrow(new SQLException("down")).thenReturn(replicaConnection);
+        when(replica1.getConnection()).thenThrow(new SQLException("down"));
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        routing.getConnection();
+
+        when(replicaConnection.isValid(anyInt())).thenReturn(true);
+        routing.checkReplicas();
+
+        assertThat(routing.isHealthy(0)).isTrue();
+        assertThat(routing.isHealthy(1)).isFalse();
+    }
+
+    @Test
+    void userWhoJustWroteReadsFromPrimary() throws SQLException {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("alice", null, List.of()));
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        // outside a transaction the write counts immediately
+        routing.writeDataSource().getConnection();
+
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+        verifyNoInteractions(replica0, replica1);
+    }
+
+    @Test
+    void pinnedReadGoesToPrimaryWithoutOpeningReadYourWrites() throws SQLException {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("bob", null, List.of()));
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica0.getConnection()).thenReturn(replicaConnection);
+
+        assertThat(ReplicaRoutingDataSource.readFromPrimary(this::connection)).isSameAs(primaryConnection);
+        assertThat(ReplicaRoutingDataSource.isReadingFromPrimary()).isFalse();
+
+        // the next read of the same user is routed as usual
+        assertThat(routing.getConnection()).isSameAs(replicaConnection);
+    }
+
+    private Connection connection() {
+        try {
+            return routing.getConnection();
+        } catch (SQLException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
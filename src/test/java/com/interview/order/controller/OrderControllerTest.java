@@ -3,6 +3,11 @@ package com.interview.order.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.interview.order.entity.Order;
 import com.interview.order.entity.OrderStatus;
+import com.interview.order.repository.OrderCursor;
+import com.interview.order.repository.OrderRow;
+import com.interview.order.repository.OrderSearchPage;
+import com.interview.order.repository.TotalMode;
+import com.interview.order.service.IdempotencyService;
 import com.interview.order.service.OrderService;
 import com.interview.order.web.CreateOrderRequest;
 import com.interview.order.web.ApiRestResponse;
@@ -14,14 +19,18 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -36,14 +45,19 @@ class OrderControllerTest {
     @Mock
     private OrderService orderService;
 
+    @Mock
+    private IdempotencyService idempotencyService;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     private Order sampleOrder;
 
+    private OrderRow sampleRow;
+
     @BeforeEach
     void setUp() {
         // build controller with mocked service using standalone MockMvc
-        OrderController controller = new OrderController(orderService);
+        OrderController controller = new OrderController(orderService, idempotencyService);
         this.mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
 
         sampleOrder = new Order();
@@ -55,6 +69,9 @@ class OrderControllerTest {
         sampleOrder.setStatus(OrderStatus.CREATED);
         sampleOrder.setCreateTime(LocalDateTime.now());
         sampleOrder.setUpdateTime(LocalDateTime.now());
+
+        sampleRow = new OrderRow(10L, "Gadget", "Bob", new BigDecimal("99.99"), "USD", OrderStatus.CREATED,
+                sampleOrder.getCreateTime(), sampleOrder.getUpdateTime());
     }
 
     @Test
@@ -76,9 +93,79 @@ class OrderControllerTest {
         verify(orderService, times(1)).createOrder(any());
     }
 
+    @Test
+    void createOrder_idempotencyKeyReplay_returnsOriginalId() throws Exception {
+        CreateOrderRequest req = new CreateOrderRequest();
+        req.setProductName("Gadget");
+        req.setCustomer("Bob");
+        req.setTotalAmount(new BigDecimal("99.99"));
+
+        when(idempotencyService.createOrder(eq(""), eq("k-1"), any(CreateOrderRequest.class)))
+                .thenReturn(new IdempotencyService.Outcome(IdempotencyService.Status.REPLAYED, 10L));
+
+        mockMvc.perform(post("/orders")
+                        .header("Idempotency-Key", "k-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.data.id").value(10));
+
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    void createOrder_idempotencyKeyMismatch_unprocessable() throws Exception {
+        CreateOrderRequest req = new CreateOrderRequest();
+        req.setProductName("Gadget");
+        req.setCustomer("Bob");
+        req.setTotalAmount(new BigDecimal("1.00"));
+
+        when(idempotencyService.createOrder(eq(""), eq("k-1"), any(CreateOrderRequest.class)))
+                .thenReturn(new IdempotencyService.Outcome(IdempotencyService.Status.MISMATCH, null));
+
+        mockMvc.perform(post("/orders")
+                        .header("Idempotency-Key", "k-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.code").value(ApiRestResponse.NOT_ALLOWED_CODE));
+    }
+
+    @Test
+    void createOrders_batch_ok() throws Exception {
+        Order second = new Order();
+        second.setId(11L);
+        when(orderService.createOrders(anyList())).thenReturn(List.of(sampleOrder, second));
+
+        CreateOrderRequest req = new CreateOrderRequest();
+        req.setProductName("Gadget");
+        req.setCustomer("Bob");
+        req.setTotalAmount(new BigDecimal("99.99"));
+
+        mockMvc.perform(post("/orders/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(req, req))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data.ids[0]").value(10))
+                .andExpect(jsonPath("$.data.ids[1]").value(11));
+
+        verify(orderService, times(1)).createOrders(anyList());
+    }
+
+    @Test
+    void createOrders_emptyBatch_badRequest() throws Exception {
+        mockMvc.perform(post("/orders/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(orderService);
+    }
+
     @Test
     void retrieveOrder_found() throws Exception {
-        when(orderService.getOrder(10L)).thenReturn(Optional.of(sampleOrder));
+        when(orderService.getOrder(10L)).thenReturn(Optional.of(sampleRow));
 
         mockMvc.perform(get("/orders/10"))
                 .andExpect(status().isOk())
@@ -119,27 +206,208 @@ class OrderControllerTest {
 
     @Test
     void searchOrders_ok() throws Exception {
-        Page<Order> page = new PageImpl<>(List.of(sampleOrder), PageRequest.of(0, 10), 1);
+        Page<OrderRow> page = new PageImpl<>(List.of(sampleRow), PageRequest.of(0, 10), 1);
         when(orderService.search(nullable(String.class), eq("Bob"), any(), any(), any(), anyInt(), anyInt())).thenReturn(page);
 
         mockMvc.perform(get("/orders").param("start", "0").param("count", "10").param("customer", "Bob"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.code").value(ApiRestResponse.OK_CODE))
                 .andExpect(jsonPath("$.data.total").value(1))
+                .andExpect(jsonPath("$.data.totalKind").value("EXACT"))
                 .andExpect(jsonPath("$.data.orders[0].productName").value("Gadget"));
 
         verify(orderService, times(1)).search(nullable(String.class), eq("Bob"), any(), any(), any(), anyInt(), anyInt());
     }
 
+    @Test
+    void searchOrders_wireFormatUnchanged() throws Exception {
+        LocalDateTime t = LocalDateTime.of(2026, 1, 2, 9, 5, 7);
+        OrderRow row = new OrderRow(10L, "Gadget", "Bob", new BigDecimal("99.90"), "USD", OrderStatus.COMPLETED, t, t.plusDays(1));
+        Page<OrderRow> page = new PageImpl<>(List.of(row), PageRequest.of(0, 10), 1);
+        when(orderService.search(nullable(String.class), eq("Bob"), any(), any(), any(), anyInt(), anyInt())).thenReturn(page);
+
+        mockMvc.perform(get("/orders").param("customer", "Bob"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(org.hamcrest.Matchers.containsString(
+                        "{\"orders\":[{\"productName\":\"Gadget\",\"totalAmount\":99.90,\"customer\":\"Bob\",\"currency\":\"USD\",\"status\":2,"
+                                + "\"createtime\":\"2026-01-02 09:05:07\",\"updatetime\":\"2026-01-03 09:05:07\"}],"
+                                + "\"total\":1,\"totalKind\":\"EXACT\",\"page\":0,\"size\":10}")));
+    }
+
+    @Test
+    void searchOrders_noTotal_writesNullTotalAndHasNext() throws Exception {
+        OrderSearchPage result = new OrderSearchPage(List.of(sampleRow), null, OrderSearchPage.TotalKind.NONE, false);
+        when(orderService.search(nullable(String.class), eq("Bob"), any(), any(), any(), anyInt(), anyInt(), eq(TotalMode.NONE))).thenReturn(result);
+
+        mockMvc.perform(get("/orders").param("customer", "Bob").param("total", "none"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(org.hamcrest.Matchers.containsString("\"total\":null,\"totalKind\":\"NONE\",\"hasNext\":false,\"page\":0,\"size\":10}")));
+    }
+
+    @Test
+    void searchOrders_cappedTotal_reportsKind() throws Exception {
+        OrderSearchPage result = new OrderSearchPage(List.of(sampleRow), 1000L, OrderSearchPage.TotalKind.AT_LEAST, true);
+        when(orderService.search(nullable(String.class), eq("Bob"), any(), any(), any(), anyInt(), anyInt(), eq(TotalMode.CAPPED))).thenReturn(result);
+
+        mockMvc.perform(get("/orders").param("customer", "Bob").param("total", "capped"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.total").value(1000))
+                .andExpect(jsonPath("$.data.totalKind").value("AT_LEAST"))
+                .andExpect(jsonPath("$.data.hasNext").value(true));
+    }
+
+    @Test
+    void searchOrders_unknownTotalMode_badRequest() throws Exception {
+        mockMvc.perform(get("/orders").param("customer", "Bob").param("total", "sometimes"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    void searchOrders_cursorMode_returnsNextCursor() throws Exception {
+        SliceImpl<OrderRow> slice = new SliceImpl<>(List.of(sampleRow), PageRequest.of(0, 1), true);
+        when(orderService.searchAfter(nullable(String.class), eq("Bob"), any(), any(), any(), isNull(), eq(1))).thenReturn(slice);
+
+        mockMvc.perform(get("/orders").param("customer", "Bob").param("size", "1").param("cursor", ""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.orders[0].productName").value("Gadget"))
+                .andExpect(jsonPath("$.data.nextCursor").value(OrderCursor.of(sampleRow).encode()))
+                .andExpect(jsonPath("$.data.total").doesNotExist());
+
+        verify(orderService, never()).search(any(), any(), any(), any(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void searchOrders_cursorMode_passesDecodedCursor() throws Exception {
+        OrderCursor cursor = OrderCursor.of(sampleRow);
+        when(orderService.searchAfter(nullable(String.class), eq("Bob"), any(), any(), any(), eq(cursor), anyInt()))
+                .thenReturn(new SliceImpl<>(List.of(), PageRequest.of(0, 10), false));
+
+        mockMvc.perform(get("/orders").param("customer", "Bob").param("cursor", cursor.encode()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void searchOrders_invalidCursor_badRequest() throws Exception {
+        mockMvc.perform(get("/orders").param("customer", "Bob").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    void exportOrders_ndjson() throws Exception {
+        LocalDateTime t = LocalDateTime.of(2026, 1, 2, 10, 15, 30);
+        when(orderService.exportOrders(nullable(String.class), eq("Bob"), any(), any(), any(), any())).thenAnswer(inv -> {
+            Consumer<OrderRow> sink = inv.getArgument(5);
+            sink.accept(new OrderRow(10L, "Gadget \"X\"", "Bob", new BigDecimal("99.99"), "USD", OrderStatus.CREATED, t, t));
+            sink.accept(new OrderRow(11L, "Widget", "Bob", new BigDecimal("5.00"), "RMB", OrderStatus.COMPLETED, t, t));
+            return 2L;
+        });
+
+        mockMvc.perform(get("/orders/export").param("customer", "Bob"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andExpect(content().string(
+                        "{\"id\":10,\"productName\":\"Gadget \\\"X\\\"\",\"totalAmount\":99.99,\"customer\":\"Bob\",\"currency\":\"USD\",\"status\":1,\"createtime\":\"2026-01-02 10:15:30\",\"updatetime\":\"2026-01-02 10:15:30\"}\n"
+                                + "{\"id\":11,\"productName\":\"Widget\",\"totalAmount\":5.00,\"customer\":\"Bob\",\"currency\":\"RMB\",\"status\":2,\"createtime\":\"2026-01-02 10:15:30\",\"updatetime\":\"2026-01-02 10:15:30\"}\n"));
+    }
+
+    @Test
+    void exportOrders_csvQuotesSeparators() throws Exception {
+        LocalDateTime t = LocalDateTime.of(2026, 1, 2, 10, 15, 30);
+        when(orderService.exportOrders(nullable(String.class), eq("Bob"), any(), any(), any(), any())).thenAnswer(inv -> {
+            Consumer<OrderRow> sink = inv.getArgument(5);
+            sink.accept(new OrderRow(10L, "Cable, 2m", "Bob", new BigDecimal("9.50"), "RMB", OrderStatus.CANCELLED, t, t));
+            return 1L;
+        });
+
+        mockMvc.perform(get("/orders/export").param("customer", "Bob").param("format", "csv"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("id,productName,totalAmount,customer,currency,status,createtime,updatetime\n"
+                        + "10,\"Cable, 2m\",9.50,Bob,RMB,3,2026-01-02 10:15:30,2026-01-02 10:15:30\n"));
+    }
+
+    @Test
+    void exportOrders_failureMidStream_endsWithErrorLine() throws Exception {
+        LocalDateTime t = LocalDateTime.of(2026, 1, 2, 10, 15, 30);
+        when(orderService.exportOrders(nullable(String.class), eq("Bob"), any(), any(), any(), any())).thenAnswer(inv -> {
+            Consumer<OrderRow> sink = inv.getArgument(5);
+            sink.accept(new OrderRow(10L, "Widget", "Bob", new BigDecimal("5.00"), "RMB", OrderStatus.CREATED, t, t));
+            throw new IllegalStateException("cursor lost");
+        });
+
+        mockMvc.perform(get("/orders/export").param("customer", "Bob"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(
+                        "{\"id\":10,\"productName\":\"Widget\",\"totalAmount\":5.00,\"customer\":\"Bob\",\"currency\":\"RMB\",\"status\":1,\"createtime\":\"2026-01-02 10:15:30\",\"updatetime\":\"2026-01-02 10:15:30\"}\n"
+                                + "{\"code\":50000,\"msg\":\"Something Wrong\"}\n"));
+    }
+
+    @Test
+    void exportOrders_csvFailureMidStream_endsWithErrorRecord() throws Exception {
+        when(orderService.exportOrders(nullable(String.class), eq("Bob"), any(), any(), any(), any()))
+                .thenThrow(new IllegalStateException("cursor lost"));
+
+        mockMvc.perform(get("/orders/export").param("customer", "Bob").param("format", "csv"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("id,productName,totalAmount,customer,currency,status,createtime,updatetime\n"
+                        + "#error,50000,Something Wrong\n"));
+    }
+
+    @Test
+    void exportOrders_unknownFormat_badRequest() throws Exception {
+        mockMvc.perform(get("/orders/export").param("customer", "Bob").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    void updateOrderStatuses_returnsResultPerId() throws Exception {
+        Map<Long, OrderService.UpdateResult> res = new LinkedHashMap<>();
+        res.put(1L, OrderService.UpdateResult.SUCCESS);
+        res.put(2L, OrderService.UpdateResult.NOT_FOUND);
+        when(orderService.updateOrderStatuses(List.of(1L, 2L), 2)).thenReturn(res);
+
+        mockMvc.perform(patch("/orders/batch/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[1,2],\"status\":2}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.results[0].id").value(1))
+                .andExpect(jsonPath("$.data.results[0].result").value("SUCCESS"))
+                .andExpect(jsonPath("$.data.results[1].result").value("NOT_FOUND"));
+
+        verify(orderService, never()).updateOrderStatus(any(), anyInt());
+    }
+
+    @Test
+    void updateOrderStatuses_failedChunkIsReportedPerId() throws Exception {
+        Map<Long, OrderService.UpdateResult> res = new LinkedHashMap<>();
+        res.put(1L, OrderService.UpdateResult.SUCCESS);
+        res.put(2L, OrderService.UpdateResult.FAILED);
+        when(orderService.updateOrderStatuses(List.of(1L, 2L), 3)).thenReturn(res);
+
+        mockMvc.perform(patch("/orders/batch/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[1,2],\"status\":3}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.results.length()").value(2))
+                .andExpect(jsonPath("$.data.results[1].id").value(2))
+                .andExpect(jsonPath("$.data.results[1].result").value("FAILED"));
+    }
+
     @Test
     void directSearchInvocation() {
         // setup
-        OrderController controller = new OrderController(orderService);
-        Page<Order> page = new PageImpl<>(List.of(sampleOrder), PageRequest.of(0, 10), 1);
+        OrderController controller = new OrderController(orderService, idempotencyService);
+        Page<OrderRow> page = new PageImpl<>(List.of(sampleRow), PageRequest.of(0, 10), 1);
         when(orderService.search(anyString(), anyString(), any(), any(), any(), anyInt(), anyInt())).thenReturn(page);
 
         try {
-            var resp = controller.searchOrders(null, "Bob", null, null, null, 0, 10, null, null);
+            var resp = controller.searchOrders(null, "Bob", null, null, null, 0, 10, null, null, null, null);
             System.out.println("[DIRECT] status=" + resp.getStatusCode().value() + " body=" + resp.getBody());
         } catch (Exception ex) {
             System.out.println("[DIRECT] exception: " + ex);
@@ -0,0 +1,207 @@
+package com.interview.order.notification;
+
+import com.interview.order.entity.NotificationDeadLetter;
+import com.interview.order.entity.NotificationPending;
+import com.interview.order.repository.NotificationDeadLetterRepository;
+import com.interview.order.repository.NotificationPendingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChannelDeliveryTest {
+
+    @Mock
+    private NotificationPendingRepository pendingRepository;
+
+    @Mock
+    private NotificationDeadLetterRepository deadLetterRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry registry;
+    private StubNotification gateway;
+    private ChannelDelivery delivery;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        gateway = new StubNotification();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (delivery != null) delivery.close();
+    }
+
+    @Test
+    void sentRowsAreDeleted() {
+        delivery = delivery(settings(3, 0, 5, 60_000));
+        List<NotificationPending> rows = List.of(row(1L, 0), row(2L, 0));
+        when(pendingRepository.lockDueForChannel(eq("stub"), any(), any())).thenReturn(rows);
+
+        assertThat(delivery.drainBatch()).isEqualTo(2);
+
+        assertThat(gateway.sent).containsExactly("stub:1", "stub:2");
+        verify(pendingRepository).deleteAllInBatch(rows);
+        verifyNoInteractions(deadLetterRepository);
+    }
+
+    @Test
+    void failedSendIsRescheduledWithJitteredBackoff() {
+        gateway.failNext(1);
+        delivery = delivery(settings(3, 0, 5, 60_000));
+        NotificationPending failed = row(1L, 0);
+        NotificationPending sent = row(2L, 0);
+        when(pendingRepository.lockDueForChannel(eq("stub"), any(), any())).thenReturn(List.of(failed, sent));
+
+        LocalDateTime before = LocalDateTime.now();
+        delivery.drainBatch();
+
+        assertThat(failed.getAttempts()).isEqualTo(1);
+        assertThat(failed.getNextAttemptTime()).isAfter(before);
+        verify(pendingRepository).deleteAllInBatch(List.of(sent));
+        assertThat(registry.get("notification.delivery.retries").tag("channel", "stub").counter().count()).isEqualTo(1.0);
+        verifyNoInteractions(deadLetterRepository);
+    }
+
+    @Test
+    void exhaustedAttemptsMoveTheRowToTheDeadLetterStore() {
+        gateway.failNext(1);
+        delivery = delivery(settings(2, 0, 5, 60_000));
+        NotificationPending last = row(7L, 1);
+        when(pendingRepository.lockDueForChannel(eq("stub"), any(), any())).thenReturn(List.of(last));
+
+        delivery.drainBatch();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<NotificationDeadLetter>> letters = ArgumentCaptor.forClass(List.class);
+        verify(deadLetterRepository).saveAll(letters.capture());
+        NotificationDeadLetter letter = letters.getValue().get(0);
+        assertThat(letter.getOrderId()).isEqualTo(7L);
+        assertThat(letter.getProductName()).isEqualTo("p7");
+        assertThat(letter.getAttempts()).isEqualTo(2);
+        assertThat(letter.getLastError()).isEqualTo("gateway error");
+        // removed from notification_pending in the same transaction
+        verify(pendingRepository).deleteAllInBatch(List.of(last));
+    }
+
+    @Test
+    void openCircuitLeavesTheRestOfTheBatchUntouched() {
+        gateway.failNext(10);
+        delivery = delivery(settings(5, 0, 2, 60_000));
+        List<NotificationPending> rows = List.of(row(1L, 0), row(2L, 0), row(3L, 0), row(4L, 0));
+        List<LocalDateTime> due = rows.stream().map(NotificationPending::getNextAttemptTime).toList();
+        when(pendingRepository.lockDueForChannel(eq("stub"), any(), any())).thenReturn(rows);
+
+        assertThat(delivery.drainBatch()).isEqualTo(2);
+
+        assertThat(gateway.calls.get()).isEqualTo(2);
+        assertThat(delivery.circuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(rows.subList(2, 4)).extracting(NotificationPending::getAttempts).containsExactly(0, 0);
+        assertThat(rows.subList(2, 4)).extracting(NotificationPending::getNextAttemptTime).containsExactlyElementsOf(due.subList(2, 4));
+        assertThat(registry.get("notification.delivery.shed").tag("channel", "stub").counter().count()).isEqualTo(1.0);
+        verifyNoInteractions(deadLetterRepository);
+    }
+
+    @Test
+    void openCircuitRejectsSendWithoutCallingGateway() {
+        gateway.failNext(10);
+        delivery = delivery(settings(5, 0, 1, 60_000));
+
+        assertThatThrownBy(() -> delivery.send("stub", item(1L))).hasMessage("gateway error");
+        assertThatThrownBy(() -> delivery.send("stub", item(2L))).isInstanceOf(ChannelDelivery.CircuitOpenException.class);
+
+        assertThat(gateway.calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void sendsAreRateLimited() {
+        // 20 per second, burst of 1: five sends need at least four refill intervals of 50 ms
+        delivery = delivery(settings(1, 20, 5, 60_000));
+
+        long start = System.nanoTime();
+        for (long id = 1; id <= 5; id++) {
+            delivery.send("stub", item(id));
+        }
+
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(150_000_000L);
+        assertThat(gateway.sent).hasSize(5);
+        assertThat(registry.get("notification.delivery.throttled").tag("channel", "stub").timer().count()).isGreaterThan(0);
+    }
+
+    @Test
+    void workersSendPendingRowsUntilClosed() {
+        gateway.latency(50);
+        delivery = delivery(settings(3, 0, 5, 60_000));
+        NotificationPending first = row(1L, 0);
+        NotificationPending second = row(2L, 0);
+        when(pendingRepository.lockDueForChannel(eq("stub"), any(), any())).thenReturn(List.of(first, second), List.of());
+
+        delivery.start();
+
+        await(() -> gateway.sent.size() == 2);
+        verify(pendingRepository, timeout(5000)).deleteAllInBatch(List.of(first, second));
+        delivery.close();
+        assertThat(gateway.sent).containsExactly("stub:1", "stub:2");
+    }
+
+    @Test
+    void backoffIsJitteredWithinTheCeiling() {
+        delivery = delivery(settings(5, 0, 5, 60_000));
+
+        for (int i = 0; i < 20; i++) {
+            // backoff-ms 1, max-backoff-ms 5: attempt 3 has a ceiling of 4
+            assertThat(delivery.backoffMillis(3)).isBetween(2L, 4L);
+            assertThat(delivery.backoffMillis(10)).isBetween(2L, 5L);
+        }
+    }
+
+    private ChannelDelivery delivery(ChannelDelivery.Settings settings) {
+        return new ChannelDelivery("stub", gateway, settings, pendingRepository, deadLetterRepository, transactionManager, registry);
+    }
+
+    private static ChannelDelivery.Settings settings(int maxAttempts, double ratePerSecond, int failureThreshold, long openMs) {
+        return new ChannelDelivery.Settings(1, 10, 20, maxAttempts, 1, 5, ratePerSecond, 1, failureThreshold, openMs, 5000);
+    }
+
+    private static NotificationPending row(Long orderId, int attempts) {
+        NotificationPending row = new NotificationPending("stub", "stub", NotificationDispatcher.ORDER_CREATED, orderId, "p" + orderId,
+                LocalDateTime.now().minusSeconds(1));
+        row.setAttempts(attempts);
+        return row;
+    }
+
+    private static List<NotificationItem> item(Long orderId) {
+        return List.of(new NotificationItem(orderId, "p", NotificationDispatcher.ORDER_CREATED));
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 5 s").isLessThan(deadline);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
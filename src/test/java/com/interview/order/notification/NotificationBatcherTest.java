@@ -0,0 +1,182 @@
+package com.interview.order.notification;
+
+import com.interview.order.entity.NotificationPending;
+import com.interview.order.entity.Order;
+import com.interview.order.repository.NotificationPendingRepository;
+import com.interview.order.repository.PendingRecipient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationBatcherTest {
+
+    @Mock
+    private EmailNotification email;
+
+    @Mock
+    private NotificationPendingRepository pendingRepository;
+
+    @Mock
+    private NotificationRouting routing;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private NotificationDelivery delivery;
+
+    private SimpleMeterRegistry registry;
+    private NotificationBatcher batcher;
+    private NotificationRouting.Route route;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        batcher = new NotificationBatcher(true, 5000, 3, 60_000, pendingRepository, routing, null, transactionManager, registry);
+        route = new NotificationRouting.Route("email", email, List.of("a@example.com", "b@example.com"));
+    }
+
+    @Test
+    void addStoresOneRowPerRecipient() {
+        batcher.add(route, order(1L), NotificationDispatcher.ORDER_CREATED);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<NotificationPending>> rows = ArgumentCaptor.forClass(List.class);
+        verify(pendingRepository).saveAll(rows.capture());
+        assertThat(rows.getValue()).extracting(NotificationPending::getChannel, NotificationPending::getRecipient, NotificationPending::getOrderId)
+                .containsExactly(tuple("email", "a@example.com", 1L), tuple("email", "b@example.com", 1L));
+        verifyNoInteractions(email);
+    }
+
+    @Test
+    void dueRecipientGetsOneDigestAndItsRowsAreDeleted() {
+        PendingRecipient a = new PendingRecipient("email", "a@example.com");
+        List<NotificationPending> rows = List.of(
+                pending("a@example.com", 1L, NotificationDispatcher.ORDER_CREATED),
+                pending("a@example.com", 1L, NotificationDispatcher.ORDER_STATUS_CHANGED));
+        when(pendingRepository.findDueRecipients(any(), any(), eq(3L), any())).thenReturn(List.of(a));
+        when(routing.channel("email")).thenReturn(email);
+        when(pendingRepository.lockDue(eq("email"), eq("a@example.com"), any(), any())).thenReturn(rows);
+
+        batcher.flushAll();
+
+        verify(email).sendDigest("a@example.com", List.of(
+                new NotificationItem(1L, "p1", NotificationDispatcher.ORDER_CREATED),
+                new NotificationItem(1L, "p1", NotificationDispatcher.ORDER_STATUS_CHANGED)));
+        verify(pendingRepository).deleteAllInBatch(rows);
+        verify(transactionManager).commit(any());
+        assertThat(registry.get("notification.digest.size").tag("channel", "email").summary().totalAmount()).isEqualTo(2.0);
+    }
+
+    @Test
+    void fullDigestIsFollowedByTheRest() {
+        PendingRecipient a = new PendingRecipient("email", "a@example.com");
+        List<NotificationPending> first = List.of(pending("a@example.com", 1L, "E"), pending("a@example.com", 2L, "E"), pending("a@example.com", 3L, "E"));
+        List<NotificationPending> rest = List.of(pending("a@example.com", 4L, "E"));
+        when(pendingRepository.findDueRecipients(any(), any(), anyLong(), any())).thenReturn(List.of(a));
+        when(routing.channel("email")).thenReturn(email);
+        when(pendingRepository.lockDue(eq("email"), eq("a@example.com"), any(), any())).thenReturn(first, rest);
+
+        batcher.flushAll();
+
+        verify(email).sendDigest(eq("a@example.com"), argThat(items -> items.size() == 3));
+        verify(email).sendDigest(eq("a@example.com"), argThat(items -> items.size() == 1));
+        verify(pendingRepository).deleteAllInBatch(first);
+        verify(pendingRepository).deleteAllInBatch(rest);
+    }
+
+    @Test
+    void failedDigestKeepsItsRowsForALaterAttempt() {
+        PendingRecipient a = new PendingRecipient("email", "a@example.com");
+        NotificationPending row = pending("a@example.com", 1L, NotificationDispatcher.ORDER_CREATED);
+        when(pendingRepository.findDueRecipients(any(), any(), anyLong(), any())).thenReturn(List.of(a));
+        when(routing.channel("email")).thenReturn(email);
+        when(pendingRepository.lockDue(eq("email"), eq("a@example.com"), any(), any())).thenReturn(List.of(row));
+        doThrow(new IllegalStateException("smtp down")).when(email).sendDigest(eq("a@example.com"), anyList());
+
+        LocalDateTime before = LocalDateTime.now();
+        batcher.flushAll();
+
+        verify(pendingRepository, never()).deleteAllInBatch(any());
+        assertThat(row.getAttempts()).isEqualTo(1);
+        assertThat(row.getNextAttemptTime()).isAfterOrEqualTo(before.plusSeconds(1));
+        assertThat(registry.get("notification.send.failures").tag("channel", "email").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void openCircuitKeepsTheChannelsDigestsUntouched() {
+        NotificationBatcher guarded = guardedBatcher();
+        PendingRecipient a = new PendingRecipient("email", "a@example.com");
+        PendingRecipient b = new PendingRecipient("email", "b@example.com");
+        NotificationPending row = pending("a@example.com", 1L, NotificationDispatcher.ORDER_CREATED);
+        LocalDateTime due = row.getNextAttemptTime();
+        when(pendingRepository.findDueRecipients(any(), any(), anyLong(), any())).thenReturn(List.of(a, b));
+        when(routing.channel("email")).thenReturn(email);
+        when(pendingRepository.lockDue(eq("email"), eq("a@example.com"), any(), any())).thenReturn(List.of(row));
+        doThrow(new ChannelDelivery.CircuitOpenException("email")).when(delivery).send(eq("email"), eq(email), eq("a@example.com"), anyList());
+
+        guarded.flushAll();
+
+        // b is not even claimed while the breaker is open
+        verify(pendingRepository, never()).lockDue(eq("email"), eq("b@example.com"), any(), any());
+        verify(delivery, never()).settle(any(), any(), any(), any());
+        verify(pendingRepository, never()).deleteAllInBatch(any());
+        verify(transactionManager).rollback(any());
+        assertThat(row.getAttempts()).isZero();
+        assertThat(row.getNextAttemptTime()).isEqualTo(due);
+    }
+
+    @Test
+    void failedGuardedDigestIsSettledByTheChannel() {
+        NotificationBatcher guarded = guardedBatcher();
+        PendingRecipient a = new PendingRecipient("email", "a@example.com");
+        List<NotificationPending> rows = List.of(pending("a@example.com", 1L, NotificationDispatcher.ORDER_CREATED));
+        when(pendingRepository.findDueRecipients(any(), any(), anyLong(), any())).thenReturn(List.of(a));
+        when(routing.channel("email")).thenReturn(email);
+        when(pendingRepository.lockDue(eq("email"), eq("a@example.com"), any(), any())).thenReturn(rows);
+        doThrow(new IllegalStateException("smtp down")).when(delivery).send(eq("email"), eq(email), eq("a@example.com"), anyList());
+
+        guarded.flushAll();
+
+        // retry or dead letter follows the channel's delivery settings
+        verify(delivery).settle("email", email, rows, "smtp down");
+        verify(pendingRepository, never()).deleteAllInBatch(any());
+    }
+
+    @Test
+    void backoffDoublesUpToTheCap() {
+        assertThat(batcher.backoffMillis(1)).isEqualTo(1000);
+        assertThat(batcher.backoffMillis(3)).isEqualTo(4000);
+        assertThat(batcher.backoffMillis(30)).isEqualTo(60_000);
+    }
+
+    private NotificationBatcher guardedBatcher() {
+        when(delivery.isEnabled()).thenReturn(true);
+        return new NotificationBatcher(true, 5000, 3, 60_000, pendingRepository, routing, delivery, transactionManager, registry);
+    }
+
+    private static NotificationPending pending(String recipient, Long orderId, String eventType) {
+        return new NotificationPending("email", recipient, eventType, orderId, "p" + orderId, LocalDateTime.now().minusSeconds(10));
+    }
+
+    private static Order order(Long id) {
+        Order o = new Order();
+        o.setId(id);
+        o.setProductName("p" + id);
+        return o;
+    }
+}
@@ -0,0 +1,70 @@
+package com.interview.order.notification;
+
+import com.interview.order.entity.NotificationDeadLetter;
+import com.interview.order.entity.NotificationPending;
+import com.interview.order.repository.NotificationDeadLetterRepository;
+import com.interview.order.repository.NotificationPendingRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Replays dead letters against the migrated MySQL schema; the replay joins the test transaction, which rolls back.
+ */
+@SpringBootTest(properties = {
+        "notification.outbox.relay.enabled=false",
+        "order.search.product-index.backfill-on-startup=false"
+})
+@Transactional
+class NotificationDeliveryTest {
+
+    @Autowired
+    private NotificationDelivery delivery;
+
+    @Autowired
+    private NotificationDeadLetterRepository deadLetterRepository;
+
+    @Autowired
+    private NotificationPendingRepository pendingRepository;
+
+    @Test
+    void replayMovesDeadLettersOfOneChannelBackToPending() {
+        LocalDateTime now = LocalDateTime.now();
+        deadLetterRepository.saveAllAndFlush(List.of(
+                new NotificationDeadLetter("replay-sms", "+1", NotificationDispatcher.ORDER_CREATED, 1L, "Widget", 5, "gateway error", now),
+                new NotificationDeadLetter("replay-sms", "+2", NotificationDispatcher.ORDER_STATUS_CHANGED, 2L, "Gadget", 5, "gateway error", now),
+                new NotificationDeadLetter("replay-email", "a@example.com", NotificationDispatcher.ORDER_CREATED, 1L, "Widget", 5, "smtp down", now)));
+
+        int replayed = delivery.replayDeadLetters("replay-sms", 1);
+
+        assertThat(replayed).isEqualTo(1);
+        assertThat(pendingRepository.findAll()).filteredOn(p -> p.getChannel().startsWith("replay-"))
+                .extracting(NotificationPending::getRecipient, NotificationPending::getOrderId, NotificationPending::getProductName, NotificationPending::getAttempts)
+                .containsExactly(tuple("+1", 1L, "Widget", 0));
+        assertThat(deadLetterRepository.findAll()).filteredOn(d -> d.getChannel().startsWith("replay-"))
+                .extracting(NotificationDeadLetter::getRecipient)
+                .containsExactlyInAnyOrder("+2", "a@example.com");
+    }
+
+    @Test
+    void replayWithoutChannelTakesTheOldestOfAnyChannel() {
+        LocalDateTime now = LocalDateTime.now();
+        deadLetterRepository.saveAllAndFlush(List.of(
+                new NotificationDeadLetter("replay-sms", "+1", NotificationDispatcher.ORDER_CREATED, 1L, "Widget", 5, null, now),
+                new NotificationDeadLetter("replay-email", "a@example.com", NotificationDispatcher.ORDER_CREATED, 1L, "Widget", 5, null, now)));
+
+        delivery.replayDeadLetters(null, 1000);
+
+        assertThat(deadLetterRepository.findAll()).noneMatch(d -> d.getChannel().startsWith("replay-"));
+        assertThat(pendingRepository.findAll()).filteredOn(p -> p.getChannel().startsWith("replay-"))
+                .extracting(NotificationPending::getChannel)
+                .containsExactlyInAnyOrder("replay-sms", "replay-email");
+    }
+}
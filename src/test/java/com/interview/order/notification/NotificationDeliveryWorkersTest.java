@@ -0,0 +1,104 @@
+package com.interview.order.notification;
+
+import com.interview.order.entity.Order;
+import com.interview.order.repository.NotificationDeadLetterRepository;
+import com.interview.order.repository.NotificationPendingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Worker lifecycle of {@link NotificationDelivery} while digests are disabled.
+ */
+@ExtendWith(MockitoExtension.class)
+class NotificationDeliveryWorkersTest {
+
+    @Mock
+    private NotificationPendingRepository pendingRepository;
+
+    @Mock
+    private NotificationDeadLetterRepository deadLetterRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final MockEnvironment environment = new MockEnvironment()
+            .withProperty("notification.types", "email")
+            .withProperty("notification.delivery.workers", "1")
+            .withProperty("notification.delivery.poll-interval-ms", "20");
+
+    private NotificationRouting routing;
+    private NotificationDelivery delivery;
+
+    @BeforeEach
+    void setUp() {
+        NotificationProperties props = new NotificationProperties(environment);
+        routing = new NotificationRouting(props, List.of(new StubNotification("email", "a@example.com"), new StubNotification("push", "device-1")));
+        delivery = new NotificationDelivery(true, false, environment, routing, pendingRepository, deadLetterRepository,
+                transactionManager, new SimpleMeterRegistry());
+        lenient().when(pendingRepository.lockDueForChannel(anyString(), any(), any())).thenReturn(List.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        delivery.close();
+    }
+
+    @Test
+    void startRunsWorkersOfRoutedChannelsOnly() {
+        delivery.start();
+
+        verify(pendingRepository, timeout(5000).atLeastOnce()).lockDueForChannel(eq("email"), any(), any());
+        verify(pendingRepository, after(200).never()).lockDueForChannel(eq("push"), any(), any());
+    }
+
+    @Test
+    void channelAddedByRebuildGetsWorkersWithItsFirstEvent() {
+        delivery.start();
+
+        environment.setProperty("notification.types", "email,push");
+        routing.rebuild();
+        NotificationRouting.Route push = routing.routes().get(1);
+        delivery.add(push, order(), NotificationDispatcher.ORDER_CREATED);
+
+        verify(pendingRepository).saveAll(anyList());
+        verify(pendingRepository, timeout(5000).atLeastOnce()).lockDueForChannel(eq("push"), any(), any());
+    }
+
+    @Test
+    void startAfterRebuildRunsTheAddedChannel() {
+        delivery.start();
+        environment.setProperty("notification.types", "email,push");
+
+        // what POST /notifications/routing/refresh does
+        routing.rebuild();
+        delivery.start();
+
+        verify(pendingRepository, timeout(5000).atLeastOnce()).lockDueForChannel(eq("push"), any(), any());
+    }
+
+    @Test
+    void nothingStartsBeforeTheApplicationIsReady() {
+        delivery.add(routing.routes().get(0), order(), NotificationDispatcher.ORDER_CREATED);
+
+        verify(pendingRepository, after(200).never()).lockDueForChannel(anyString(), any(), any());
+    }
+
+    private static Order order() {
+        Order order = new Order();
+        order.setId(1L);
+        order.setProductName("Widget");
+        return order;
+    }
+}
@@ -0,0 +1,165 @@
+package com.interview.order.notification;
+
+import com.interview.order.entity.Order;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationDispatcherTest {
+
+    @Mock
+    private NotificationRouting routing;
+
+    @Mock
+    private EmailNotification emailNotification;
+
+    @Mock
+    private SmsNotification smsNotification;
+
+    @Mock
+    private NotificationBatcher batcher;
+
+    @Mock
+    private NotificationDelivery delivery;
+
+    private SimpleMeterRegistry registry;
+    private NotificationDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        dispatcher = new NotificationDispatcher(routing, batcher, delivery, registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.close();
+    }
+
+    @Test
+    void dispatch_timesEachChannel() {
+        Order order = new Order();
+        when(routing.routes()).thenReturn(List.of(emailRoute(), smsRoute()));
+
+        dispatcher.dispatch(order, NotificationDispatcher.ORDER_CREATED);
+
+        NotificationItem item = NotificationItem.of(order, NotificationDispatcher.ORDER_CREATED);
+        verify(emailNotification).send("a@example.com", item);
+        verify(smsNotification).send("+1", item);
+        assertThat(registry.get("notification.send").tag("channel", "email").timer().count()).isEqualTo(1);
+        assertThat(registry.get("notification.send").tag("channel", "sms").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void dispatch_countsFailureAndRethrows() {
+        Order order = new Order();
+        when(routing.routes()).thenReturn(List.of(emailRoute()));
+        doThrow(new IllegalStateException("smtp down")).when(emailNotification).send(eq("a@example.com"), any(NotificationItem.class));
+
+        assertThatThrownBy(() -> dispatcher.dispatch(order, NotificationDispatcher.ORDER_CREATED)).isInstanceOf(IllegalStateException.class);
+        assertThat(registry.get("notification.send.failures").tag("channel", "email").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void dispatch_fansOutToChannelsConcurrently() {
+        StubNotification slowEmail = new StubNotification("email", "a@example.com").latency(300);
+        StubNotification slowSms = new StubNotification("sms", "+1").latency(300);
+        when(routing.routes()).thenReturn(List.of(route(slowEmail), route(slowSms)));
+        Order order = new Order();
+        order.setId(1L);
+
+        long start = System.nanoTime();
+        dispatcher.dispatch(order, NotificationDispatcher.ORDER_CREATED);
+
+        // the slowest channel, not the sum of both
+        assertThat(System.nanoTime() - start).isLessThan(550_000_000L);
+        assertThat(slowEmail.sent).containsExactly("a@example.com:1");
+        assertThat(slowSms.sent).containsExactly("+1:1");
+    }
+
+    @Test
+    void dispatch_failingChannelDoesNotStopTheOthers() {
+        StubNotification failing = new StubNotification("email", "a@example.com").failNext(1);
+        StubNotification working = new StubNotification("sms", "+1");
+        when(routing.routes()).thenReturn(List.of(route(failing), route(working)));
+        Order order = new Order();
+        order.setId(2L);
+
+        assertThatThrownBy(() -> dispatcher.dispatch(order, NotificationDispatcher.ORDER_CREATED)).hasMessage("gateway error");
+        assertThat(working.sent).containsExactly("+1:2");
+    }
+
+    @Test
+    void dispatch_handsEventsToBatcherWhenDigestsEnabled() {
+        Order order = new Order();
+        NotificationRouting.Route email = emailRoute();
+        NotificationRouting.Route sms = smsRoute();
+        when(routing.routes()).thenReturn(List.of(email, sms));
+        when(batcher.isEnabled()).thenReturn(true);
+
+        dispatcher.dispatch(order, NotificationDispatcher.ORDER_CREATED);
+
+        verify(batcher).add(email, order, NotificationDispatcher.ORDER_CREATED);
+        verify(batcher).add(sms, order, NotificationDispatcher.ORDER_CREATED);
+        verifyNoInteractions(emailNotification, smsNotification);
+    }
+
+    @Test
+    void dispatch_storesTheSendsOfEveryRouteWhenDeliveryEnabled() {
+        Order order = new Order();
+        order.setId(3L);
+        NotificationRouting.Route email = new NotificationRouting.Route("email", emailNotification, List.of("a@example.com", "b@example.com"));
+        NotificationRouting.Route sms = smsRoute();
+        when(routing.routes()).thenReturn(List.of(email, sms));
+        when(delivery.isEnabled()).thenReturn(true);
+
+        dispatcher.dispatch(order, NotificationDispatcher.ORDER_CREATED);
+
+        verify(delivery).add(email, order, NotificationDispatcher.ORDER_CREATED);
+        verify(delivery).add(sms, order, NotificationDispatcher.ORDER_CREATED);
+        verifyNoInteractions(emailNotification, smsNotification);
+    }
+
+    @Test
+    void dispatch_failsWhenTheSendsCannotBeStored() {
+        Order order = new Order();
+        when(routing.routes()).thenReturn(List.of(smsRoute()));
+        when(delivery.isEnabled()).thenReturn(true);
+        doThrow(new IllegalStateException("db down")).when(delivery).add(any(), eq(order), eq(NotificationDispatcher.ORDER_CREATED));
+
+        // the outbox relay keeps the event and retries it
+        assertThatThrownBy(() -> dispatcher.dispatch(order, NotificationDispatcher.ORDER_CREATED)).hasMessage("db down");
+    }
+
+    @Test
+    void dispatch_withoutRoutesDoesNothing() {
+        when(routing.routes()).thenReturn(List.of());
+
+        dispatcher.dispatch(new Order(), NotificationDispatcher.ORDER_CREATED);
+
+        verifyNoInteractions(batcher, delivery, emailNotification, smsNotification);
+    }
+
+    private NotificationRouting.Route emailRoute() {
+        return new NotificationRouting.Route("email", emailNotification, List.of("a@example.com"));
+    }
+
+    private NotificationRouting.Route smsRoute() {
+        return new NotificationRouting.Route("sms", smsNotification, List.of("+1"));
+    }
+
+    private static NotificationRouting.Route route(Notification channel) {
+        return new NotificationRouting.Route(channel.name(), channel, channel.recipients());
+    }
+}
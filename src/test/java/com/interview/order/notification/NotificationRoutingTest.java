@@ -0,0 +1,55 @@
+package com.interview.order.notification;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NotificationRoutingTest {
+
+    private final MockEnvironment environment = new MockEnvironment()
+            .withProperty("notification.types", " SMS, push, email, sms ,fax")
+            .withProperty("notification.emails", "a@example.com, b@example.com")
+            .withProperty("notification.phones", "");
+
+    @Test
+    void routesFollowConfiguredOrderAndSkipUnknownOrUnaddressedChannels() {
+        NotificationProperties props = new NotificationProperties(environment);
+        StubNotification push = new StubNotification("push", "device-1");
+        StubNotification fax = new StubNotification("fax");
+        NotificationRouting routing = new NotificationRouting(props,
+                List.of(new EmailNotification(props), new SmsNotification(props), push, fax));
+
+        // sms has no phones, fax no recipients
+        assertThat(routing.routes()).extracting(NotificationRouting.Route::name).containsExactly("push", "email");
+        assertThat(routing.routes().get(1).recipients()).containsExactly("a@example.com", "b@example.com");
+    }
+
+    @Test
+    void rebuildPicksUpChangedConfiguration() {
+        NotificationProperties props = new NotificationProperties(environment);
+        NotificationRouting routing = new NotificationRouting(props, List.of(new EmailNotification(props), new SmsNotification(props)));
+        List<NotificationRouting.Route> before = routing.routes();
+
+        environment.setProperty("notification.types", "sms");
+        environment.setProperty("notification.phones", "+1");
+        // the table is immutable until rebuilt
+        assertThat(routing.routes()).isSameAs(before);
+
+        routing.rebuild();
+
+        assertThat(routing.routes()).extracting(NotificationRouting.Route::name).containsExactly("sms");
+        assertThat(routing.routes().get(0).recipients()).containsExactly("+1");
+    }
+
+    @Test
+    void duplicateChannelNamesAreRejected() {
+        NotificationProperties props = new NotificationProperties(environment);
+
+        assertThatThrownBy(() -> new NotificationRouting(props, List.of(new StubNotification("email", "x"), new EmailNotification(props))))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
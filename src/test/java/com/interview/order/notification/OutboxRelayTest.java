@@ -0,0 +1,100 @@
+package com.interview.order.notification;
+
+import com.interview.order.entity.Order;
+import com.interview.order.entity.OrderStatus;
+import com.interview.order.entity.OutboxEvent;
+import com.interview.order.repository.OrderRepository;
+import com.interview.order.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private NotificationDispatcher dispatcher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        relay = new OutboxRelay(outboxEventRepository, orderRepository, dispatcher, transactionManager, new SimpleMeterRegistry(), 10, 60000);
+    }
+
+    @Test
+    void drainBatch_dispatchesAndDeletesDelivered() {
+        OutboxEvent event = event(1L, 7L, NotificationDispatcher.ORDER_CREATED);
+        Order order = order(7L);
+        when(outboxEventRepository.lockDue(any(), any())).thenReturn(List.of(event));
+        when(orderRepository.findAllById(List.of(7L))).thenReturn(List.of(order));
+
+        int drained = relay.drainBatch();
+
+        assertThat(drained).isEqualTo(1);
+        verify(dispatcher).dispatch(order, NotificationDispatcher.ORDER_CREATED);
+        verify(outboxEventRepository).deleteAllInBatch(List.of(event));
+    }
+
+    @Test
+    void drainBatch_keepsFailedEventForRetry() {
+        OutboxEvent ok = event(1L, 7L, NotificationDispatcher.ORDER_CREATED);
+        OutboxEvent bad = event(2L, 8L, NotificationDispatcher.ORDER_STATUS_CHANGED);
+        Order order7 = order(7L);
+        Order order8 = order(8L);
+        when(outboxEventRepository.lockDue(any(), any())).thenReturn(List.of(ok, bad));
+        when(orderRepository.findAllById(List.of(7L, 8L))).thenReturn(List.of(order7, order8));
+        doThrow(new IllegalStateException("gateway down")).when(dispatcher).dispatch(order8, NotificationDispatcher.ORDER_STATUS_CHANGED);
+
+        relay.drainBatch();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<OutboxEvent>> deleted = ArgumentCaptor.forClass(List.class);
+        verify(outboxEventRepository).deleteAllInBatch(deleted.capture());
+        assertThat(deleted.getValue()).containsExactly(ok);
+        assertThat(bad.getAttempts()).isEqualTo(1);
+        assertThat(bad.getNextAttemptTime()).isAfter(bad.getCreateTime());
+    }
+
+    @Test
+    void backoff_growsAndIsCapped() {
+        assertThat(relay.backoffMillis(1)).isEqualTo(1000L);
+        assertThat(relay.backoffMillis(3)).isEqualTo(4000L);
+        assertThat(relay.backoffMillis(30)).isEqualTo(60000L);
+    }
+
+    private static OutboxEvent event(Long id, Long orderId, String type) {
+        OutboxEvent e = new OutboxEvent(type, orderId, null, null, LocalDateTime.now().minusSeconds(1));
+        e.setId(id);
+        return e;
+    }
+
+    private static Order order(Long id) {
+        Order o = new Order();
+        o.setId(id);
+        o.setProductName("Widget");
+        o.setStatus(OrderStatus.CREATED);
+        return o;
+    }
+}
@@ -0,0 +1,74 @@
+package com.interview.order.notification;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for a gateway: records what was sent and can add latency or fail a number of calls.
+ */
+class StubNotification extends Notification {
+
+    final List<String> sent = new CopyOnWriteArrayList<>();
+    final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    private volatile long latencyMs;
+    private final String name;
+    private final List<String> recipients;
+
+    StubNotification() {
+        this("stub", "stub");
+    }
+
+    StubNotification(String name, String... recipients) {
+        super(null);
+        this.name = name;
+        this.recipients = List.of(recipients);
+    }
+
+    StubNotification failNext(int count) {
+        failuresLeft.set(count);
+        return this;
+    }
+
+    StubNotification latency(long millis) {
+        this.latencyMs = millis;
+        return this;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public List<String> recipients() {
+        return recipients;
+    }
+
+    @Override
+    public void send(String recipient, NotificationItem item) {
+        call(recipient + ":" + item.orderId());
+    }
+
+    @Override
+    public void sendDigest(String recipient, List<NotificationItem> items) {
+        call(recipient + ":" + items.size() + " events");
+    }
+
+    private void call(String message) {
+        calls.incrementAndGet();
+        if (latencyMs > 0) {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted");
+            }
+        }
+        if (failuresLeft.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            throw new IllegalStateException("gateway error");
+        }
+        sent.add(message);
+    }
+}
@@ -0,0 +1,36 @@
+package com.interview.order.notification;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void burstIsFreeThenCallersWaitForRefill() {
+        TokenBucket bucket = new TokenBucket(10, 2, now::get);
+
+        assertThat(bucket.reserve()).isZero();
+        assertThat(bucket.reserve()).isZero();
+        // 10 per second: the next tokens are 100 ms and 200 ms away
+        assertThat(bucket.reserve()).isEqualTo(100_000_000L);
+        assertThat(bucket.reserve()).isEqualTo(200_000_000L);
+    }
+
+    @Test
+    void refillIsCappedAtBurst() {
+        TokenBucket bucket = new TokenBucket(10, 2, now::get);
+        bucket.reserve();
+        bucket.reserve();
+
+        now.addAndGet(10_000_000_000L);
+
+        assertThat(bucket.reserve()).isZero();
+        assertThat(bucket.reserve()).isZero();
+        assertThat(bucket.reserve()).isPositive();
+    }
+}
@@ -0,0 +1,100 @@
+package com.interview.order.repository;
+
+import com.interview.order.entity.CustomerOrderStat;
+import com.interview.order.entity.Order;
+import com.interview.order.entity.OrderStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Runs the rebuild statements against the migrated MySQL schema with part of a customer's orders archived;
+ * every test rolls back.
+ */
+@SpringBootTest(properties = {
+        "notification.outbox.relay.enabled=false",
+        "order.search.product-index.backfill-on-startup=false"
+})
+@Transactional
+class CustomerOrderStatRepositoryTest {
+
+    @Autowired
+    private CustomerOrderStatRepository statRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Test
+    void rebuildCountsHotAndArchivedOrders() {
+        Order hot = order("stats-mixed", OrderStatus.COMPLETED, "10.00");
+        Order cold = order("stats-mixed", OrderStatus.COMPLETED, "5.50");
+        orderRepository.saveAllAndFlush(List.of(hot, cold));
+        archive(cold);
+
+        rebuild(List.of("stats-mixed"));
+
+        assertThat(statRepository.findByCustomer("stats-mixed"))
+                .extracting(CustomerOrderStat::getStatus, CustomerOrderStat::getOrderCount, CustomerOrderStat::getTotalAmount)
+                .containsExactly(tuple(OrderStatus.COMPLETED, 2L, new BigDecimal("15.50")));
+    }
+
+    @Test
+    void customerWithOnlyArchivedOrdersIsStillRebuilt() {
+        Order cold = order("stats-archived", OrderStatus.CANCELLED, "3.00");
+        orderRepository.saveAndFlush(cold);
+        archive(cold);
+        // stale row left behind by an earlier state
+        statRepository.add("stats-archived", OrderStatus.CREATED.getCode(), "RMB", 7, new BigDecimal("70.00"));
+
+        assertThat(statRepository.findCustomersAfter("stats-archive", 1000)).contains("stats-archived");
+        rebuild(List.of("stats-archived"));
+
+        assertThat(statRepository.findByCustomer("stats-archived"))
+                .extracting(CustomerOrderStat::getStatus, CustomerOrderStat::getOrderCount)
+                .containsExactly(tuple(OrderStatus.CANCELLED, 1L));
+    }
+
+    @Test
+    void customerWalkMergesBothTablesInOrder() {
+        orderRepository.saveAndFlush(order("stats-walk-a", OrderStatus.CREATED, "1.00"));
+        Order b = order("stats-walk-b", OrderStatus.COMPLETED, "1.00");
+        orderRepository.saveAndFlush(b);
+        archive(b);
+        orderRepository.saveAndFlush(order("stats-walk-c", OrderStatus.CREATED, "1.00"));
+
+        assertThat(statRepository.findCustomersAfter("stats-walk-", 2)).containsExactly("stats-walk-a", "stats-walk-b");
+        assertThat(statRepository.findCustomersAfter("stats-walk-b", 1)).containsExactly("stats-walk-c");
+    }
+
+    private void rebuild(List<String> customers) {
+        statRepository.deleteByCustomers(customers);
+        statRepository.insertFromOrders(customers);
+    }
+
+    // what OrderArchiver does for one chunk
+    private void archive(Order order) {
+        orderRepository.copyToArchive(List.of(order.getId()), LocalDateTime.now());
+        orderRepository.deleteByIds(List.of(order.getId()));
+    }
+
+    private static Order order(String customer, OrderStatus status, String amount) {
+        LocalDateTime now = LocalDateTime.now();
+        Order o = new Order();
+        o.setProductName("Widget");
+        o.setCustomer(customer);
+        o.setTotalAmount(new BigDecimal(amount));
+        o.setCurrency("RMB");
+        o.setStatus(status);
+        o.setCreateTime(now);
+        o.setUpdateTime(now);
+        return o;
+    }
+}
@@ -0,0 +1,269 @@
+package com.interview.order.repository;
+
+import com.interview.order.entity.OrderStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * EXPLAINs the SQL Hibernate generates for the real {@link OrderSearchQueries} statements against the migrated MySQL
+ * schema, seeded with enough orders (many customers, one large one) for the optimizer to choose between indexes.
+ * Checks the composite indexes from V5__search_composite_indexes.sql are chosen, that keyset pages need no filesort,
+ * and that product searches go through the order_product_token primary key.
+ */
+@SpringBootTest(properties = {
+        "notification.outbox.relay.enabled=false",
+        "order.search.product-index.backfill-on-startup=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.interview.order.repository.OrderIndexUsageTest$LastStatement"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class OrderIndexUsageTest {
+
+    private static final String CUSTOMER = "idx-heavy";
+    private static final int CUSTOMERS = 200;
+    private static final int ORDERS_PER_CUSTOMER = 100;
+    private static final int HEAVY_ORDERS = 5000;
+    private static final String[] PRODUCTS = {
+            "Laptop Pro 14", "Gaming Console", "Coffee Maker", "Wireless Mouse", "Mechanical Keyboard",
+            "Noise Cancelling Headphones", "Café Crème Capsules", "Standing Desk", "USB-C Hub", "Smart Watch"};
+    private static final LocalDateTime FROM = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime MONTH_START = LocalDateTime.of(2026, 1, 1, 0, 0);
+    private static final LocalDateTime MONTH_END = LocalDateTime.of(2026, 1, 31, 23, 59, 59);
+    private static final OrderCursor CURSOR = new OrderCursor(LocalDateTime.of(2026, 1, 15, 0, 0), Long.MAX_VALUE);
+
+    private static final Pattern NAMED_PARAMETER = Pattern.compile(":(\\w+)");
+    private static final Pattern TOKEN_LIST = Pattern.compile("token in \\(([?,\\s]+)\\)", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Remembers the last SQL statement Hibernate prepared on the calling thread.
+     */
+    public static class LastStatement implements StatementInspector {
+        static final ThreadLocal<String> SQL = new ThreadLocal<>();
+
+        @Override
+        public String inspect(String sql) {
+            SQL.set(sql);
+            return sql;
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @BeforeAll
+    void seed() {
+        cleanUp();
+        Random random = new Random(42);
+        List<Object[]> orders = new ArrayList<>();
+        for (int c = 0; c < CUSTOMERS; c++) {
+            for (int i = 0; i < ORDERS_PER_CUSTOMER; i++) {
+                orders.add(order("idx-" + c, random));
+            }
+        }
+        for (int i = 0; i < HEAVY_ORDERS; i++) {
+            orders.add(order(CUSTOMER, random));
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO orders (product_name, customer, total_amount, currency, status, create_time, update_time)"
+                + " VALUES (?, ?, ?, 'RMB', ?, ?, ?)", orders);
+
+        // tokens as ProductTokenIndexer writes them
+        List<Object[]> tokens = new ArrayList<>();
+        for (Map<String, Object> row : jdbcTemplate.queryForList("SELECT id, customer, product_name FROM orders WHERE customer LIKE 'idx-%'")) {
+            for (String token : ProductTokens.index((String) row.get("product_name"))) {
+                tokens.add(new Object[]{row.get("customer"), token, ((Number) row.get("id")).longValue()});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO order_product_token (customer, token, order_id) VALUES (?, ?, ?)", tokens);
+        jdbcTemplate.execute("ANALYZE TABLE orders, order_product_token");
+    }
+
+    @AfterAll
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM order_product_token WHERE customer LIKE 'idx-%'");
+        jdbcTemplate.update("DELETE FROM orders WHERE customer LIKE 'idx-%'");
+    }
+
+    @Test
+    void customer_usesCustomerCreateTimeIndex() {
+        assertKeyset("idx_customer_create_time_id", filter(null, null, null, null), null);
+    }
+
+    @Test
+    void customerAndTimeRange_usesCustomerCreateTimeIndex() {
+        assertKeyset("idx_customer_create_time_id", filter(null, null, MONTH_START, MONTH_END), null);
+    }
+
+    @Test
+    void customerAndStartOnly_usesCustomerCreateTimeIndex() {
+        assertKeyset("idx_customer_create_time_id", filter(null, null, MONTH_START, null), null);
+    }
+
+    @Test
+    void customerAndEndOnly_usesCustomerCreateTimeIndex() {
+        assertKeyset("idx_customer_create_time_id", filter(null, null, null, MONTH_END), null);
+    }
+
+    @Test
+    void customerAndCursor_usesCustomerCreateTimeIndex() {
+        assertKeyset("idx_customer_create_time_id", filter(null, null, null, null), CURSOR);
+    }
+
+    @Test
+    void customerAndStatus_usesCustomerStatusIndex() {
+        assertKeyset("idx_customer_status_create_time", filter(null, OrderStatus.COMPLETED, null, null), null);
+    }
+
+    @Test
+    void customerStatusAndTimeRange_usesCustomerStatusIndex() {
+        assertKeyset("idx_customer_status_create_time", filter(null, OrderStatus.COMPLETED, MONTH_START, MONTH_END), null);
+    }
+
+    @Test
+    void customerStatusAndStartOnly_usesCustomerStatusIndex() {
+        assertKeyset("idx_customer_status_create_time", filter(null, OrderStatus.COMPLETED, MONTH_START, null), null);
+    }
+
+    @Test
+    void customerStatusAndEndOnly_usesCustomerStatusIndex() {
+        assertKeyset("idx_customer_status_create_time", filter(null, OrderStatus.COMPLETED, null, MONTH_END), null);
+    }
+
+    @Test
+    void customerStatusAndCursor_usesCustomerStatusIndex() {
+        assertKeyset("idx_customer_status_create_time", filter(null, OrderStatus.COMPLETED, null, null), CURSOR);
+    }
+
+    @Test
+    void customerAndProductName_goesThroughTheTokenIndex() {
+        assertProductSearch(filter("console", null, null, null));
+    }
+
+    @Test
+    void customerProductNameStatusAndTimeRange_goesThroughTheTokenIndex() {
+        assertProductSearch(filter("keyboard", OrderStatus.CREATED, MONTH_START, MONTH_END));
+    }
+
+    @Test
+    void customerProductNameAndStartOnly_goesThroughTheTokenIndex() {
+        assertProductSearch(filter("coffee", null, MONTH_START, null));
+    }
+
+    @Test
+    void customerProductNameAndCursor_goesThroughTheTokenIndex() {
+        OrderSearchQueries.Filter filter = filter("console", null, null, null);
+        List<Map<String, Object>> plan = explain(OrderSearchQueries.keyset(filter, true), filter, CURSOR);
+        assertThat(row(plan, "order_product_token").get("key")).isEqualTo("PRIMARY");
+        assertThat(row(plan, "orders").get("type")).isNotEqualTo("ALL");
+    }
+
+    private void assertKeyset(String index, OrderSearchQueries.Filter filter, OrderCursor cursor) {
+        List<Map<String, Object>> plan = explain(OrderSearchQueries.keyset(filter, cursor != null), filter, cursor);
+        Map<String, Object> orders = row(plan, "orders");
+        assertThat(orders.get("key")).as(plan.toString()).isEqualTo(index);
+        assertThat(String.valueOf(orders.get("Extra"))).as(plan.toString()).doesNotContain("filesort");
+    }
+
+    // ranked offset page: sorted by match rank, so only the access path is checked
+    private void assertProductSearch(OrderSearchQueries.Filter filter) {
+        assertThat(filter.tokens()).isNotEmpty();
+        List<Map<String, Object>> plan = explain(OrderSearchQueries.page(filter), filter, null);
+        assertThat(row(plan, "order_product_token").get("key")).as(plan.toString()).isEqualTo("PRIMARY");
+        assertThat(row(plan, "orders").get("type")).as(plan.toString()).isNotEqualTo("ALL");
+    }
+
+    /**
+     * Runs the JPQL like the repository does (LIMIT 20), then EXPLAINs the SQL Hibernate generated for it with the
+     * same values bound in the same order.
+     */
+    private List<Map<String, Object>> explain(String jpql, OrderSearchQueries.Filter filter, OrderCursor cursor) {
+        TypedQuery<OrderRow> query = filter.bind(em.createQuery(jpql, OrderRow.class));
+        if (cursor != null) {
+            query.setParameter("cursorTime", cursor.createTime());
+            query.setParameter("cursorId", cursor.id());
+        }
+        query.setMaxResults(20);
+        query.getResultList();
+        String sql = LastStatement.SQL.get();
+
+        List<Object> args = new ArrayList<>();
+        Matcher names = NAMED_PARAMETER.matcher(jpql);
+        while (names.find()) {
+            switch (names.group(1)) {
+                case "productName" -> args.add(filter.productName());
+                case "customer" -> args.add(filter.customer());
+                case "status" -> args.add(filter.status().getCode());
+                case "startTime" -> args.add(Timestamp.valueOf(filter.startTime()));
+                case "endTime" -> args.add(Timestamp.valueOf(filter.endTime()));
+                case "cursorTime" -> args.add(Timestamp.valueOf(cursor.createTime()));
+                case "cursorId" -> args.add(cursor.id());
+                case "tokenCount" -> args.add((long) filter.tokens().size());
+                case "tokens" -> args.addAll(padded(filter.tokens(), sql));
+                default -> throw new IllegalStateException("unexpected parameter :" + names.group(1));
+            }
+        }
+        args.add(20); // LIMIT
+        assertThat(sql.chars().filter(ch -> ch == '?').count()).as(sql).isEqualTo(args.size());
+        return jdbcTemplate.queryForList("EXPLAIN " + sql, args.toArray());
+    }
+
+    // Hibernate may pad IN lists by repeating the last value
+    private static List<String> padded(Set<String> tokens, String sql) {
+        Matcher list = TOKEN_LIST.matcher(sql);
+        int placeholders = list.find() ? (int) list.group(1).chars().filter(ch -> ch == '?').count() : tokens.size();
+        List<String> values = new ArrayList<>(tokens);
+        values.addAll(Collections.nCopies(placeholders - tokens.size(), values.get(values.size() - 1)));
+        return values;
+    }
+
+    // plan row of the given table, found through the alias Hibernate gave it
+    private static Map<String, Object> row(List<Map<String, Object>> plan, String table) {
+        String sql = LastStatement.SQL.get();
+        Matcher alias = Pattern.compile("\\b" + table + " (\\w+)", Pattern.CASE_INSENSITIVE).matcher(sql);
+        assertThat(alias.find()).as(sql).isTrue();
+        String name = alias.group(1).toLowerCase(Locale.ROOT);
+        return plan.stream()
+                .filter(r -> name.equals(String.valueOf(r.get("table")).toLowerCase(Locale.ROOT)))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("no plan row for " + table + " in " + plan));
+    }
+
+    private static OrderSearchQueries.Filter filter(String productName, OrderStatus status, LocalDateTime start, LocalDateTime end) {
+        return OrderSearchQueries.Filter.of(productName, CUSTOMER, status, start, end);
+    }
+
+    private static Object[] order(String customer, Random random) {
+        Timestamp created = Timestamp.valueOf(FROM.plusMinutes(random.nextInt(60 * 24 * 540)));
+        return new Object[]{
+                PRODUCTS[random.nextInt(PRODUCTS.length)],
+                customer,
+                1 + random.nextInt(2000),
+                OrderStatus.values()[random.nextInt(OrderStatus.values().length)].getCode(),
+                created,
+                created};
+    }
+}
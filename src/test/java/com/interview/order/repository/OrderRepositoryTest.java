@@ -0,0 +1,112 @@
+package com.interview.order.repository;
+
+import com.interview.order.entity.Order;
+import com.interview.order.entity.OrderStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the native and bulk statements of {@link OrderRepository} against the migrated MySQL schema; every test
+ * rolls back.
+ */
+@SpringBootTest(properties = {
+        "notification.outbox.relay.enabled=false",
+        "order.search.product-index.backfill-on-startup=false"
+})
+@Transactional
+class OrderRepositoryTest {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void lockIdsInStatus_returnsOnlyRowsInTheExpectedStatus() {
+        List<Order> saved = orderRepository.saveAllAndFlush(List.of(
+                order("Alice", OrderStatus.CREATED),
+                order("Alice", OrderStatus.COMPLETED),
+                order("Alice", OrderStatus.CREATED)));
+        List<Long> ids = new ArrayList<>(saved.stream().map(Order::getId).toList());
+        ids.add(Long.MAX_VALUE); // does not exist
+
+        List<Number> locked = orderRepository.lockIdsInStatus(ids, OrderStatus.CREATED.getCode());
+
+        // orders.id is an INT column: the driver returns Integer, callers must go through Number
+        assertThat(locked.stream().map(Number::longValue).toList())
+                .containsExactlyInAnyOrder(saved.get(0).getId(), saved.get(2).getId());
+    }
+
+    @Test
+    void transitionStatuses_onlyMovesRowsStillInTheExpectedStatus() {
+        List<Order> saved = orderRepository.saveAllAndFlush(List.of(
+                order("Bob", OrderStatus.CREATED),
+                order("Bob", OrderStatus.CANCELLED)));
+        List<Long> ids = saved.stream().map(Order::getId).toList();
+
+        int updated = orderRepository.transitionStatuses(ids, OrderStatus.CREATED, OrderStatus.COMPLETED, LocalDateTime.now());
+
+        assertThat(updated).isEqualTo(1);
+        assertThat(orderRepository.findRowById(ids.get(0))).get().extracting(OrderRow::status).isEqualTo(OrderStatus.COMPLETED);
+        assertThat(orderRepository.findRowById(ids.get(1))).get().extracting(OrderRow::status).isEqualTo(OrderStatus.CANCELLED);
+    }
+
+    @Test
+    void searchAfter_reachesRowsInsertedWithoutACreateTime() {
+        List<Order> saved = orderRepository.saveAllAndFlush(List.of(
+                order("cursor-default-time", OrderStatus.CREATED),
+                order("cursor-default-time", OrderStatus.CREATED)));
+        // inserted after the entities so the AUTO_INCREMENT id stays clear of the sequence's pool
+        jdbcTemplate.update("INSERT INTO orders (product_name, customer, total_amount, currency, status) "
+                + "VALUES ('Widget', 'cursor-default-time', 10.00, 'RMB', 1)");
+        long plain = jdbcTemplate.queryForObject("SELECT LAST_INSERT_ID()", Long.class);
+
+        List<Long> seen = new ArrayList<>();
+        OrderCursor cursor = null;
+        Slice<OrderRow> page;
+        do {
+            page = orderRepository.searchAfter(null, "cursor-default-time", null, null, null, cursor, 1);
+            for (OrderRow row : page.getContent()) {
+                seen.add(row.id());
+                cursor = OrderCursor.decode(OrderCursor.of(row).encode());
+            }
+        } while (page.hasNext());
+
+        assertThat(seen).containsExactlyInAnyOrder(saved.get(0).getId(), saved.get(1).getId(), plain);
+    }
+
+    @Test
+    void createTime_cannotBeCleared() {
+        Long id = orderRepository.saveAndFlush(order("cursor-null-time", OrderStatus.CREATED)).getId();
+
+        assertThatThrownBy(() -> jdbcTemplate.update("UPDATE orders SET create_time = NULL WHERE id = ?", id))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    private static Order order(String customer, OrderStatus status) {
+        LocalDateTime now = LocalDateTime.now();
+        Order o = new Order();
+        o.setProductName("Widget");
+        o.setCustomer(customer);
+        o.setTotalAmount(new BigDecimal("10.00"));
+        o.setCurrency("RMB");
+        o.setStatus(status);
+        o.setCreateTime(now);
+        o.setUpdateTime(now);
+        return o;
+    }
+}
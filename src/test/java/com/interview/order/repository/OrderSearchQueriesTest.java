@@ -0,0 +1,61 @@
+package com.interview.order.repository;
+
+import com.interview.order.entity.OrderStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderSearchQueriesTest {
+
+    @Test
+    void sameCombinationReusesTheSameStatement() {
+        OrderSearchQueries.Filter a = OrderSearchQueries.Filter.of(null, "Ying", OrderStatus.CREATED, null, null);
+        OrderSearchQueries.Filter b = OrderSearchQueries.Filter.of(null, "Eric", OrderStatus.CANCELLED, null, null);
+
+        assertThat(OrderSearchQueries.page(a)).isSameAs(OrderSearchQueries.page(b));
+        assertThat(OrderSearchQueries.count(a)).isSameAs(OrderSearchQueries.count(b));
+    }
+
+    @Test
+    void onlyPresentFiltersAppear() {
+        OrderSearchQueries.Filter filter = OrderSearchQueries.Filter.of(null, "Ying", null, LocalDateTime.now(), null);
+
+        assertThat(OrderSearchQueries.count(filter))
+                .isEqualTo("select count(o) from Order o where o.customer = :customer and o.createTime >= :startTime");
+        assertThat(OrderSearchQueries.page(filter)).doesNotContain(":status", ":endTime", "order by");
+    }
+
+    @Test
+    void productNameUsesTrigramsAndRanking() {
+        OrderSearchQueries.Filter filter = OrderSearchQueries.Filter.of("laptop", "Ying", null, null, null);
+
+        assertThat(OrderSearchQueries.page(filter))
+                .contains("t.token in :tokens", "like concat('%', lower(:productName), '%')", "order by case");
+    }
+
+    @Test
+    void shortProductNameSkipsTrigrams() {
+        OrderSearchQueries.Filter filter = OrderSearchQueries.Filter.of("la", "Ying", null, null, null);
+
+        assertThat(OrderSearchQueries.page(filter)).doesNotContain(":tokens").contains(":productName");
+    }
+
+    @Test
+    void keysetAddsSeekOnlyWithCursor() {
+        OrderSearchQueries.Filter filter = OrderSearchQueries.Filter.of(null, "Ying", null, null, null);
+
+        assertThat(OrderSearchQueries.keyset(filter, false)).doesNotContain(":cursorTime").endsWith("order by o.createTime desc, o.id desc");
+        assertThat(OrderSearchQueries.keyset(filter, true)).contains("o.customer = :customer and (o.createTime < :cursorTime");
+    }
+
+    @Test
+    void archiveStatementsDifferOnlyInEntity() {
+        OrderSearchQueries.Filter filter = OrderSearchQueries.Filter.of("laptop", "Ying", OrderStatus.COMPLETED, null, null);
+
+        assertThat(OrderSearchQueries.page(filter, OrderSearchQueries.Table.ARCHIVE))
+                .isEqualTo(OrderSearchQueries.page(filter).replace(" from Order o", " from ArchivedOrder o"));
+        assertThat(OrderSearchQueries.count(filter, OrderSearchQueries.Table.ARCHIVE)).startsWith("select count(o) from ArchivedOrder o where");
+    }
+}
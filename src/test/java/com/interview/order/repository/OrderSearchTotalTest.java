@@ -0,0 +1,149 @@
+package com.interview.order.repository;
+
+import com.interview.order.entity.Order;
+import com.interview.order.entity.OrderStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs {@link OrderRepositoryCustom#search} with each {@link TotalMode} against the migrated MySQL schema. Searches
+ * filter on CREATED so they stay on the orders table, and on a customer of their own so rows of other tests do not
+ * count; every test rolls back.
+ */
+@SpringBootTest(properties = {
+        "notification.outbox.relay.enabled=false",
+        "order.search.product-index.backfill-on-startup=false"
+})
+@Transactional
+class OrderSearchTotalTest {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Test
+    void exactWindow_takesTheTotalFromTheWindowColumn() {
+        List<Long> ids = save("total-window", 5);
+
+        OrderSearchPage page = search("total-window", 0, 2, TotalMode.EXACT_WINDOW, 100);
+
+        assertThat(page.totalKind()).isEqualTo(OrderSearchPage.TotalKind.EXACT);
+        assertThat(page.total()).isEqualTo(5L);
+        assertThat(page.hasNext()).isTrue();
+        assertThat(page.content()).extracting(OrderRow::id).hasSize(2).isSubsetOf(ids);
+    }
+
+    @Test
+    void exactWindow_pagePastTheEndFallsBackToACount() {
+        save("total-window-past", 5);
+
+        // no row comes back, so there is no COUNT(*) OVER() value to read
+        OrderSearchPage page = search("total-window-past", 10, 2, TotalMode.EXACT_WINDOW, 100);
+
+        assertThat(page.content()).isEmpty();
+        assertThat(page.totalKind()).isEqualTo(OrderSearchPage.TotalKind.EXACT);
+        assertThat(page.total()).isEqualTo(5L);
+        assertThat(page.hasNext()).isFalse();
+    }
+
+    @Test
+    void exactWindow_lastPageNeedsNoCount() {
+        save("total-window-last", 5);
+
+        OrderSearchPage page = search("total-window-last", 4, 2, TotalMode.EXACT_WINDOW, 100);
+
+        assertThat(page.content()).hasSize(1);
+        assertThat(page.totalKind()).isEqualTo(OrderSearchPage.TotalKind.EXACT);
+        assertThat(page.total()).isEqualTo(5L);
+    }
+
+    @Test
+    void capped_reportsAtLeastTheCapWhenMoreRowsMatch() {
+        save("total-capped-over", 5);
+
+        OrderSearchPage page = search("total-capped-over", 0, 2, TotalMode.CAPPED, 3);
+
+        assertThat(page.totalKind()).isEqualTo(OrderSearchPage.TotalKind.AT_LEAST);
+        assertThat(page.total()).isEqualTo(3L);
+        assertThat(page.hasNext()).isTrue();
+    }
+
+    @Test
+    void capped_isExactWithinTheCap() {
+        save("total-capped-under", 5);
+
+        OrderSearchPage exact = search("total-capped-under", 0, 2, TotalMode.CAPPED, 10);
+        // exactly cap rows is still exact: only cap + 1 proves there are more
+        OrderSearchPage atCap = search("total-capped-under", 0, 2, TotalMode.CAPPED, 5);
+
+        assertThat(exact.totalKind()).isEqualTo(OrderSearchPage.TotalKind.EXACT);
+        assertThat(exact.total()).isEqualTo(5L);
+        assertThat(atCap.totalKind()).isEqualTo(OrderSearchPage.TotalKind.EXACT);
+        assertThat(atCap.total()).isEqualTo(5L);
+    }
+
+    @Test
+    void approximate_usesTheOptimizerEstimate() {
+        save("total-approx", 5);
+
+        OrderSearchPage page = search("total-approx", 0, 2, TotalMode.APPROXIMATE, 100);
+
+        assertThat(page.totalKind()).isEqualTo(OrderSearchPage.TotalKind.APPROXIMATE);
+        assertThat(page.total()).isGreaterThanOrEqualTo(3L);
+        assertThat(page.hasNext()).isTrue();
+    }
+
+    @Test
+    void approximate_neverReportsFewerRowsThanTheClientHasSeen() {
+        save("total-approx-deep", 30);
+
+        // rows before the page, the page itself and the one that proves a next page exists
+        OrderSearchPage page = search("total-approx-deep", 20, 5, TotalMode.APPROXIMATE, 100);
+
+        assertThat(page.content()).hasSize(5);
+        assertThat(page.hasNext()).isTrue();
+        assertThat(page.totalKind()).isEqualTo(OrderSearchPage.TotalKind.APPROXIMATE);
+        assertThat(page.total()).isGreaterThanOrEqualTo(26L);
+    }
+
+    @Test
+    void approximate_lastPageIsExact() {
+        save("total-approx-last", 3);
+
+        OrderSearchPage page = search("total-approx-last", 0, 5, TotalMode.APPROXIMATE, 100);
+
+        assertThat(page.totalKind()).isEqualTo(OrderSearchPage.TotalKind.EXACT);
+        assertThat(page.total()).isEqualTo(3L);
+        assertThat(page.hasNext()).isFalse();
+    }
+
+    private OrderSearchPage search(String customer, int offset, int size, TotalMode mode, int totalCap) {
+        return orderRepository.search(null, customer, OrderStatus.CREATED, null, null, PageRequest.of(offset / size, size), mode, totalCap);
+    }
+
+    private List<Long> save(String customer, int n) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Order> orders = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Order o = new Order();
+            o.setProductName("Widget");
+            o.setCustomer(customer);
+            o.setTotalAmount(new BigDecimal("10.00"));
+            o.setCurrency("RMB");
+            o.setStatus(OrderStatus.CREATED);
+            o.setCreateTime(now);
+            o.setUpdateTime(now);
+            orders.add(o);
+        }
+        return orderRepository.saveAllAndFlush(orders).stream().map(Order::getId).toList();
+    }
+}
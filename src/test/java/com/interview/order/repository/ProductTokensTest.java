@@ -0,0 +1,37 @@
+package com.interview.order.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductTokensTest {
+
+    @Test
+    void index_producesDistinctLowercaseTrigrams() {
+        assertThat(ProductTokens.index("Laptop")).containsExactly("lap", "apt", "pto", "top");
+        assertThat(ProductTokens.index("aaaa")).containsExactly("aaa");
+    }
+
+    @Test
+    void query_tooShortForIndex() {
+        assertThat(ProductTokens.query("la")).isEmpty();
+        assertThat(ProductTokens.query(null)).isEmpty();
+    }
+
+    @Test
+    void query_tokensAreSubsetOfMatchingNameTokens() {
+        assertThat(ProductTokens.index("Gaming Console")).containsAll(ProductTokens.query("CONSOLE"));
+    }
+
+    @Test
+    void query_isCapped() {
+        assertThat(ProductTokens.query("a very long product name that keeps going and going")).hasSize(ProductTokens.MAX_QUERY_TOKENS);
+    }
+
+    @Test
+    void tokensAreAccentFoldedLikeTheColumnCollation() {
+        assertThat(ProductTokens.index("Café Crème")).contains("caf", "afe", "cre", "rem", "eme");
+        assertThat(ProductTokens.index("Café")).containsAll(ProductTokens.query("CAFE"));
+        assertThat(ProductTokens.query("cafÉ")).containsExactly("caf", "afe");
+    }
+}
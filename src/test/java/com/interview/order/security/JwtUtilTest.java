@@ -0,0 +1,42 @@
+package com.interview.order.security;
+
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "very-secret-key-that-is-long-enough-to-be-used";
+
+    @Test
+    void verify_returnsSubjectAndCachesResult() {
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 60_000, 100);
+        String token = jwtUtil.generateToken("testuser");
+
+        JwtUtil.VerifiedToken first = jwtUtil.verify(token);
+        JwtUtil.VerifiedToken second = jwtUtil.verify(token);
+
+        assertThat(first.username()).isEqualTo("testuser");
+        assertThat(second).isSameAs(first);
+        assertThat(jwtUtil.validateToken(token, "testuser")).isTrue();
+        assertThat(jwtUtil.validateToken(token, "other")).isFalse();
+    }
+
+    @Test
+    void verify_rejectsTokenSignedWithAnotherKey() {
+        String foreign = new JwtUtil(SECRET + "-other", 60_000, 100).generateToken("testuser");
+
+        assertThatThrownBy(() -> new JwtUtil(SECRET, 60_000, 100).verify(foreign)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void verify_rejectsExpiredToken() {
+        JwtUtil jwtUtil = new JwtUtil(SECRET, -1_000, 100);
+        String expired = jwtUtil.generateToken("testuser");
+
+        assertThatThrownBy(() -> jwtUtil.verify(expired)).isInstanceOf(JwtException.class);
+        assertThat(jwtUtil.isTokenExpired(expired)).isTrue();
+    }
+}
@@ -0,0 +1,104 @@
+package com.interview.order.service;
+
+import com.interview.order.entity.CustomerOrderStat;
+import com.interview.order.entity.Order;
+import com.interview.order.entity.OrderStatus;
+import com.interview.order.notification.OrderStatusChangedEvent;
+import com.interview.order.notification.OrdersCreatedEvent;
+import com.interview.order.repository.CustomerOrderStatRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerOrderStatsServiceTest {
+
+    @Mock
+    private CustomerOrderStatRepository repository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CustomerOrderStatsService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new CustomerOrderStatsService(repository, transactionManager, 2);
+    }
+
+    @Test
+    void batchCreateUpsertsOncePerCustomerAndCurrency() {
+        service.onOrdersCreated(new OrdersCreatedEvent(this, List.of(
+                order("alice", "RMB", "10.00"), order("alice", "RMB", "5.5"), order("alice", "USD", "1"), order("bob", null, "2"))));
+
+        verify(repository).add("alice", OrderStatus.CREATED.getCode(), "RMB", 2L, new BigDecimal("15.50"));
+        verify(repository).add("alice", OrderStatus.CREATED.getCode(), "USD", 1L, new BigDecimal("1.00"));
+        verify(repository).add("bob", OrderStatus.CREATED.getCode(), "RMB", 1L, new BigDecimal("2.00"));
+        verifyNoMoreInteractions(repository);
+    }
+
+    @Test
+    void statusChangeMovesOrderBetweenStatuses() {
+        Order changed = new Order();
+        changed.setId(9L);
+
+        service.onOrderStatusChanged(new OrderStatusChangedEvent(this, changed, OrderStatus.CREATED.getCode(), OrderStatus.COMPLETED.getCode()));
+
+        verify(repository).subtractOrders(List.of(9L), OrderStatus.CREATED.getCode());
+        verify(repository).addOrders(List.of(9L), OrderStatus.COMPLETED.getCode());
+    }
+
+    @Test
+    void summaryFillsMissingStatusesWithZero() {
+        List<CustomerOrderStat> rows = List.of(
+                stat(OrderStatus.CREATED, "RMB", 3, "30.00"),
+                stat(OrderStatus.COMPLETED, "RMB", 2, "20.00"),
+                stat(OrderStatus.COMPLETED, "USD", 1, "1.50"));
+        when(repository.findByCustomer("alice")).thenReturn(rows);
+
+        CustomerOrderStatsService.Summary summary = service.summary("alice");
+
+        assertThat(summary.total()).isEqualTo(6);
+        assertThat(summary.countByStatus()).containsExactly(entry(1, 3L), entry(2, 3L), entry(3, 0L));
+        assertThat(summary.amountByCurrency()).containsExactly(entry("RMB", new BigDecimal("50.00")), entry("USD", new BigDecimal("1.50")));
+    }
+
+    @Test
+    void rebuildWalksCustomersInChunks() {
+        when(repository.findCustomersAfter("", 2)).thenReturn(List.of("alice", "bob"));
+        when(repository.findCustomersAfter("bob", 2)).thenReturn(List.of("carol"));
+        when(repository.findCustomersAfter("carol", 2)).thenReturn(List.of());
+
+        assertThat(service.rebuild()).isEqualTo(3);
+        verify(repository).deleteByCustomers(List.of("alice", "bob"));
+        verify(repository).insertFromOrders(List.of("alice", "bob"));
+        verify(repository).insertFromOrders(List.of("carol"));
+    }
+
+    private static Order order(String customer, String currency, String amount) {
+        Order o = new Order();
+        o.setCustomer(customer);
+        o.setCurrency(currency);
+        o.setTotalAmount(new BigDecimal(amount));
+        return o;
+    }
+
+    private static CustomerOrderStat stat(OrderStatus status, String currency, long count, String amount) {
+        CustomerOrderStat stat = mock(CustomerOrderStat.class);
+        when(stat.getStatus()).thenReturn(status);
+        when(stat.getCurrency()).thenReturn(currency);
+        when(stat.getOrderCount()).thenReturn(count);
+        when(stat.getTotalAmount()).thenReturn(new BigDecimal(amount));
+        return stat;
+    }
+}
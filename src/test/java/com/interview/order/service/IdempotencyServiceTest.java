@@ -0,0 +1,132 @@
+package com.interview.order.service;
+
+import com.interview.order.entity.IdempotencyKey;
+import com.interview.order.entity.Order;
+import com.interview.order.repository.IdempotencyKeyRepository;
+import com.interview.order.web.CreateOrderRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private IdempotencyKeyRepository repository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry registry;
+    private IdempotencyService service;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        service = new IdempotencyService(orderService, repository, transactionManager, 24, 100, registry);
+    }
+
+    @Test
+    void firstRequestCreatesAndRetryReplaysFromMemory() {
+        when(repository.findById(any())).thenReturn(Optional.empty());
+        when(orderService.createOrder(any())).thenReturn(order(7L));
+
+        IdempotencyService.Outcome first = service.createOrder("alice", "k-1", request("99.99"));
+        IdempotencyService.Outcome retry = service.createOrder("alice", "k-1", request("99.990"));
+
+        assertThat(first).isEqualTo(new IdempotencyService.Outcome(IdempotencyService.Status.CREATED, 7L));
+        assertThat(retry).isEqualTo(new IdempotencyService.Outcome(IdempotencyService.Status.REPLAYED, 7L));
+        verify(orderService, times(1)).createOrder(any());
+        verify(repository, times(1)).insert(eq("alice"), eq("k-1"), anyString(), eq(7L), any(), any());
+        assertThat(registry.get("order.idempotency").tag("result", "replayed").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void sameKeyWithDifferentBodyIsMismatch() {
+        when(repository.findById(any())).thenReturn(Optional.empty());
+        when(orderService.createOrder(any())).thenReturn(order(7L));
+
+        service.createOrder("alice", "k-1", request("99.99"));
+        IdempotencyService.Outcome other = service.createOrder("alice", "k-1", request("10.00"));
+
+        assertThat(other.status()).isEqualTo(IdempotencyService.Status.MISMATCH);
+        verify(orderService, times(1)).createOrder(any());
+    }
+
+    @Test
+    void keysAreScopedPerOwner() {
+        when(repository.findById(any())).thenReturn(Optional.empty());
+        when(orderService.createOrder(any())).thenReturn(order(7L), order(8L));
+
+        service.createOrder("alice", "k-1", request("99.99"));
+        IdempotencyService.Outcome bob = service.createOrder("bob", "k-1", request("99.99"));
+
+        assertThat(bob).isEqualTo(new IdempotencyService.Outcome(IdempotencyService.Status.CREATED, 8L));
+    }
+
+    @Test
+    void lostInsertRaceReturnsTheWinningOrder() {
+        IdempotencyKey winner = mock(IdempotencyKey.class);
+        when(winner.getOrderId()).thenReturn(5L);
+        when(winner.getRequestHash()).thenReturn(IdempotencyService.requestHash(request("99.99")));
+        when(winner.getExpireTime()).thenReturn(LocalDateTime.now().plusHours(1));
+        when(repository.findById(any())).thenReturn(Optional.empty(), Optional.of(winner));
+        when(orderService.createOrder(any())).thenReturn(order(7L));
+        when(repository.insert(anyString(), anyString(), anyString(), anyLong(), any(), any()))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        IdempotencyService.Outcome outcome = service.createOrder("alice", "k-1", request("99.99"));
+
+        assertThat(outcome).isEqualTo(new IdempotencyService.Outcome(IdempotencyService.Status.REPLAYED, 5L));
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void keyReadFromTheTableIsCachedOnlyUntilTheRowExpires() throws InterruptedException {
+        // another instance created the key a day minus a moment ago, well inside the cache ttl
+        IdempotencyKey existing = mock(IdempotencyKey.class);
+        when(existing.getOrderId()).thenReturn(5L);
+        when(existing.getRequestHash()).thenReturn(IdempotencyService.requestHash(request("99.99")));
+        when(existing.getExpireTime()).thenReturn(LocalDateTime.now().plusNanos(300_000_000));
+        when(repository.findById(any())).thenReturn(Optional.of(existing), Optional.empty());
+        when(orderService.createOrder(any())).thenReturn(order(7L));
+
+        IdempotencyService.Outcome replay = service.createOrder("alice", "k-1", request("99.99"));
+        Thread.sleep(500);
+        IdempotencyService.Outcome afterExpiry = service.createOrder("alice", "k-1", request("99.99"));
+
+        assertThat(replay).isEqualTo(new IdempotencyService.Outcome(IdempotencyService.Status.REPLAYED, 5L));
+        assertThat(afterExpiry).isEqualTo(new IdempotencyService.Outcome(IdempotencyService.Status.CREATED, 7L));
+        verify(repository, times(2)).findById(any());
+    }
+
+    private static CreateOrderRequest request(String amount) {
+        CreateOrderRequest req = new CreateOrderRequest();
+        req.setProductName("Gadget");
+        req.setCustomer("Bob");
+        req.setTotalAmount(new BigDecimal(amount));
+        return req;
+    }
+
+    private static Order order(Long id) {
+        Order o = new Order();
+        o.setId(id);
+        return o;
+    }
+}
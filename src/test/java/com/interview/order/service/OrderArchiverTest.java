@@ -0,0 +1,64 @@
+package com.interview.order.service;
+
+import com.interview.order.repository.OrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderArchiverTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry registry;
+    private OrderArchiver archiver;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        archiver = new OrderArchiver(orderRepository, transactionManager, 180, 2, 0, registry);
+    }
+
+    @Test
+    void movesChunksUntilNothingIsLeft() {
+        when(orderRepository.lockArchivable(eq(0L), any(LocalDateTime.class), eq(List.of(2, 3)), eq(2))).thenReturn(List.of(4, 9));
+        when(orderRepository.lockArchivable(eq(9L), any(LocalDateTime.class), eq(List.of(2, 3)), eq(2))).thenReturn(List.of(12));
+        when(orderRepository.lockArchivable(eq(12L), any(LocalDateTime.class), eq(List.of(2, 3)), eq(2))).thenReturn(List.of());
+
+        assertThat(archiver.archive()).isEqualTo(3);
+
+        verify(orderRepository).copyToArchive(eq(List.of(4L, 9L)), any());
+        verify(orderRepository).deleteByIds(List.of(4L, 9L));
+        verify(orderRepository).copyToArchive(eq(List.of(12L)), any());
+        verify(orderRepository).deleteByIds(List.of(12L));
+        // one transaction per chunk, plus the final empty probe
+        verify(transactionManager, times(3)).commit(any());
+        assertThat(registry.get("order.archive.moved").counter().count()).isEqualTo(3.0);
+    }
+
+    @Test
+    void cutoffIsMinAgeBeforeNow() {
+        when(orderRepository.lockArchivable(anyLong(), any(), any(), anyInt())).thenReturn(List.of());
+
+        archiver.archive();
+
+        verify(orderRepository).lockArchivable(eq(0L),
+                argThat(cutoff -> cutoff.isBefore(LocalDateTime.now().minusDays(179)) && cutoff.isAfter(LocalDateTime.now().minusDays(181))),
+                any(), anyInt());
+        verify(orderRepository, never()).deleteByIds(any());
+    }
+}
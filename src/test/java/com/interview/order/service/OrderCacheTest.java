@@ -0,0 +1,132 @@
+package com.interview.order.service;
+
+import com.interview.order.entity.Order;
+import com.interview.order.entity.OrderStatus;
+import com.interview.order.notification.OrderStatusChangedEvent;
+import com.interview.order.repository.OrderRow;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderCacheTest {
+
+    private SimpleMeterRegistry registry;
+    private OrderCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        cache = new OrderCache(100, 30, 600, registry);
+    }
+
+    @Test
+    void repeatLookupIsServedFromCache() {
+        OrderRow order = row(1L, OrderStatus.CREATED);
+
+        cache.get(1L, id -> load(order));
+        Optional<OrderRow> second = cache.get(1L, id -> load(order));
+
+        assertThat(second).containsSame(order);
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(registry.get("cache.gets").tag("cache", "orders").tag("result", "hit").functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void missingOrderIsNotCached() {
+        cache.get(2L, id -> { loads.incrementAndGet(); return Optional.empty(); });
+        cache.get(2L, id -> { loads.incrementAndGet(); return Optional.empty(); });
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void statusChangeInvalidates() {
+        OrderRow order = row(3L, OrderStatus.CREATED);
+        cache.get(3L, id -> load(order));
+
+        cache.onOrderStatusChanged(new OrderStatusChangedEvent(this, order(3L, OrderStatus.COMPLETED), 1, 2));
+        cache.get(3L, id -> load(order));
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void invalidationDuringLoadKeepsTheLoadedRowOutOfTheCache() {
+        OrderRow stale = row(4L, OrderStatus.CREATED);
+        OrderRow fresh = row(4L, OrderStatus.COMPLETED);
+
+        // the reader fetched the old row, then the update committed before the reader stored it
+        Optional<OrderRow> first = cache.get(4L, id -> {
+            cache.afterOrderStatusChanged(new OrderStatusChangedEvent(this, order(4L, OrderStatus.COMPLETED), 1, 2));
+            return load(stale);
+        });
+        Optional<OrderRow> second = cache.get(4L, id -> load(fresh));
+
+        assertThat(first).containsSame(stale);
+        assertThat(second).containsSame(fresh);
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(cache.get(4L, id -> load(stale))).containsSame(fresh);
+    }
+
+    @Test
+    void concurrentLoadsAndInvalidationsNeverLeaveAStaleRow() throws Exception {
+        AtomicInteger version = new AtomicInteger();
+        ExecutorService readers = Executors.newFixedThreadPool(4);
+        try {
+            for (int round = 0; round < 200; round++) {
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> futures = new ArrayList<>();
+                for (int r = 0; r < 4; r++) {
+                    futures.add(readers.submit(() -> {
+                        start.await();
+                        // reads the committed version, then yields so an update can slip in before the put
+                        return cache.get(5L, id -> {
+                            OrderRow read = row(5L, version.get() % 2 == 0 ? OrderStatus.CREATED : OrderStatus.COMPLETED);
+                            Thread.yield();
+                            return Optional.of(read);
+                        });
+                    }));
+                }
+                start.countDown();
+                version.incrementAndGet();
+                cache.invalidate(5L);
+                for (Future<?> f : futures) f.get(5, TimeUnit.SECONDS);
+
+                OrderRow current = row(5L, version.get() % 2 == 0 ? OrderStatus.CREATED : OrderStatus.COMPLETED);
+                assertThat(cache.get(5L, id -> Optional.of(current))).contains(current);
+                cache.invalidate(5L);
+            }
+        } finally {
+            readers.shutdownNow();
+        }
+    }
+
+    private Optional<OrderRow> load(OrderRow order) {
+        loads.incrementAndGet();
+        return Optional.of(order);
+    }
+
+    private static OrderRow row(Long id, OrderStatus status) {
+        return new OrderRow(id, null, null, null, null, status, null, null);
+    }
+
+    private static Order order(Long id, OrderStatus status) {
+        Order o = new Order();
+        o.setId(id);
+        o.setStatus(status);
+        return o;
+    }
+}
@@ -0,0 +1,324 @@
+package com.interview.order.service;
+
+import com.interview.order.entity.Order;
+import com.interview.order.entity.OrderStatus;
+import com.interview.order.notification.OrderCreatedEvent;
+import com.interview.order.notification.OrderStatusChangedEvent;
+import com.interview.order.repository.OrderCustomer;
+import com.interview.order.repository.OrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderChangeStreamTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void subscriberOnlyReceivesItsCustomer() throws Exception {
+        OrderChangeStream stream = stream(16, 100, OrderChangeStream.Overflow.DISCONNECT);
+        RecordingSink sink = new RecordingSink();
+        stream.subscribe("alice", null, sink);
+
+        stream.onOrderCreated(new OrderCreatedEvent(this, order(1L, "bob")));
+        stream.onOrderCreated(new OrderCreatedEvent(this, order(2L, "alice")));
+
+        OrderChangeStream.OrderChange change = sink.next();
+        assertThat(change.orderId()).isEqualTo(2L);
+        assertThat(change.seq()).isEqualTo(2L);
+        assertThat(change.type()).isEqualTo(OrderChangeStream.ORDER_CREATED);
+    }
+
+    @Test
+    void statusChangeResolvesCustomer() throws Exception {
+        when(orderRepository.findCustomers(List.of(5L))).thenReturn(List.of(new OrderCustomer(5L, "alice")));
+        OrderChangeStream stream = stream(16, 100, OrderChangeStream.Overflow.DISCONNECT);
+        RecordingSink sink = new RecordingSink();
+        stream.subscribe("alice", null, sink);
+
+        Order changed = new Order();
+        changed.setId(5L);
+        stream.onOrderStatusChanged(new OrderStatusChangedEvent(this, changed, OrderStatus.CREATED.getCode(), OrderStatus.COMPLETED.getCode()));
+
+        OrderChangeStream.OrderChange change = sink.next();
+        assertThat(change.type()).isEqualTo(OrderChangeStream.ORDER_STATUS_CHANGED);
+        assertThat(change.oldStatus()).isEqualTo(OrderStatus.CREATED.getCode());
+        assertThat(change.status()).isEqualTo(OrderStatus.COMPLETED.getCode());
+    }
+
+    @Test
+    void resumeReplaysChangesAfterSequence() throws Exception {
+        OrderChangeStream stream = stream(16, 100, OrderChangeStream.Overflow.DISCONNECT);
+        for (long id = 1; id <= 3; id++) {
+            stream.onOrderCreated(new OrderCreatedEvent(this, order(id, "alice")));
+        }
+        RecordingSink sink = new RecordingSink();
+        stream.subscribe(null, 1L, sink);
+
+        assertThat(sink.next().seq()).isEqualTo(2L);
+        assertThat(sink.next().seq()).isEqualTo(3L);
+        assertThat(sink.resets).isEmpty();
+    }
+
+    @Test
+    void resumeBeyondHistorySignalsReset() throws Exception {
+        OrderChangeStream stream = stream(16, 2, OrderChangeStream.Overflow.DISCONNECT);
+        for (long id = 1; id <= 5; id++) {
+            stream.onOrderCreated(new OrderCreatedEvent(this, order(id, "alice")));
+        }
+        RecordingSink sink = new RecordingSink();
+        stream.subscribe(null, 1L, sink);
+
+        assertThat(sink.resets.poll(5, TimeUnit.SECONDS)).isEqualTo(4L);
+        assertThat(sink.next().seq()).isEqualTo(4L);
+    }
+
+    @Test
+    void resumeWithIdOfAnotherBootSignalsReset() throws Exception {
+        OrderChangeStream stream = stream(16, 100, OrderChangeStream.Overflow.DISCONNECT);
+        for (long id = 1; id <= 2; id++) {
+            stream.onOrderCreated(new OrderCreatedEvent(this, order(id, "alice")));
+        }
+        RecordingSink sink = new RecordingSink();
+        // issued under epoch 7, before a restart or by another instance
+        stream.subscribe(null, (7L << 32) | 5, sink);
+
+        assertThat(sink.resets.poll(5, TimeUnit.SECONDS)).isEqualTo(1L);
+        assertThat(sink.next().seq()).isEqualTo(1L);
+        assertThat(sink.next().seq()).isEqualTo(2L);
+    }
+
+    @Test
+    void resumeAheadOfLastSequenceSignalsReset() throws Exception {
+        OrderChangeStream stream = stream(16, 100, OrderChangeStream.Overflow.DISCONNECT);
+        stream.onOrderCreated(new OrderCreatedEvent(this, order(1L, "alice")));
+        RecordingSink sink = new RecordingSink();
+
+        stream.subscribe(null, 10L, sink);
+
+        assertThat(sink.resets.poll(5, TimeUnit.SECONDS)).isEqualTo(1L);
+        assertThat(sink.next().seq()).isEqualTo(1L);
+    }
+
+    @Test
+    void resumeAtLastSequenceNeedsNoReset() throws Exception {
+        OrderChangeStream stream = stream(16, 100, OrderChangeStream.Overflow.DISCONNECT);
+        stream.onOrderCreated(new OrderCreatedEvent(this, order(1L, "alice")));
+        RecordingSink sink = new RecordingSink();
+
+        stream.subscribe(null, 1L, sink);
+        stream.onOrderCreated(new OrderCreatedEvent(this, order(2L, "alice")));
+
+        assertThat(sink.next().seq()).isEqualTo(2L);
+        assertThat(sink.resets).isEmpty();
+    }
+
+    @Test
+    void sequenceNumbersCarryTheEpoch() throws Exception {
+        OrderChangeStream stream = new OrderChangeStream(orderRepository, transactionManager, 16, 100, 10, 60_000,
+                OrderChangeStream.Overflow.DISCONNECT, new SimpleMeterRegistry());
+        RecordingSink sink = new RecordingSink();
+        stream.subscribe(null, null, sink);
+
+        stream.onOrderCreated(new OrderCreatedEvent(this, order(1L, "alice")));
+
+        long seq = sink.next().seq();
+        assertThat(seq >>> 32).isPositive();
+        assertThat(seq & 0xFFFFFFFFL).isEqualTo(1L);
+        assertThat(seq).isLessThan(1L << 53);
+    }
+
+    @Test
+    void slowSubscriberIsDisconnected() throws Exception {
+        OrderChangeStream stream = stream(1, 100, OrderChangeStream.Overflow.DISCONNECT);
+        RecordingSink sink = new RecordingSink();
+        sink.block();
+        stream.subscribe(null, null, sink);
+
+        // first change is taken by the blocked sender, second fills the buffer, third overflows
+        for (long id = 1; id <= 3; id++) {
+            stream.onOrderCreated(new OrderCreatedEvent(this, order(id, "alice")));
+            if (id == 1) sink.awaitSending();
+        }
+
+        assertThat(sink.closed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(stream.subscriberCount()).isZero();
+        // the publishing (committing) thread never closes the transport
+        assertThat(sink.closedBy).isNotSameAs(Thread.currentThread());
+    }
+
+    @Test
+    void statusChangeWithoutSubscribersSkipsCustomerLookup() {
+        OrderChangeStream stream = stream(16, 100, OrderChangeStream.Overflow.DISCONNECT);
+
+        Order changed = new Order();
+        changed.setId(5L);
+        stream.onOrderStatusChanged(new OrderStatusChangedEvent(this, changed, OrderStatus.CREATED.getCode(), OrderStatus.COMPLETED.getCode()));
+
+        verifyNoInteractions(orderRepository, transactionManager);
+    }
+
+    @Test
+    void filteredResumeResolvesCustomersPublishedWithout() throws Exception {
+        when(orderRepository.findCustomers(List.of(5L, 6L))).thenReturn(List.of(new OrderCustomer(5L, "alice"), new OrderCustomer(6L, "bob")));
+        OrderChangeStream stream = stream(16, 100, OrderChangeStream.Overflow.DISCONNECT);
+        for (long id = 5; id <= 6; id++) {
+            Order changed = new Order();
+            changed.setId(id);
+            stream.onOrderStatusChanged(new OrderStatusChangedEvent(this, changed, OrderStatus.CREATED.getCode(), OrderStatus.COMPLETED.getCode()));
+        }
+        RecordingSink sink = new RecordingSink();
+        stream.subscribe("alice", 0L, sink);
+
+        OrderChangeStream.OrderChange change = sink.next();
+        assertThat(change.orderId()).isEqualTo(5L);
+        assertThat(change.customer()).isEqualTo("alice");
+        assertThat(sink.sent.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void dropOldestReportsGap() throws Exception {
+        OrderChangeStream stream = stream(1, 100, OrderChangeStream.Overflow.DROP_OLDEST);
+        RecordingSink sink = new RecordingSink();
+        sink.block();
+        stream.subscribe(null, null, sink);
+
+        for (long id = 1; id <= 3; id++) {
+            stream.onOrderCreated(new OrderCreatedEvent(this, order(id, "alice")));
+            if (id == 1) sink.awaitSending();
+        }
+        sink.unblock();
+
+        assertThat(sink.next().seq()).isEqualTo(1L);
+        assertThat(sink.gaps.poll(5, TimeUnit.SECONDS)).isEqualTo(1L);
+        assertThat(sink.next().seq()).isEqualTo(3L);
+        assertThat(stream.subscriberCount()).isEqualTo(1);
+    }
+
+    @Test
+    void subscriberLimitIsEnforced() {
+        OrderChangeStream stream = new OrderChangeStream(orderRepository, transactionManager, 16, 100, 1, 60_000,
+                OrderChangeStream.Overflow.DISCONNECT, new SimpleMeterRegistry());
+
+        assertThat(stream.subscribe(null, null, new RecordingSink())).isNotNull();
+        assertThat(stream.subscribe(null, null, new RecordingSink())).isNull();
+    }
+
+    @Test
+    void subscriberLimitHoldsUnderConcurrentSubscribes() throws Exception {
+        OrderChangeStream stream = new OrderChangeStream(orderRepository, transactionManager, 16, 100, 5, 60_000,
+                OrderChangeStream.Overflow.DISCONNECT, new SimpleMeterRegistry());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        AtomicInteger accepted = new AtomicInteger();
+        for (int i = 0; i < 50; i++) {
+            threads.add(Thread.ofVirtual().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (stream.subscribe(null, null, new RecordingSink()) != null) accepted.incrementAndGet();
+            }));
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(accepted.get()).isEqualTo(5);
+        assertThat(stream.subscriberCount()).isEqualTo(5);
+    }
+
+    // epoch 0: sequence numbers start at 1
+    private OrderChangeStream stream(int bufferSize, int historySize, OrderChangeStream.Overflow overflow) {
+        return new OrderChangeStream(orderRepository, transactionManager, bufferSize, historySize, 10, 60_000, overflow, new SimpleMeterRegistry(), 0);
+    }
+
+    private static Order order(Long id, String customer) {
+        Order o = new Order();
+        o.setId(id);
+        o.setCustomer(customer);
+        o.setStatus(OrderStatus.CREATED);
+        return o;
+    }
+
+    private static final class RecordingSink implements OrderChangeStream.Sink {
+        private final BlockingQueue<OrderChangeStream.OrderChange> sent = new LinkedBlockingQueue<>();
+        private final BlockingQueue<Long> gaps = new LinkedBlockingQueue<>();
+        private final BlockingQueue<Long> resets = new LinkedBlockingQueue<>();
+        private final CountDownLatch closed = new CountDownLatch(1);
+        private volatile Thread closedBy;
+        private final CountDownLatch sending = new CountDownLatch(1);
+        private volatile CountDownLatch gate = new CountDownLatch(0);
+
+        void block() {
+            gate = new CountDownLatch(1);
+        }
+
+        void unblock() {
+            gate.countDown();
+        }
+
+        void awaitSending() throws InterruptedException {
+            assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        OrderChangeStream.OrderChange next() throws InterruptedException {
+            OrderChangeStream.OrderChange change = sent.poll(5, TimeUnit.SECONDS);
+            assertThat(change).isNotNull();
+            return change;
+        }
+
+        @Override
+        public void send(OrderChangeStream.OrderChange change) {
+            sending.countDown();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            sent.add(change);
+        }
+
+        @Override
+        public void gap(long missed) {
+            gaps.add(missed);
+        }
+
+        @Override
+        public void reset(long oldestSeq) {
+            resets.add(oldestSeq);
+        }
+
+        @Override
+        public void heartbeat() {
+        }
+
+        @Override
+        public void close() {
+            closedBy = Thread.currentThread();
+            closed.countDown();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.interview.order.service;
+
+import com.interview.order.entity.Order;
+import com.interview.order.entity.OrderStatus;
+import com.interview.order.repository.OrderRepository;
+import com.interview.order.repository.OrderRow;
+import com.interview.order.repository.ProductTokens;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the trigram subquery, the ranking and the backfill against the migrated MySQL schema (utf8mb4_0900_ai_ci
+ * product names, binary tokens); every test rolls back.
+ */
+@SpringBootTest(properties = {
+        "notification.outbox.relay.enabled=false",
+        "order.search.product-index.backfill-on-startup=false"
+})
+@Transactional
+class ProductTokenIndexerTest {
+
+    @Autowired
+    private ProductTokenIndexer indexer;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Test
+    void searchGoesThroughTheTokensAndRanksExactThenPrefixMatches() {
+        LocalDateTime t = LocalDateTime.now().minusDays(1);
+        Order contains = indexed("tok-rank", "Decaf Cafe", t.plusMinutes(4));
+        Order prefixOld = indexed("tok-rank", "Cafetière", t.plusMinutes(1));
+        Order prefixNew = indexed("tok-rank", "Café Crème", t.plusMinutes(3));
+        Order exact = indexed("tok-rank", "Cafe", t);
+        indexed("tok-rank", "Green Tea", t.plusMinutes(5));
+        // matches the LIKE but has no tokens: only found if the index is bypassed
+        saved("tok-rank", "Café Noir", t.plusMinutes(6));
+        em.flush();
+
+        List<OrderRow> rows = orderRepository.search("cafe", "tok-rank", null, null, null, PageRequest.of(0, 10)).getContent();
+
+        assertThat(rows).extracting(OrderRow::id)
+                .containsExactly(exact.getId(), prefixNew.getId(), prefixOld.getId(), contains.getId());
+    }
+
+    @Test
+    void accentedQueryFindsUnaccentedNames() {
+        Order plain = indexed("tok-accent", "Creme Brulee", LocalDateTime.now());
+        em.flush();
+
+        assertThat(orderRepository.search("crème", "tok-accent", null, null, null, PageRequest.of(0, 10)).getContent())
+                .extracting(OrderRow::id).containsExactly(plain.getId());
+    }
+
+    @Test
+    void backfillRebuildsHotAndArchivedOrdersAndRecordsItsProgress() {
+        Order hot = saved("tok-backfill", "Café Crème", LocalDateTime.now());
+        Order cold = saved("tok-backfill", "Crème Brûlée", LocalDateTime.now());
+        orderRepository.copyToArchive(List.of(cold.getId()), LocalDateTime.now());
+        orderRepository.deleteByIds(List.of(cold.getId()));
+        progress(Math.min(hot.getId(), cold.getId()) - 1, Math.max(hot.getId(), cold.getId()));
+
+        assertThat(indexer.backfill()).isEqualTo(2);
+
+        assertThat(tokens(hot.getId())).containsExactlyInAnyOrderElementsOf(ProductTokens.index("Café Crème"));
+        assertThat(tokens(cold.getId())).containsExactlyInAnyOrderElementsOf(ProductTokens.index("Crème Brûlée"));
+        assertThat(((Number) em.createNativeQuery("SELECT last_order_id FROM order_product_token_backfill WHERE id = 1")
+                .getSingleResult()).longValue()).isEqualTo(Math.max(hot.getId(), cold.getId()));
+        // finished: nothing is scanned again
+        assertThat(indexer.backfill()).isZero();
+    }
+
+    private Order indexed(String customer, String productName, LocalDateTime createTime) {
+        Order order = saved(customer, productName, createTime);
+        indexer.index(order);
+        return order;
+    }
+
+    private Order saved(String customer, String productName, LocalDateTime createTime) {
+        Order o = new Order();
+        o.setProductName(productName);
+        o.setCustomer(customer);
+        o.setTotalAmount(new BigDecimal("1.00"));
+        o.setCurrency("RMB");
+        o.setStatus(OrderStatus.CREATED);
+        o.setCreateTime(createTime);
+        o.setUpdateTime(createTime);
+        return orderRepository.saveAndFlush(o);
+    }
+
+    private void progress(long last, long target) {
+        em.createNativeQuery("UPDATE order_product_token_backfill SET last_order_id = :last, target_order_id = :target WHERE id = 1")
+                .setParameter("last", last)
+                .setParameter("target", target)
+                .executeUpdate();
+    }
+
+    private List<String> tokens(Long orderId) {
+        return em.createQuery("select t.token from OrderProductToken t where t.orderId = :id", String.class)
+                .setParameter("id", orderId)
+                .getResultList();
+    }
+}
@@ -1,12 +1,18 @@
 package com.interview.order.service.impl;
 
+import com.interview.order.config.ReplicaRoutingDataSource;
 import com.interview.order.entity.Order;
 import com.interview.order.entity.OrderStatus;
 import com.interview.order.notification.OrderCreatedEvent;
 import com.interview.order.notification.OrderStatusChangedEvent;
+import com.interview.order.notification.OrdersCreatedEvent;
+import com.interview.order.notification.OrdersStatusChangedEvent;
 import com.interview.order.repository.OrderRepository;
+import com.interview.order.repository.OrderRow;
+import com.interview.order.service.OrderCache;
 import com.interview.order.service.OrderService;
 import com.interview.order.web.CreateOrderRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -17,12 +23,18 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
@@ -35,6 +47,12 @@ class OrderServiceImplTest {
     @Mock
     private ApplicationEventPublisher eventPublisher;
 
+    @Mock
+    private OrderCache orderCache;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private OrderServiceImpl orderService;
 
@@ -78,29 +96,83 @@ class OrderServiceImplTest {
     }
 
     @Test
-    void updateOrderStatus_success() {
-        Order order = new Order();
-        order.setId(2L);
-        order.setStatus(OrderStatus.CREATED);
-        order.setUpdateTime(LocalDateTime.now());
+    void createOrders_shouldSaveAllAndPublishOneEvent() {
+        CreateOrderRequest a = new CreateOrderRequest();
+        a.setProductName("Widget");
+        a.setCustomer("Alice");
+        a.setTotalAmount(new BigDecimal("1.00"));
+        CreateOrderRequest b = new CreateOrderRequest();
+        b.setProductName("Gizmo");
+        b.setCustomer("Alice");
+        b.setTotalAmount(new BigDecimal("2.00"));
+        b.setCurrency(null);
+
+        when(orderRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+        List<Order> result = orderService.createOrders(List.of(a, b));
+
+        assertThat(result).hasSize(2);
+        assertThat(result).allMatch(o -> o.getStatus() == OrderStatus.CREATED);
+        assertThat(result.get(1).getCurrency()).isEqualTo("RMB");
+        verify(orderRepository, never()).save(any());
+        verify(eventPublisher, times(1)).publishEvent(eventCaptor.capture());
+        assertThat(eventCaptor.getValue()).isInstanceOf(OrdersCreatedEvent.class);
+        assertThat(((OrdersCreatedEvent) eventCaptor.getValue()).getOrders()).hasSize(2);
+    }
+
+    @Test
+    void getOrder_readsThroughCache() {
+        OrderRow order = new OrderRow(6L, "Widget", "Alice", new BigDecimal("1.00"), "RMB", OrderStatus.CREATED, null, null);
+        when(orderRepository.findRowById(6L)).thenReturn(Optional.of(order));
+        when(orderCache.get(eq(6L), any())).thenAnswer(inv -> {
+            Function<Long, Optional<OrderRow>> loader = inv.getArgument(1);
+            return loader.apply(6L);
+        });
 
-        when(orderRepository.findById(2L)).thenReturn(Optional.of(order));
-        when(orderRepository.save(any(Order.class))).thenAnswer(inv -> inv.getArgument(0));
+        assertThat(orderService.getOrder(6L)).containsSame(order);
+        verify(orderRepository, times(1)).findRowById(6L);
+        verify(orderRepository, never()).findById(any());
+    }
+
+    @Test
+    void getOrder_afterUpdate_doesNotCacheTheLaggingReplicaRow() {
+        OrderCache cache = new OrderCache(100, 30, 600, new SimpleMeterRegistry());
+        OrderServiceImpl service = new OrderServiceImpl(orderRepository, eventPublisher, cache, transactionManager);
+        OrderRow stale = new OrderRow(8L, "Widget", "Alice", new BigDecimal("1.00"), "RMB", OrderStatus.CREATED, null, null);
+        OrderRow fresh = new OrderRow(8L, "Widget", "Alice", new BigDecimal("1.00"), "RMB", OrderStatus.COMPLETED, null, null);
+        // the replica has not applied the update yet, the primary has
+        when(orderRepository.findRowById(8L)).thenAnswer(inv -> Optional.of(ReplicaRoutingDataSource.isReadingFromPrimary() ? fresh : stale));
+
+        cache.invalidate(8L); // what the status change event does
+
+        assertThat(service.getOrder(8L)).containsSame(fresh);
+        assertThat(service.getOrder(8L)).containsSame(fresh);
+        verify(orderRepository, times(1)).findRowById(8L);
+    }
+
+    @Test
+    void updateOrderStatus_success() {
+        when(orderRepository.transitionStatus(eq(2L), eq(OrderStatus.CREATED), eq(OrderStatus.COMPLETED), any(LocalDateTime.class))).thenReturn(1);
 
         OrderService.UpdateResult res = orderService.updateOrderStatus(2L, OrderStatus.COMPLETED.getCode());
 
         assertEquals(OrderService.UpdateResult.SUCCESS, res);
-        verify(orderRepository, times(1)).save(any(Order.class));
+        verify(orderRepository, never()).findById(any());
+        verify(orderRepository, never()).existsById(any());
+        verify(orderRepository, never()).save(any(Order.class));
         verify(eventPublisher, times(1)).publishEvent(eventCaptor.capture());
         ApplicationEvent published = eventCaptor.getValue();
         assertThat(published).isInstanceOf(OrderStatusChangedEvent.class);
         OrderStatusChangedEvent evt = (OrderStatusChangedEvent) published;
         assertThat(evt.getOrder().getId()).isEqualTo(2L);
+        assertThat(evt.getOldStatus()).isEqualTo(OrderStatus.CREATED.getCode());
+        assertThat(evt.getNewStatus()).isEqualTo(OrderStatus.COMPLETED.getCode());
     }
 
     @Test
     void updateOrderStatus_notFound() {
-        when(orderRepository.findById(99L)).thenReturn(Optional.empty());
+        when(orderRepository.transitionStatus(eq(99L), any(), any(), any())).thenReturn(0);
+        when(orderRepository.existsById(99L)).thenReturn(false);
 
         OrderService.UpdateResult res = orderService.updateOrderStatus(99L, OrderStatus.COMPLETED.getCode());
 
@@ -111,10 +183,8 @@ class OrderServiceImplTest {
 
     @Test
     void updateOrderStatus_notAllowed_when_current_not_created() {
-        Order order = new Order();
-        order.setId(3L);
-        order.setStatus(OrderStatus.COMPLETED);
-        when(orderRepository.findById(3L)).thenReturn(Optional.of(order));
+        when(orderRepository.transitionStatus(eq(3L), eq(OrderStatus.CREATED), eq(OrderStatus.CANCELLED), any())).thenReturn(0);
+        when(orderRepository.existsById(3L)).thenReturn(true);
 
         OrderService.UpdateResult res = orderService.updateOrderStatus(3L, OrderStatus.CANCELLED.getCode());
 
@@ -125,15 +195,92 @@ class OrderServiceImplTest {
 
     @Test
     void updateOrderStatus_notAllowed_when_invalid_code() {
-        Order order = new Order();
-        order.setId(4L);
-        order.setStatus(OrderStatus.CREATED);
-        when(orderRepository.findById(4L)).thenReturn(Optional.of(order));
+        when(orderRepository.existsById(4L)).thenReturn(true);
 
         OrderService.UpdateResult res = orderService.updateOrderStatus(4L, 999);
 
         assertEquals(OrderService.UpdateResult.NOT_ALLOWED, res);
+        verify(orderRepository, never()).transitionStatus(any(), any(), any(), any());
         verify(orderRepository, never()).save(any());
         verify(eventPublisher, never()).publishEvent(any());
     }
+
+    @Test
+    void updateOrderStatus_notAllowed_when_target_is_created() {
+        when(orderRepository.existsById(5L)).thenReturn(true);
+
+        OrderService.UpdateResult res = orderService.updateOrderStatus(5L, OrderStatus.CREATED.getCode());
+
+        assertEquals(OrderService.UpdateResult.NOT_ALLOWED, res);
+        verify(orderRepository, never()).transitionStatus(any(), any(), any(), any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void updateOrderStatuses_setBasedWithPerIdResults() {
+        when(orderRepository.lockIdsInStatus(List.of(1L, 2L, 3L), OrderStatus.CREATED.getCode())).thenReturn(List.of(3L, 1L));
+        when(orderRepository.findExistingIds(List.of(2L))).thenReturn(List.of(2L));
+
+        Map<Long, OrderService.UpdateResult> res = orderService.updateOrderStatuses(List.of(1L, 2L, 3L, 1L), OrderStatus.COMPLETED.getCode());
+
+        assertThat(res).containsExactly(
+                entry(1L, OrderService.UpdateResult.SUCCESS),
+                entry(2L, OrderService.UpdateResult.NOT_ALLOWED),
+                entry(3L, OrderService.UpdateResult.SUCCESS));
+        verify(orderRepository, times(1)).transitionStatuses(eq(List.of(3L, 1L)), eq(OrderStatus.CREATED), eq(OrderStatus.COMPLETED), any());
+        verify(orderRepository, never()).transitionStatus(any(), any(), any(), any());
+        verify(eventPublisher, times(1)).publishEvent(eventCaptor.capture());
+        OrdersStatusChangedEvent evt = (OrdersStatusChangedEvent) eventCaptor.getValue();
+        assertThat(evt.getOrders()).extracting(Order::getId).containsExactly(3L, 1L);
+        assertThat(evt.getNewStatus()).isEqualTo(OrderStatus.COMPLETED.getCode());
+    }
+
+    @Test
+    void updateOrderStatuses_commitsEachChunkSeparately() {
+        ReflectionTestUtils.setField(orderService, "bulkStatusChunkSize", 2);
+        when(orderRepository.lockIdsInStatus(List.of(1L, 2L), OrderStatus.CREATED.getCode())).thenReturn(List.of(1L, 2L));
+        when(orderRepository.lockIdsInStatus(List.of(3L), OrderStatus.CREATED.getCode())).thenReturn(List.of(3L));
+
+        Map<Long, OrderService.UpdateResult> res = orderService.updateOrderStatuses(List.of(1L, 2L, 3L), OrderStatus.CANCELLED.getCode());
+
+        assertThat(res).containsOnlyKeys(1L, 2L, 3L).doesNotContainValue(OrderService.UpdateResult.NOT_FOUND);
+        verify(transactionManager, times(2)).getTransaction(any());
+        verify(transactionManager, times(2)).commit(any());
+        verify(eventPublisher, times(2)).publishEvent(any(OrdersStatusChangedEvent.class));
+    }
+
+    @Test
+    void updateOrderStatuses_failedChunkKeepsCommittedResultsAndReportsTheRestAsFailed() {
+        ReflectionTestUtils.setField(orderService, "bulkStatusChunkSize", 2);
+        when(orderRepository.lockIdsInStatus(List.of(1L, 2L), OrderStatus.CREATED.getCode())).thenReturn(List.of(1L, 2L));
+        when(orderRepository.lockIdsInStatus(List.of(3L, 4L), OrderStatus.CREATED.getCode())).thenReturn(List.of(3L, 4L));
+        // the second chunk fails after its ids were already recorded as SUCCESS; the rollback must take that back
+        doNothing().doThrow(new IllegalStateException("outbox insert failed")).when(eventPublisher).publishEvent(any(OrdersStatusChangedEvent.class));
+
+        Map<Long, OrderService.UpdateResult> res = orderService.updateOrderStatuses(List.of(1L, 2L, 3L, 4L, 5L), OrderStatus.COMPLETED.getCode());
+
+        assertThat(res).containsExactly(
+                entry(1L, OrderService.UpdateResult.SUCCESS),
+                entry(2L, OrderService.UpdateResult.SUCCESS),
+                entry(3L, OrderService.UpdateResult.FAILED),
+                entry(4L, OrderService.UpdateResult.FAILED),
+                entry(5L, OrderService.UpdateResult.FAILED));
+        verify(transactionManager, times(1)).commit(any());
+        verify(transactionManager, times(1)).rollback(any());
+        verify(orderRepository, never()).lockIdsInStatus(eq(List.of(5L)), anyInt());
+    }
+
+    @Test
+    void updateOrderStatuses_invalidTargetOnlyProbesExistence() {
+        when(orderRepository.findExistingIds(List.of(7L, 8L))).thenReturn(List.of(7L));
+
+        Map<Long, OrderService.UpdateResult> res = orderService.updateOrderStatuses(List.of(7L, 8L), OrderStatus.CREATED.getCode());
+
+        assertThat(res).containsExactly(
+                entry(7L, OrderService.UpdateResult.NOT_ALLOWED),
+                entry(8L, OrderService.UpdateResult.NOT_FOUND));
+        verify(orderRepository, never()).lockIdsInStatus(any(), anyInt());
+        verify(orderRepository, never()).transitionStatuses(any(), any(), any(), any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
 }
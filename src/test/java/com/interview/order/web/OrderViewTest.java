@@ -0,0 +1,24 @@
+package com.interview.order.web;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderViewTest {
+
+    private static final DateTimeFormatter DTF = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @Test
+    void formatTime_matchesDateTimeFormatter() {
+        for (LocalDateTime t : new LocalDateTime[]{
+                LocalDateTime.of(2026, 1, 2, 9, 5, 7),
+                LocalDateTime.of(1999, 12, 31, 23, 59, 59, 999_999_999),
+                LocalDateTime.of(7, 3, 4, 0, 0, 0)}) {
+            assertThat(OrderView.formatTime(t)).isEqualTo(t.format(DTF));
+        }
+        assertThat(OrderView.formatTime(null)).isNull();
+    }
+}